@@ -0,0 +1,84 @@
+package pro.schuhmann.tmdlib.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.batch.BatchResult;
+import pro.schuhmann.tmdlib.batch.TmdBatchListener;
+import pro.schuhmann.tmdlib.batch.TmdBatchParser;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a directory tree of TMD files with the {@link TmdBatchParser}, laid out like the CDN ("titleId/tmd.1").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchParseBenchmark {
+
+  @Param({"100", "1000"})
+  public int fileCount;
+
+  private Path root;
+  private TmdBatchParser parser;
+
+  private static final TmdBatchListener LISTENER = new TmdBatchListener() {
+    @Override
+    public void onParsed(Path path, TMD tmd) {
+    }
+
+    @Override
+    public void onFailure(Path path, Exception error) {
+    }
+  };
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    root = Files.createTempDirectory("tmdlib-benchmark");
+    for (int i = 0; i < fileCount; i++) {
+      long titleId = 0x0004000000000000L | (i << 8);
+      Path directory = Files.createDirectory(root.resolve(String.format("%016X", titleId)));
+      Files.write(directory.resolve("tmd.1"), SyntheticTmds.build(titleId, SignatureType.RSA_2048_SHA256, 1 + i % 32));
+    }
+    parser = new TmdBatchParser();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    parser.close();
+    for (File directory : root.toFile().listFiles()) {
+      for (File file : directory.listFiles())
+        Files.delete(file.toPath());
+      Files.delete(directory.toPath());
+    }
+    Files.delete(root);
+  }
+
+  @Benchmark
+  public int parseAll() throws IOException, InterruptedException {
+    BatchResult result = parser.parseAll(root, LISTENER);
+    if (result.getFailedCount() != 0)
+      throw new IllegalStateException("Failed to parse " + result.getFailures().keySet());
+    return result.getParsedCount();
+  }
+}
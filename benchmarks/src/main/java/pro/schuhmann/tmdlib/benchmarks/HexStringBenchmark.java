@@ -0,0 +1,62 @@
+package pro.schuhmann.tmdlib.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and encoding hashes: {@link TmdFileReader#getHexString(long, int)}, {@link HexString#toString()} and
+ * {@link HexString#fromString(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexStringBenchmark {
+
+  private TmdFileReader reader;
+  private int hashOffset;
+  private byte[] hashBytes;
+  private String hashString;
+
+  @Setup
+  public void setup() throws IOException {
+    byte[] data = SyntheticTmds.build(0x00040000000EE000L, SignatureType.RSA_2048_SHA256, 1);
+    reader      = TmdFileReader.forByteArray(data);
+    hashOffset  = TMD.fromByteArray(data).getHeaderOffset() + 0x9C4 + 0x10;
+    hashBytes   = reader.getBytes(hashOffset, 0x20);
+    hashString  = HexString.fromBytes(hashBytes).toString();
+  }
+
+  @Benchmark
+  public HexString getHexString() throws IOException {
+    return reader.getHexString(hashOffset, 0x20);
+  }
+
+  @Benchmark
+  public String encode() {
+    // toString() is cached, so every invocation needs a new HexString (including the copy of 0x20 bytes)
+    return HexString.fromBytes(hashBytes).toString();
+  }
+
+  @Benchmark
+  public HexString decode() {
+    return HexString.fromString(hashString);
+  }
+}
@@ -0,0 +1,97 @@
+package pro.schuhmann.tmdlib.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pro.schuhmann.tmdlib.AbstractTmdVisitor;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.TmdStreamParser;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a single TMD: from a byte array, from a file, with integrity checks, only the header and with the
+ * streaming parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+  @Param({"1", "64", "1024"})
+  public int contentCount;
+
+  @Param({"RSA_2048_SHA256", "RSA_4096_SHA256", "ECDSA_SHA256"})
+  public SignatureType signatureType;
+
+  private byte[] data;
+  private File file;
+  private TmdStreamParser streamParser;
+
+  private static final TmdOptions LAZY      = TmdOptions.DEFAULT.lazy(true);
+  private static final TmdOptions INTEGRITY = TmdOptions.DEFAULT.verifyIntegrity(true);
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    data = SyntheticTmds.build(0x00040000000EE000L, signatureType, contentCount);
+    file = File.createTempFile("tmdlib-benchmark", ".tmd");
+    Files.write(file.toPath(), data);
+    streamParser = new TmdStreamParser();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.delete(file.toPath());
+  }
+
+  @Benchmark
+  public TMD fromByteArray() throws IOException {
+    return TMD.fromByteArray(data);
+  }
+
+  @Benchmark
+  public TMD fromFile() throws IOException {
+    return new TMD(file);
+  }
+
+  @Benchmark
+  public TMD verifyingIntegrity() throws IOException {
+    return new TMD(TmdFileReader.forByteArray(data), INTEGRITY);
+  }
+
+  @Benchmark
+  public short headerOnly() throws IOException {
+    return new TMD(TmdFileReader.forByteArray(data), LAZY).getHeader().getTitleVersion();
+  }
+
+  @Benchmark
+  public void streamParser(final Blackhole blackhole) throws IOException {
+    streamParser.parse(data, 0, data.length, new AbstractTmdVisitor() {
+      @Override
+      public void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize,
+                                 byte[] buffer, int hashOffset) {
+        blackhole.consume(contentId);
+      }
+    });
+  }
+}
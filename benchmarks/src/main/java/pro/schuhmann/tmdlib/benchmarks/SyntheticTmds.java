@@ -0,0 +1,92 @@
+package pro.schuhmann.tmdlib.benchmarks;
+
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TmdBuilder;
+import pro.schuhmann.tmdlib.TmdWriter;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Creates TMDs for the benchmarks locally, so no TMD has to be downloaded. The TMDs look like real CDN TMDs (with
+ * the two CDN certificates appended), but the signatures and hashes are random.
+ */
+public final class SyntheticTmds {
+
+  private SyntheticTmds() {
+  }
+
+  /**
+   * Create a TMD.
+   *
+   * @param titleId       The title ID.
+   * @param signatureType The signature type of the TMD.
+   * @param contentCount  The number of contents.
+   * @return The bytes of the TMD.
+   * @throws IOException The TMD couldn't be written.
+   */
+  public static byte[] build(long titleId, SignatureType signatureType, int contentCount) throws IOException {
+    // Same seed, same TMD
+    Random random = new Random(titleId ^ contentCount);
+
+    byte[] signature = new byte[signatureType.getSignatureSize()];
+    random.nextBytes(signature);
+    TmdBuilder builder = new TmdBuilder()
+        .signatureType(signatureType)
+        .signature(signature)
+        .titleId(new TitleId(titleId))
+        .titleType(0x40)
+        .titleVersion(1040)
+        .systemVersion(0x000400000F800100L)
+        .saveDataSize(0x80000)
+        .certificates(certificates());
+
+    byte[] hash = new byte[0x20];
+    for (int i = 0; i < contentCount; i++) {
+      random.nextBytes(hash);
+      builder.addContentChunk(i, i, i == 0 ? 0x0001 : 0x4001, 0x10000L + random.nextInt(0x1000000), hash);
+    }
+    return new TmdWriter().toByteArray(builder);
+  }
+
+  /**
+   * The CP and the CA certificate of the CDN, with random keys and signatures.
+   */
+  private static byte[] certificates() {
+    Random random = new Random(0x3D5);
+    ByteBuffer certificates = ByteBuffer.allocate(0x300 + 0x400);
+    putCertificate(certificates, random, 0x010004, 0x100, "Root-CA00000003", "CP0000000b");
+    putCertificate(certificates, random, 0x010003, 0x200, "Root", "CA00000003");
+    return certificates.array();
+  }
+
+  private static void putCertificate(ByteBuffer buffer, Random random, int signatureType, int signatureSize,
+                                     String issuer, String name) {
+    byte[] signature = new byte[signatureSize];
+    byte[] modulus   = new byte[0x100];
+    random.nextBytes(signature);
+    random.nextBytes(modulus);
+
+    int start = buffer.position();
+    buffer.putInt(signatureType);
+    buffer.put(signature);
+    buffer.position(start + 0x4 + signatureSize + 0x3C);
+    buffer.put(padded(issuer, 0x40));
+    buffer.putInt(1); // RSA_2048
+    buffer.put(padded(name, 0x40));
+    buffer.putInt(random.nextInt());
+    buffer.put(modulus);
+    buffer.putInt(65537);
+    buffer.position(buffer.position() + 0x34);
+  }
+
+  private static byte[] padded(String s, int length) {
+    byte[] bytes  = new byte[length];
+    byte[] string = s.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(string, 0, bytes, 0, string.length);
+    return bytes;
+  }
+}
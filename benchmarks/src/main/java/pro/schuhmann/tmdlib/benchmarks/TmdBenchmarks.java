@@ -0,0 +1,27 @@
+package pro.schuhmann.tmdlib.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the JMH main class does, but always with the GC profiler, so the allocation rate
+ * ({@code gc.alloc.rate.norm}, bytes per operation) is reported next to the time.
+ * <pre>
+ * java -jar target/benchmarks.jar                      # Everything
+ * java -jar target/benchmarks.jar ParseBenchmark -p contentCount=64
+ * </pre>
+ */
+public final class TmdBenchmarks {
+
+  private TmdBenchmarks() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+  }
+}
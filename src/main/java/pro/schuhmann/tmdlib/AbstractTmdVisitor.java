@@ -0,0 +1,40 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+/**
+ * A {@link TmdVisitor} ignoring every part of the TMD, so subclasses only have to override the callbacks they are
+ * interested in.
+ */
+public abstract class AbstractTmdVisitor implements TmdVisitor {
+
+  @Override
+  public void onSignature(SignatureType signatureType, byte[] buffer, int signatureOffset) {
+  }
+
+  @Override
+  public boolean onHeader(long titleId, short titleVersion, int titleType, long systemVersion, int contentCount,
+                          short bootContent, byte[] buffer, int headerOffset) {
+    return true;
+  }
+
+  @Override
+  public void onContentInfo(int index, short contentIndexOffset, short commandCount, byte[] hashBuffer,
+                            int hashOffset) {
+  }
+
+  @Override
+  public void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize,
+                             byte[] hashBuffer, int hashOffset) {
+  }
+
+  @Override
+  public void onCertificate(int index, SignatureType signatureType, PublicKeyType publicKeyType, byte[] buffer,
+                            int certificateOffset, int certificateSize) {
+  }
+
+  @Override
+  public void onEnd() {
+  }
+}
@@ -0,0 +1,95 @@
+package pro.schuhmann.tmdlib;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+
+/**
+ * A {@link TmdFileReader} reading from a (part of a) byte array. Instances are created by
+ * {@link TmdFileReader#forByteArray(byte[])} and friends.
+ * The array is never modified, so a single instance may be used by several threads at once.
+ */
+final class ByteArrayTmdFileReader extends TmdFileReader {
+
+  private final byte[] data;
+  private final int start;
+  private final int length;
+
+  /**
+   * Create a new ByteArrayTmdFileReader.
+   *
+   * @param data   A byte array containing the TMD.
+   * @param start  The start of the TMD in the array.
+   * @param length The length of the TMD in bytes.
+   */
+  ByteArrayTmdFileReader(byte[] data, int start, int length) {
+    if (start < 0 || length < 0 || length > data.length - start)
+      throw new IndexOutOfBoundsException("The slice " + start + "+" + length + " exceeds the array length "
+          + data.length + ".");
+
+    this.data   = data;
+    this.start  = start;
+    this.length = length;
+  }
+
+  @Override
+  public byte getByte(int index) throws IOException {
+    checkBounds(index, 1);
+    return data[start + index];
+  }
+
+  @Override
+  public short getShort(int index) throws IOException {
+    checkBounds(index, 2);
+    final int i = start + index;
+    return (short) ((data[i] << 8) | (data[i + 1] & 0xFF));
+  }
+
+  @Override
+  public int getInt(int index) throws IOException {
+    checkBounds(index, 4);
+    return readInt(start + index);
+  }
+
+  @Override
+  public long getLong(int index) throws IOException {
+    checkBounds(index, 8);
+    final int i = start + index;
+    return ((long) readInt(i) << 32) | (readInt(i + 4) & 0xFFFFFFFFL);
+  }
+
+  @Override
+  public void getBytes(long index, byte[] destination, int offset, int length) throws IOException {
+    checkBounds(index, length);
+    System.arraycopy(data, start + (int) index, destination, offset, length);
+  }
+
+  @Override
+  public void digest(MessageDigest digest, long index, int length) throws IOException {
+    checkBounds(index, length);
+    digest.update(data, start + (int) index, length);
+  }
+
+  @Override
+  public int getFileLength() {
+    return length;
+  }
+
+  /**
+   * Check whether this reader covers the whole array, so it doesn't keep any bytes alive besides it's own.
+   *
+   * @return {@code true} if the slice starts at 0 and ends at the end of the array.
+   */
+  boolean isWholeArray() {
+    return start == 0 && length == data.length;
+  }
+
+  /**
+   * Decode a big endian int at an absolute array index. No bounds checks!
+   *
+   * @param i The absolute index in the array.
+   * @return An int.
+   */
+  private int readInt(int i) {
+    return (data[i] << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+  }
+}
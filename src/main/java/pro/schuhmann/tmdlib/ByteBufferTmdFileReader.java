@@ -0,0 +1,85 @@
+package pro.schuhmann.tmdlib;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+
+/**
+ * A {@link TmdFileReader} reading from a slice of a {@link ByteBuffer}, mostly used for direct and memory mapped
+ * buffers. Heap buffers are handled by {@link ByteArrayTmdFileReader}.
+ * Only absolute get methods are used, so neither the position of the buffer is changed nor is it unsafe to use a
+ * single instance from several threads at once.
+ */
+final class ByteBufferTmdFileReader extends TmdFileReader {
+
+  private final ByteBuffer buffer;
+  private final int start;
+  private final int length;
+
+  /**
+   * Create a new ByteBufferTmdFileReader.
+   *
+   * @param buffer A buffer containing the TMD.
+   * @param start  The absolute start of the TMD in the buffer.
+   * @param length The length of the TMD in bytes.
+   */
+  ByteBufferTmdFileReader(ByteBuffer buffer, int start, int length) {
+    // Duplicate it, so the byte order of the callers buffer stays untouched
+    this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    this.start  = start;
+    this.length = length;
+  }
+
+  @Override
+  public byte getByte(int index) throws IOException {
+    checkBounds(index, 1);
+    return buffer.get(start + index);
+  }
+
+  @Override
+  public short getShort(int index) throws IOException {
+    checkBounds(index, 2);
+    return buffer.getShort(start + index);
+  }
+
+  @Override
+  public int getInt(int index) throws IOException {
+    checkBounds(index, 4);
+    return buffer.getInt(start + index);
+  }
+
+  @Override
+  public long getLong(int index) throws IOException {
+    checkBounds(index, 8);
+    return buffer.getLong(start + index);
+  }
+
+  @Override
+  public void getBytes(long index, byte[] destination, int offset, int length) throws IOException {
+    checkBounds(index, length);
+    // A single bulk get on a duplicate, the shared buffer stays untouched.
+    // Casts: Compatibility with Java 8 and below
+    ByteBuffer area = buffer.duplicate();
+    ((Buffer) area).limit(start + (int) index + length);
+    ((Buffer) area).position(start + (int) index);
+    area.get(destination, offset, length);
+  }
+
+  @Override
+  public void digest(MessageDigest digest, long index, int length) throws IOException {
+    checkBounds(index, length);
+    // The duplicate has it's own position and limit, the shared buffer stays untouched.
+    // Casts: Compatibility with Java 8 and below
+    ByteBuffer area = buffer.duplicate();
+    ((Buffer) area).limit(start + (int) index + length);
+    ((Buffer) area).position(start + (int) index);
+    digest.update(area);
+  }
+
+  @Override
+  public int getFileLength() {
+    return length;
+  }
+}
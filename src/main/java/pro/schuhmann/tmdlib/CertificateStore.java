@@ -0,0 +1,88 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.parts.Certificate;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An interning store for {@link Certificate}s. The certificates appended to TMDs from the CDN are byte-for-byte the
+ * same for almost every title, so a catalog of thousands of TMDs only needs a handful of Certificate objects:
+ * <pre>{@code
+ * TmdOptions options = TmdOptions.DEFAULT.certificateStore(CertificateStore.getDefault());
+ * TMD tmd = new TMD(tmdFile, options);
+ * }</pre>
+ * The certificates are identified by their raw bytes, so only identical certificates are shared. Certificates are
+ * immutable, so sharing them between TMDs and threads is safe.
+ *
+ * To keep the memory bounded even for unusual inputs, the store stops adding certificates once it holds
+ * {@code maxCertificates} of them. Further certificates are decoded as usual, but not shared.
+ */
+public class CertificateStore {
+
+  private static final CertificateStore DEFAULT = new CertificateStore(256);
+
+  private final ConcurrentMap<HexString, Certificate> certificates = new ConcurrentHashMap<>();
+  private final int maxCertificates;
+
+  /**
+   * Create a new certificate store.
+   *
+   * @param maxCertificates The maximum number of distinct certificates kept by the store.
+   */
+  public CertificateStore(int maxCertificates) {
+    if (maxCertificates < 0)
+      throw new IllegalArgumentException("maxCertificates must not be negative.");
+
+    this.maxCertificates = maxCertificates;
+  }
+
+  /**
+   * Get the default store, holding up to 256 distinct certificates.
+   *
+   * @return The default store.
+   */
+  public static CertificateStore getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Get the shared instance of a certificate. The certificate is decoded, if it isn't known yet.
+   *
+   * @param tmdFile           A TmdFileReader pointing to a TMD file.
+   * @param certificateOffset The offset of the certificate in the TMD file.
+   * @param certificateSize   The size of the certificate in bytes.
+   * @return The shared certificate.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public Certificate intern(TmdFileReader tmdFile, int certificateOffset, int certificateSize) throws IOException {
+    HexString raw = tmdFile.getHexString(certificateOffset, certificateSize);
+    Certificate certificate = certificates.get(raw);
+    if (certificate != null)
+      return certificate;
+
+    certificate = new Certificate(tmdFile, certificateOffset);
+    if (certificates.size() >= maxCertificates)
+      return certificate;
+
+    Certificate existing = certificates.putIfAbsent(raw, certificate);
+    return existing != null ? existing : certificate;
+  }
+
+  /**
+   * Get the number of distinct certificates in the store.
+   *
+   * @return The number of certificates.
+   */
+  public int size() {
+    return certificates.size();
+  }
+
+  /**
+   * Remove all certificates from the store. TMDs already using them are not affected.
+   */
+  public void clear() {
+    certificates.clear();
+  }
+}
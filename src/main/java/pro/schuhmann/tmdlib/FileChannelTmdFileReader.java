@@ -0,0 +1,97 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.metrics.TmdMetrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link TmdFileReader} reading directly from an open file, without loading the whole file into memory.
+ * Only positional reads ({@link FileChannel#read(ByteBuffer, long)}) are used, there is no shared file pointer, so a
+ * single instance can be used from several threads at once. The file stays open until the reader is closed.
+ */
+final class FileChannelTmdFileReader extends TmdFileReader {
+
+  private final FileChannel channel;
+  private final int length;
+  private final TmdMetrics metrics;
+
+  /**
+   * Create a new FileChannelTmdFileReader.
+   *
+   * @param channel The channel of the TMD file. It is closed together with this reader.
+   * @param metrics The metrics receiving every read.
+   * @throws IOException The size of the file couldn't be determined or it's too large to be a TMD file.
+   */
+  FileChannelTmdFileReader(FileChannel channel, TmdMetrics metrics) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE)
+      throw new IOException("The file is too large to be a TMD file: " + size + " bytes.");
+
+    this.channel = channel;
+    this.length  = (int) size;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public byte getByte(int index) throws IOException {
+    return read(index, 1)[0];
+  }
+
+  @Override
+  public short getShort(int index) throws IOException {
+    byte[] b = read(index, 2);
+    return (short) ((b[0] << 8) | (b[1] & 0xFF));
+  }
+
+  @Override
+  public int getInt(int index) throws IOException {
+    byte[] b = read(index, 4);
+    return (b[0] << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+  }
+
+  @Override
+  public long getLong(int index) throws IOException {
+    byte[] b = read(index, 8);
+    long value = 0;
+    for (int i = 0; i < 8; i++)
+      value = (value << 8) | (b[i] & 0xFF);
+    return value;
+  }
+
+  @Override
+  public void getBytes(long index, byte[] destination, int offset, int length) throws IOException {
+    checkBounds(index, length);
+    final long start  = metrics != TmdMetrics.NONE ? System.nanoTime() : 0;
+    ByteBuffer buffer = ByteBuffer.wrap(destination, offset, length);
+    long position = index;
+    int reads     = 0;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      reads++;
+      if (read < 0)
+        throw new EOFException("The TMD file was truncated while reading it.");
+      position += read;
+    }
+    if (metrics != TmdMetrics.NONE)
+      metrics.onFileRead(length, reads, System.nanoTime() - start);
+  }
+
+  @Override
+  public int getFileLength() {
+    return length;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private byte[] read(int index, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    getBytes(index, bytes, 0, length);
+    return bytes;
+  }
+}
@@ -1,22 +1,109 @@
 package pro.schuhmann.tmdlib;
 
+import java.security.MessageDigest;
+import java.util.Arrays;
+
 /**
- * This class is actually a normal String - It just exists to create a "difference" between a normal String
- * and a hexadecimal String, which only contains hexadecimal characters.
- * Yep. I know that's a bad solution. But hey, provide me a better one, I'm pleased to know!
+ * A sequence of bytes, which is displayed as a hexadecimal String (like hashes, signatures or keys).
+ * The bytes are stored as they are, the hexadecimal String is only created when {@link #toString()} is called for the
+ * first time. HexStrings are immutable and can be used as keys in hash maps.
  */
-public class HexString {
+public class HexString implements Comparable<HexString> {
+
+  private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
 
-  private final String hexString;
+  private final byte[] bytes;
+  private String hexString; // Created lazily, racing threads would just create equal Strings.
+  private int hashCode;     // Cached, 0 means "not computed yet"
 
   /**
    * Create a new HexString.
    *
-   * @param s A String.
+   * @param s A String, which only contains hexadecimal characters.
+   * @throws IllegalArgumentException The String is not a valid hexadecimal String.
    */
   HexString(String s)
   {
-    hexString = s;
+    // Not cached as it is, toString() always returns upper case characters
+    bytes = parse(s);
+  }
+
+  /**
+   * Create a new HexString. The byte array is not copied!
+   *
+   * @param bytes The bytes.
+   */
+  HexString(byte[] bytes)
+  {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Create a new HexString from a byte array. The array is copied.
+   *
+   * @param bytes The bytes.
+   * @return A new HexString.
+   */
+  public static HexString fromBytes(byte[] bytes) {
+    return new HexString(bytes.clone());
+  }
+
+  /**
+   * Create a new HexString from a hexadecimal String, like "00040000000EE000". Upper and lower case characters are
+   * allowed.
+   *
+   * @param s A String, which only contains hexadecimal characters.
+   * @return A new HexString.
+   * @throws IllegalArgumentException The String is not a valid hexadecimal String.
+   */
+  public static HexString fromString(String s) {
+    return new HexString(s);
+  }
+
+  /**
+   * Get a copy of the bytes of this HexString.
+   *
+   * @return A byte array.
+   */
+  public byte[] toBytes() {
+    return bytes.clone();
+  }
+
+  /**
+   * Get the number of bytes of this HexString. The hexadecimal String is twice as long.
+   *
+   * @return The number of bytes.
+   */
+  public int length() {
+    return bytes.length;
+  }
+
+  /**
+   * Get a single byte of this HexString.
+   *
+   * @param index The index of the byte.
+   * @return A byte.
+   */
+  public byte getByte(int index) {
+    return bytes[index];
+  }
+
+  /**
+   * Check whether this HexString contains exactly the given bytes, without creating another HexString.
+   *
+   * @param other  A byte array.
+   * @param offset The start index in the byte array.
+   * @return {@code true} if the next {@link #length()} bytes in the array are equal to this HexString.
+   */
+  public boolean contentEquals(byte[] other, int offset) {
+    if (offset < 0 || offset + bytes.length > other.length)
+      return false;
+
+    // Compare all bytes without returning early, HexStrings may contain signatures and hashes.
+    int difference = 0;
+    for (int i = 0; i < bytes.length; i++)
+      difference |= bytes[i] ^ other[offset + i];
+    return difference == 0;
   }
 
   /**
@@ -27,7 +114,17 @@ public class HexString {
   @Override
   public String toString()
   {
-    return hexString;
+    String s = hexString;
+    if (s == null) {
+      char[] hexChars = new char[bytes.length * 2];
+      for ( int j = 0; j < bytes.length; j++ ) {
+        int v = bytes[j] & 0xFF;
+        hexChars[j * 2] = HEX_ARRAY[v >>> 4];
+        hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+      }
+      hexString = s = new String(hexChars);
+    }
+    return s;
   }
 
   /**
@@ -37,6 +134,74 @@ public class HexString {
    * @return {@code true} if both HexStrings are equal, {@code false} if not.
    */
   public boolean equals(HexString hex) {
-    return toString().equals(hex.toString());
+    return equals((Object) hex);
+  }
+
+  /**
+   * Compare this HexString to another object. Two HexStrings are equal, if they contain the same bytes - no matter
+   * whether their hexadecimal Strings were written in upper or lower case.
+   *
+   * @param o Another object.
+   * @return {@code true} if the object is an equal HexString.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof HexString))
+      return false;
+
+    HexString other = (HexString) o;
+    return hashCode() == other.hashCode() && MessageDigest.isEqual(bytes, other.bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hashCode;
+    if (h == 0) {
+      h = Arrays.hashCode(bytes);
+      hashCode = h;
+    }
+    return h;
+  }
+
+  /**
+   * Compare the bytes of two HexStrings as unsigned values, byte by byte. If one HexString is a prefix of the other,
+   * the shorter one is smaller.
+   *
+   * @param other Another HexString.
+   * @return A negative number, zero or a positive number, if this HexString is smaller, equal or greater.
+   */
+  @Override
+  public int compareTo(HexString other) {
+    final int length = Math.min(bytes.length, other.bytes.length);
+    for (int i = 0; i < length; i++) {
+      int difference = (bytes[i] & 0xFF) - (other.bytes[i] & 0xFF);
+      if (difference != 0)
+        return difference;
+    }
+    return bytes.length - other.bytes.length;
+  }
+
+  /**
+   * Convert a hexadecimal String to bytes.
+   *
+   * @param s A String, which only contains hexadecimal characters.
+   * @return The bytes.
+   * @throws IllegalArgumentException The String is not a valid hexadecimal String.
+   */
+  private static byte[] parse(String s) {
+    if (s.length() % 2 != 0)
+      throw new IllegalArgumentException("A hexadecimal String must have an even length: " + s);
+
+    byte[] bytes = new byte[s.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = Character.digit(s.charAt(i * 2), 16);
+      int low  = Character.digit(s.charAt(i * 2 + 1), 16);
+      if (high < 0 || low < 0)
+        throw new IllegalArgumentException("Not a hexadecimal String: " + s);
+      bytes[i] = (byte) ((high << 4) | low);
+    }
+    return bytes;
   }
 }
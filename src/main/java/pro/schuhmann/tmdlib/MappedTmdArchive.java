@@ -0,0 +1,166 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read TMDs from a large pack file, which contains lots of TMDs concatenated together (usually indexed by an external
+ * offset table). The pack file is memory mapped once, every TMD obtained from it is just a zero-copy view on the
+ * mapping - no file is opened and nothing is copied per TMD.
+ *
+ * Instances can be shared between threads.
+ */
+public class MappedTmdArchive implements Closeable {
+
+  /*
+   * A single MappedByteBuffer can't be larger than 2 GiB, so the file is mapped in segments. Every segment overlaps
+   * the next one by MAX_TMD_SIZE bytes, this way every TMD lies completely inside a single segment.
+   */
+  private static final long SEGMENT_SIZE = 1L << 30;
+  // Signature + Header + Info Records + 0xFFFF Chunk Records + Certificates is a bit less than that
+  private static final int  MAX_TMD_SIZE = 4 << 20;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer[] segments;
+  private final long size;
+
+  /**
+   * Open and map a pack file.
+   *
+   * @param packFile A {@link File} pointing to the pack file.
+   * @throws IOException The file couldn't be opened or mapped.
+   */
+  public MappedTmdArchive(File packFile) throws IOException {
+    this.file = new RandomAccessFile(packFile, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      this.size = channel.size();
+
+      int segmentCount = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+      this.segments    = new MappedByteBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        long start = i * SEGMENT_SIZE;
+        long end   = Math.min(size, start + SEGMENT_SIZE + MAX_TMD_SIZE);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      }
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the size of the pack file.
+   *
+   * @return The size in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Get a {@link TmdFileReader} for a TMD in the pack file. All offsets of the reader are relative to the start of
+   * the TMD, so the TMD can be parsed as if it was a single file.
+   *
+   * @param offset The offset of the TMD in the pack file.
+   * @param length The length of the TMD in bytes.
+   * @return A new TmdFileReader.
+   * @throws IOException The TMD is located (partially) outside of the pack file or it is larger than supported.
+   */
+  public TmdFileReader getReader(long offset, int length) throws IOException {
+    if (offset < 0 || length < 0 || offset + length > size)
+      throw new IOException("The TMD at offset " + offset + " with length " + length + " exceeds the pack file size "
+          + size + ".");
+    if (length > MAX_TMD_SIZE)
+      throw new IOException("The TMD at offset " + offset + " is too large: " + length + " bytes.");
+
+    int segment = (int) (offset / SEGMENT_SIZE);
+    return TmdFileReader.forByteBuffer(segments[segment], (int) (offset - segment * SEGMENT_SIZE), length);
+  }
+
+  /**
+   * Get a TMD from the pack file. The TMD is created in lazy mode, so it's a view on the memory mapping and every
+   * section is decoded the first time it is requested.
+   *
+   * @param offset The offset of the TMD in the pack file.
+   * @param length The length of the TMD in bytes.
+   * @return A TMD, which is backed by the memory mapping.
+   * @throws IOException The TMD is invalid or it's located outside of the pack file.
+   */
+  public TMD getTmd(long offset, int length) throws IOException {
+    return getTmd(offset, length, TmdOptions.DEFAULT.lazy(true));
+  }
+
+  /**
+   * Get a TMD from the pack file. Only a TMD created in lazy mode is backed by the memory mapping, an eager TMD is
+   * decoded completely and keeps a compact copy of it's bytes (see {@link TMD#getTmdFileReader()}).
+   *
+   * @param offset  The offset of the TMD in the pack file.
+   * @param length  The length of the TMD in bytes.
+   * @param options The options for parsing the TMD, see {@link TmdOptions}.
+   * @return A TMD.
+   * @throws IOException The TMD is invalid or it's located outside of the pack file.
+   */
+  public TMD getTmd(long offset, int length, TmdOptions options) throws IOException {
+    return new TMD(getReader(offset, length), options);
+  }
+
+  /**
+   * Get a TMD from the pack file, if only the offset of the TMD is known. The length is determined by
+   * {@link #getTmdLength(long)}, the TMD is created in lazy mode like by {@link #getTmd(long, int)}.
+   *
+   * @param offset The offset of the TMD in the pack file.
+   * @return A TMD, which is backed by the memory mapping.
+   * @throws IOException The TMD is invalid or it's located outside of the pack file.
+   */
+  public TMD getTmd(long offset) throws IOException {
+    return getTmd(offset, getTmdLength(offset));
+  }
+
+  /**
+   * Determine the length of the TMD at the given offset by it's signature type and content count. If the content
+   * chunk records are directly followed by the two CDN certificates, they're considered to be part of the TMD.
+   *
+   * @param offset The offset of the TMD in the pack file.
+   * @return The length of the TMD in bytes.
+   * @throws IOException The TMD is invalid or it's located outside of the pack file.
+   */
+  public int getTmdLength(long offset) throws IOException {
+    TmdFileReader reader = getReader(offset, (int) Math.min(MAX_TMD_SIZE, size - offset));
+
+    // Same layout as described in TMD#setup()
+    SignatureType signatureType = SignatureType.getByValue(reader.getInt(0));
+    if (signatureType == null)
+      throw new IOException("There is no TMD at offset " + offset + ": unknown signature type.");
+
+    int signatureDataSize = signatureType.getSignatureDataSize();
+    TmdLayout layout      = TmdLayout.detect(reader, signatureDataSize);
+    int contentCount      = reader.getShort(signatureDataSize + 0x9E) & 0xFFFF;
+    int length            = signatureDataSize + layout.getLength(contentCount);
+
+    if (length + 0x700 <= reader.getFileLength()
+        && reader.getInt(length) == layout.getSignerCertificateType().getValue()
+        && reader.getInt(length + 0x300) == layout.getCaCertificateType().getValue())
+      length += 0x700;
+
+    return length;
+  }
+
+  /**
+   * Close the pack file. TMDs obtained from this archive may still be used afterwards, the mapping is released
+   * as soon as none of them is referenced any more.
+   *
+   * @throws IOException An error occurred while closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
@@ -0,0 +1,37 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+
+/**
+ * A {@link TmdSigner} signing TMDs with a RSA private key. The size of the key has to match the signature type, like
+ * 2048 bit for {@link SignatureType#RSA_2048_SHA256}.
+ */
+public class RsaTmdSigner implements TmdSigner {
+
+  private final PrivateKey privateKey;
+
+  /**
+   * Create a new RSA signer.
+   *
+   * @param privateKey The RSA private key.
+   */
+  public RsaTmdSigner(PrivateKey privateKey) {
+    this.privateKey = privateKey;
+  }
+
+  @Override
+  public byte[] sign(SignatureType signatureType, byte[] data, int offset, int length)
+      throws GeneralSecurityException {
+    if (signatureType.isEcdsa())
+      throw new GeneralSecurityException("The signature type " + signatureType + " needs an ECDSA signer.");
+
+    Signature signature = Signature.getInstance(signatureType.getAlgorithm());
+    signature.initSign(privateKey);
+    signature.update(data, offset, length);
+    return signature.sign();
+  }
+}
@@ -1,27 +1,56 @@
 package pro.schuhmann.tmdlib;
 
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+import pro.schuhmann.tmdlib.metrics.TmdMetrics;
+import pro.schuhmann.tmdlib.metrics.TmdSection;
 import pro.schuhmann.tmdlib.parts.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Retrieve information about TMD files by creating an instance from this class.
- * NOTE: ONLY 3DS TMD files are officially supported at this time!
+ * 3DS, Wii U and Wii TMD files are supported, the layout of a TMD is chosen by {@link TmdLayout#detect(byte, long)}.
+ *
+ * A TMD decoded eagerly (the default) doesn't keep a reference to the reader it was created from. It keeps a compact
+ * copy of it's own bytes instead (signature data, header, records and certificates), so a TMD sliced from a CIA or an
+ * archive doesn't keep the whole buffer alive. Lazy TMDs keep their reader, see {@link TmdOptions#lazy(boolean)}.
  *
  * TODO: Write some Unit tests. Some time. In the future. Maybe.
  *
  * @see <a href="https://3dbrew.org/wiki/Title_metadata">3dbrew: Title Metadata</a>
+ * @see TmdLayout
  */
 public class TMD {
 
-  private SignatureData signatureData;
-  private Header header;
-  private List<ContentInfoRecord> contentInfoRecords;
-  private List<ContentChunkRecord> contentChunkRecords;
-  private Certificate[] certificates;
+  private static final TmdValidator STRUCTURE_VALIDATOR = new TmdValidator();
+
+  private TmdFileReader tmdFile;
+  private int fileLength;
+  private int signatureDataSize;
+  private SignatureType signatureType;
+  private TmdLayout layout;
+  private CertificateStore certificateStore;
+  private TmdMetrics metrics;
+
+  /*
+   * All sections are decoded by the constructor, unless the TMD is created in lazy mode.
+   * Decoding a section twice (when two threads are racing) is harmless, so volatile is enough here.
+   */
+  private volatile SignatureData signatureData;
+  private volatile Header header;
+  private volatile List<ContentInfoRecord> contentInfoRecords;
+  private volatile List<ContentChunkRecord> contentChunkRecords;
+  private volatile Certificate[] certificates;
+  private volatile boolean certificatesRead;
 
   /**
    * Create a new TMD object.
@@ -30,17 +59,122 @@ public class TMD {
    * @throws IOException An error occurred while reading the TMD file.
    */
   public TMD(File tmdFile) throws IOException {
-    TmdFileReader tmdFileReader = new TmdFileReader(tmdFile);
-    setup(tmdFileReader);
+    this(tmdFile, TmdOptions.DEFAULT);
+  }
+
+  /**
+   * Create a new TMD object. The file is read completely and closed before the constructor returns, so the TMD never
+   * holds an open file.
+   *
+   * @param tmdFile A {@link File} object pointing to the TMD file.
+   * @param options The options for parsing the TMD, see {@link TmdOptions}.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public TMD(File tmdFile, TmdOptions options) throws IOException {
+    TmdFileReader tmdFileReader = TmdFileReader.forFile(tmdFile, options.getMetrics());
+    setup(tmdFileReader, options);
+  }
+
+  /**
+   * Create a new TMD object from any kind of {@link TmdFileReader}.
+   *
+   * @param tmdFileReader A TmdFileReader providing the bytes of the TMD.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  public TMD(TmdFileReader tmdFileReader) throws IOException {
+    this(tmdFileReader, TmdOptions.DEFAULT);
+  }
+
+  /**
+   * Create a new TMD object from any kind of {@link TmdFileReader}.
+   * In lazy mode the reader has to stay usable as long as the TMD is in use. The reader is never closed by the TMD,
+   * closing it is up to the caller (see {@link TmdFileReader#openFile(File)}).
+   *
+   * @param tmdFileReader A TmdFileReader providing the bytes of the TMD.
+   * @param options       The options for parsing the TMD, see {@link TmdOptions}.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  public TMD(TmdFileReader tmdFileReader, TmdOptions options) throws IOException {
+    setup(tmdFileReader, options);
+  }
+
+  /**
+   * Create a new TMD object from a byte array containing the complete TMD. The array is not copied, so it must not be
+   * changed while the TMD is in use.
+   *
+   * @param data The bytes of the TMD.
+   * @return A new TMD object.
+   * @throws IOException The TMD is invalid or truncated.
+   */
+  public static TMD fromByteArray(byte[] data) throws IOException {
+    return new TMD(TmdFileReader.forByteArray(data));
+  }
+
+  /**
+   * Create a new TMD object from a part of a byte array. The array is not copied, so it must not be changed while the
+   * TMD is in use.
+   *
+   * @param data   A byte array containing the TMD.
+   * @param offset The start of the TMD in the array.
+   * @param length The length of the TMD in bytes.
+   * @return A new TMD object.
+   * @throws IOException The TMD is invalid or truncated.
+   */
+  public static TMD fromByteArray(byte[] data, int offset, int length) throws IOException {
+    return new TMD(TmdFileReader.forByteArray(data, offset, length));
+  }
+
+  /**
+   * Create a new TMD object from the remaining bytes (position to limit) of a heap or direct {@link ByteBuffer}.
+   * Neither the buffer content is copied nor the position of the buffer is changed.
+   *
+   * @param buffer A buffer containing the TMD.
+   * @return A new TMD object.
+   * @throws IOException The TMD is invalid or truncated.
+   */
+  public static TMD fromByteBuffer(ByteBuffer buffer) throws IOException {
+    return new TMD(TmdFileReader.forByteBuffer(buffer));
+  }
+
+  /**
+   * Create a new TMD object from a slice of a heap or direct {@link ByteBuffer}.
+   * Neither the buffer content is copied nor the position of the buffer is changed.
+   *
+   * @param buffer A buffer containing the TMD.
+   * @param offset The absolute start of the TMD in the buffer.
+   * @param length The length of the TMD in bytes.
+   * @return A new TMD object.
+   * @throws IOException The TMD is invalid or truncated.
+   */
+  public static TMD fromByteBuffer(ByteBuffer buffer, int offset, int length) throws IOException {
+    return new TMD(TmdFileReader.forByteBuffer(buffer, offset, length));
+  }
+
+  /**
+   * Create a new TMD object from an {@link InputStream}, like a HTTP response body. The stream is read until it ends,
+   * but it is not closed.
+   *
+   * @param in An input stream providing exactly one TMD.
+   * @return A new TMD object.
+   * @throws IOException An error occurred while reading the stream or the TMD is invalid.
+   */
+  public static TMD fromInputStream(InputStream in) throws IOException {
+    return new TMD(TmdFileReader.forInputStream(in));
   }
 
   /**
    * Setup method for creating a new TMD instance. Only called by TMD constructor.
    *
    * @param tmdFile A TmdFileReader pointing to a TMD file.
+   * @param options The options for parsing the TMD.
    * @throws IOException An error occurred while reading the TMD file.
    */
-  private void setup(TmdFileReader tmdFile) throws IOException {
+  private void setup(TmdFileReader tmdFile, TmdOptions options) throws IOException {
+    this.tmdFile          = tmdFile;
+    this.certificateStore = options.getCertificateStore();
+    this.metrics          = options.getMetrics();
+    final long start      = startTimer();
+
     /*
      * --- Signature Data ---
      *
@@ -49,18 +183,146 @@ public class TMD {
      * location in the file depends on the signature data length.
      */
 
-    this.signatureData = new SignatureData(tmdFile, 0);
-    final int signatureDataSize = signatureData.getSignatureType().getSignatureDataSize();
+    TmdSection section = TmdSection.SIGNATURE_DATA;
+    final int parsedLength = tmdFile.getFileLength();
+    try {
+      this.fileLength = parsedLength;
+      if (options.isValidatingStructure()) {
+        section = TmdSection.STRUCTURE;
+        final long validationStart = startTimer();
+        STRUCTURE_VALIDATOR.validate(tmdFile);
+        sectionDecoded(TmdSection.STRUCTURE, fileLength, validationStart);
+        section = TmdSection.SIGNATURE_DATA;
+      }
+
+      this.signatureType = SignatureType.getByValue(tmdFile.getInt(0));
+      if (signatureType == null)
+        throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_SIGNATURE_TYPE,
+            "The signature type couldn't be identified! Make sure the given file is valid.");
+      this.signatureDataSize = signatureType.getSignatureDataSize();
+
+      // The layout of everything after the signature data depends on the platform
+      section     = TmdSection.HEADER;
+      this.layout = TmdLayout.detect(tmdFile, signatureDataSize);
+
+      if (options.isVerifyingIntegrity()) {
+        section = TmdSection.INTEGRITY;
+        verifyIntegrity();
+      }
+
+      // In lazy mode every section is decoded as soon as it is requested for the first time.
+      if (!options.isLazy()) {
+        section                  = TmdSection.SIGNATURE_DATA;
+        this.signatureData       = readSignatureData();
+        section                  = TmdSection.HEADER;
+        this.header              = readHeader();
+        section                  = TmdSection.CONTENT_INFO_RECORDS;
+        this.contentInfoRecords  = readContentInfoRecords();
+        section                  = TmdSection.CONTENT_CHUNK_RECORDS;
+        this.contentChunkRecords = readContentChunkRecords();
+        section                  = TmdSection.CERTIFICATES;
+        this.certificates        = readCertificates();
+        this.certificatesRead    = true;
+        // Everything is decoded, don't keep a whole CIA or archive buffer alive just for the raw TMD
+        section                  = TmdSection.FILE;
+        this.tmdFile             = compactCopy();
+      }
+    } catch (IOException | RuntimeException e) {
+      // readCertificates() reports it's failures itself, with the public key type of the failed certificate
+      if (section != TmdSection.CERTIFICATES)
+        metrics.onFailure(section, signatureType, null, e);
+      throw e;
+    }
+
+    if (metrics != TmdMetrics.NONE)
+      metrics.onParsed(signatureType, parsedLength, System.nanoTime() - start);
+  }
 
+  /**
+   * Copy the bytes of the TMD itself out of the reader: Everything up to the last content chunk record, followed by the
+   * certificates (if there are any). Padding or other data between the records and the certificates is dropped, the
+   * certificates stay at the end of the copy. The reader is kept as it is, if it already is such a copy.
+   *
+   * @return A reader for the compact copy.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private TmdFileReader compactCopy() throws IOException {
+    final int recordsLength     = signatureDataSize + layout.getLength(header.getContentCount() & 0xFFFF);
+    final int certificateLength = certificates != null ? 0x700 : 0;
+    final int length            = recordsLength + certificateLength;
+    if (tmdFile instanceof ByteArrayTmdFileReader && ((ByteArrayTmdFileReader) tmdFile).isWholeArray()
+        && fileLength == length)
+      return tmdFile;
+
+    byte[] copy = new byte[length];
+    tmdFile.getBytes(0, copy, 0, recordsLength);
+    if (certificateLength != 0)
+      tmdFile.getBytes(fileLength - certificateLength, copy, recordsLength, certificateLength);
+    this.fileLength = length;
+    return TmdFileReader.forByteArray(copy);
+  }
+
+  /**
+   * Start measuring the time of a section, but only if anyone is interested in it.
+   *
+   * @return The start time or 0, if the metrics are disabled.
+   */
+  private long startTimer() {
+    return metrics != TmdMetrics.NONE ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Report a decoded section to the metrics.
+   *
+   * @param section The section.
+   * @param bytes   The size of the section in bytes.
+   * @param start   The time returned by {@link #startTimer()}.
+   */
+  private void sectionDecoded(TmdSection section, int bytes, long start) {
+    if (metrics != TmdMetrics.NONE)
+      metrics.onSectionDecoded(section, bytes, System.nanoTime() - start);
+  }
+
+  /**
+   * Decode the signature data.
+   *
+   * @return The signature data.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private SignatureData readSignatureData() throws IOException {
+    final long start = startTimer();
+    SignatureData signatureData = new SignatureData(tmdFile, 0);
+    sectionDecoded(TmdSection.SIGNATURE_DATA, signatureDataSize, start);
+    return signatureData;
+  }
+
+  /**
+   * Decode the header.
+   *
+   * @return The header.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private Header readHeader() throws IOException {
     /*
      * --- Header ---
      *
      * The header mostly contains information about the title itself. The header area in the file starts
-     * at offset "Signature Data Size" and has a size of "0xC4".
+     * at offset "Signature Data Size" and has a size of "0xC4" (3DS and Wii U) or "0xA4" (Wii).
      */
 
-    this.header = new Header(tmdFile, signatureDataSize);
+    final long start = startTimer();
+    Header header = new Header(tmdFile, signatureDataSize, layout);
+    sectionDecoded(TmdSection.HEADER, layout.getHeaderSize(), start);
+    return header;
+  }
 
+  /**
+   * Decode the content info records.
+   *
+   * @return All used content info records.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private List<ContentInfoRecord> readContentInfoRecords() throws IOException {
     /*
      * --- Content Info Records ---
      *
@@ -68,37 +330,61 @@ public class TMD {
      * in the file starts at offset "Signature Data Size + 0xC4" and has a size of "0x24*64".
      * A TMD file can contain up to 64 content info records but usually the first one is used.
      *
-     * Note: The count of the content info records is independent from the content count.
+     * Note: The count of the content info records is independent from the content count. Wii TMDs have none at all.
      *
      * NOTE: I only *assume* that content info records follow the index strictly.
      * (like record 0, record 1, record 2, record 3...)
      */
 
-    this.contentInfoRecords = new ArrayList<>();
-    for (int infoRecordIndex = 0; infoRecordIndex < 64; infoRecordIndex++) {
+    final long start = startTimer();
+    List<ContentInfoRecord> contentInfoRecords = new ArrayList<>();
+    final int infoRecordsOffset = signatureDataSize + layout.getContentInfoRecordsOffset();
+    for (int infoRecordIndex = 0; infoRecordIndex < layout.getContentInfoRecordCount(); infoRecordIndex++) {
       // If content command count of the record equals 0: record (and following) must be empty -> break;
-      int offset = signatureDataSize + 0xC4 + infoRecordIndex * 0x24;
+      int offset = infoRecordsOffset + infoRecordIndex * 0x24;
       if (tmdFile.getShort(offset + 0x2) != 0) {
         contentInfoRecords.add(new ContentInfoRecord(tmdFile, offset));
       } else {
         break;
       }
     }
+    sectionDecoded(TmdSection.CONTENT_INFO_RECORDS, contentInfoRecords.size() * 0x24, start);
+    return contentInfoRecords;
+  }
 
+  /**
+   * Decode the content chunk records.
+   *
+   * @return All content chunk records.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private List<ContentChunkRecord> readContentChunkRecords() throws IOException {
     /*
      * --- Content Chunk Records ---
      *
      * The content chunk records contain information about content chunks, like it's index offset and content type.
      * The content chunk area in the file starts at offset "Signature Data Size + 0x9C4" and has a size of
-     * "0x30*ContentCount". The content count is defined in the TMD header.
+     * "0x30*ContentCount". The content count is defined in the TMD header. In Wii TMDs the records directly follow
+     * the header and are only 0x24 bytes long, see TmdLayout.
+     *
+     * Titles may have thousands of contents, so the records are kept in their raw form by a ContentChunkRecordList.
      */
 
-    this.contentChunkRecords = new ArrayList<>();
-    for (int chunkRecordIndex = 0; chunkRecordIndex < header.getContentCount(); chunkRecordIndex++) {
-      int offset = signatureDataSize + 0x9C4 + chunkRecordIndex * 0x30;
-      contentChunkRecords.add(new ContentChunkRecord(tmdFile, offset));
-    }
+    final int contentCount = getHeader().getContentCount() & 0xFFFF;
+    final long start = startTimer();
+    List<ContentChunkRecord> contentChunkRecords = new ContentChunkRecordList(tmdFile,
+        signatureDataSize + layout.getContentChunkRecordsOffset(), contentCount, layout);
+    sectionDecoded(TmdSection.CONTENT_CHUNK_RECORDS, contentCount * layout.getContentChunkRecordSize(), start);
+    return contentChunkRecords;
+  }
 
+  /**
+   * Decode the certificates.
+   *
+   * @return Two certificates or {@code null}, if not available.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private Certificate[] readCertificates() throws IOException {
     /*
      * --- Certificates ---
      *
@@ -107,26 +393,202 @@ public class TMD {
      * offset "EndOfFile - 0x700". The first certificate has a size of 0x300 bytes, so the second certificate must start
      * at offset "EndOfFile - 0x400".
      *
-     * Type of the first certificate:  RSA_2048_SHA256 (0x010004)
-     * Type of the second certificate: RSA_4096_SHA256 (0x010003)
+     * Type of the first certificate:  RSA_2048_SHA256 (0x010004), RSA_2048_SHA1 (0x010001) for Wii TMDs
+     * Type of the second certificate: RSA_4096_SHA256 (0x010003), RSA_4096_SHA1 (0x010000) for Wii TMDs
      */
 
-    int certificateOffset = tmdFile.getFileLength() - 0x700;
-    // Check whether the certificates are available:
-    if (tmdFile.getInt(certificateOffset) == 0x010004 && tmdFile.getInt(certificateOffset + 0x300) == 0x010003) {
-      // Certificates are available!
-      certificates    = new Certificate[2];
-      certificates[0] = new Certificate(tmdFile, certificateOffset);
-      certificates[1] = new Certificate(tmdFile, certificateOffset + 0x300);
+    final long start = startTimer();
+    int certificateOffset = fileLength - 0x700;
+    int failedOffset      = certificateOffset; // The certificate being decoded, reported to the metrics on a failure
+    try {
+      int contentCount = tmdFile.getShort(signatureDataSize + 0x9E) & 0xFFFF;
+      // Check whether the certificates are available (the file length is always relative to the start of the TMD),
+      // they have to start behind the last content chunk record:
+      if (certificateOffset >= signatureDataSize + layout.getLength(contentCount)
+          && tmdFile.getInt(certificateOffset) == layout.getSignerCertificateType().getValue()
+          && tmdFile.getInt(certificateOffset + 0x300) == layout.getCaCertificateType().getValue()) {
+        // Certificates are available!
+        Certificate[] certificates = new Certificate[2];
+        if (certificateStore != null) {
+          // The certificates are the same for almost every TMD, so share them
+          certificates[0] = certificateStore.intern(tmdFile, certificateOffset, 0x300);
+          failedOffset    = certificateOffset + 0x300;
+          certificates[1] = certificateStore.intern(tmdFile, certificateOffset + 0x300, 0x400);
+        } else {
+          certificates[0] = new Certificate(tmdFile, certificateOffset);
+          failedOffset    = certificateOffset + 0x300;
+          certificates[1] = new Certificate(tmdFile, certificateOffset + 0x300);
+        }
+        sectionDecoded(TmdSection.CERTIFICATES, 0x700, start);
+        return certificates;
+      }
+    } catch (IOException | RuntimeException e) {
+      metrics.onFailure(TmdSection.CERTIFICATES, signatureType, getPublicKeyType(failedOffset), e);
+      throw e;
+    }
+    sectionDecoded(TmdSection.CERTIFICATES, 0, start);
+    return null;
+  }
+
+  /**
+   * Read the public key type of a certificate, without decoding it.
+   *
+   * @param certificateOffset The offset of the certificate in the TMD file.
+   * @return The public key type or {@code null}, if it can't be read or is unknown.
+   */
+  private PublicKeyType getPublicKeyType(int certificateOffset) {
+    try {
+      SignatureType certificateSignatureType = SignatureType.getByValue(tmdFile.getInt(certificateOffset));
+      if (certificateSignatureType == null)
+        return null;
+      return PublicKeyType.getByValue(tmdFile.getInt(certificateOffset
+          + certificateSignatureType.getSignatureDataSize() + 0x40));
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Check the hash chain of the TMD: The header contains the hash of all 64 content info records, every content info
+   * record contains the hash of the content chunk records it covers. All hashes are calculated directly from the raw
+   * bytes, no section is decoded for this. Wii TMDs don't have a hash chain, the signature covers their records.
+   *
+   * @throws TmdIntegrityException A hash doesn't match.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private void verifyIntegrity() throws IOException {
+    if (layout.getContentInfoRecordCount() == 0)
+      return;
+
+    final long start = startTimer();
+    final MessageDigest sha256;
+    try {
+      sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-256
+      throw new IllegalStateException(e);
+    }
+
+    final int infoRecordsOffset  = signatureDataSize + layout.getContentInfoRecordsOffset();
+    final int chunkRecordsOffset = signatureDataSize + layout.getContentChunkRecordsOffset();
+    final int recordSize         = layout.getContentChunkRecordSize();
+    tmdFile.digest(sha256, infoRecordsOffset, 64 * 0x24);
+    if (!hashEquals(sha256.digest(), signatureDataSize + 0xA4))
+      throw new TmdIntegrityException("The hash of the content info records doesn't match the hash in the header.");
+
+    final int contentCount = tmdFile.getShort(signatureDataSize + 0x9E) & 0xFFFF;
+    for (int infoRecordIndex = 0; infoRecordIndex < 64; infoRecordIndex++) {
+      int offset       = infoRecordsOffset + infoRecordIndex * 0x24;
+      int indexOffset  = tmdFile.getShort(offset) & 0xFFFF;
+      int commandCount = tmdFile.getShort(offset + 0x2) & 0xFFFF;
+      // Same as in readContentInfoRecords(): The first empty record ends the list
+      if (commandCount == 0)
+        break;
+
+      if (indexOffset + commandCount > contentCount)
+        throw new TmdIntegrityException("Content info record " + infoRecordIndex + " covers the content chunk records "
+            + indexOffset + " to " + (indexOffset + commandCount - 1) + ", but there are only " + contentCount + ".");
+
+      tmdFile.digest(sha256, chunkRecordsOffset + indexOffset * recordSize, commandCount * recordSize);
+      if (!hashEquals(sha256.digest(), offset + 0x4))
+        throw new TmdIntegrityException("The hash of the content chunk records covered by content info record "
+            + infoRecordIndex + " doesn't match.");
     }
+    sectionDecoded(TmdSection.INTEGRITY, 64 * 0x24 + contentCount * recordSize, start);
+  }
+
+  /**
+   * Compare a calculated hash with a hash stored in the TMD file.
+   *
+   * @param hash   The calculated hash.
+   * @param offset The offset of the stored hash in the TMD file.
+   * @return {@code true} if both hashes are equal.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  private boolean hashEquals(byte[] hash, int offset) throws IOException {
+    int difference = 0;
+    for (int i = 0; i < hash.length; i++)
+      difference |= hash[i] ^ tmdFile.getByte(offset + i);
+    return difference == 0;
+  }
+
+  /**
+   * Wrap an exception thrown while decoding a section lazily, since the getters can't throw an {@link IOException}.
+   *
+   * @param section The section.
+   * @param name    The name of the section.
+   * @param e       The exception.
+   * @return An unchecked exception.
+   */
+  private IllegalStateException lazyDecodingFailed(TmdSection section, String name, IOException e) {
+    // readCertificates() reports it's failures itself, with the public key type of the failed certificate
+    if (section != TmdSection.CERTIFICATES)
+      metrics.onFailure(section, signatureType, null, e);
+    return new IllegalStateException("The " + name + " of the TMD couldn't be decoded.", e);
+  }
+
+  /**
+   * Get the {@link TmdFileReader} providing the raw bytes of the TMD, for example to verify signatures. For an eagerly
+   * decoded TMD this is the compact copy of the TMD, not the reader it was created from.
+   *
+   * @return The TmdFileReader.
+   */
+  public TmdFileReader getTmdFileReader() {
+    return tmdFile;
+  }
+
+  /**
+   * Get the offset of the header in the TMD file, which equals the size of the signature data. The signature covers
+   * the TMD from the header on, see {@link TmdLayout#getSignedLength(int)}.
+   *
+   * @return The header offset.
+   */
+  public int getHeaderOffset() {
+    return signatureDataSize;
+  }
+
+  /**
+   * Get the {@link TmdLayout} of the TMD, which defines the offsets and sizes of all sections after the signature data.
+   *
+   * @return The layout.
+   */
+  public TmdLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Get the offset of a certificate in the TMD file.
+   *
+   * @param index The index of the certificate in {@link #getCertificates()}.
+   * @return The offset of the certificate.
+   * @throws IllegalStateException The TMD has no certificates.
+   */
+  public int getCertificateOffset(int index) {
+    Certificate[] certificates = getCertificates();
+    if (certificates == null)
+      throw new IllegalStateException("The TMD has no certificates.");
+
+    int offset = fileLength - 0x700;
+    for (int i = 0; i < index; i++)
+      offset += certificates[i].getSize();
+    return offset;
   }
 
   /**
    * Get the {@link SignatureData} of the TMD.
    *
    * @return A {@link SignatureData} object.
+   * @throws IllegalStateException The signature data couldn't be decoded. (lazy mode only)
    */
   public SignatureData getSignatureData() {
+    SignatureData signatureData = this.signatureData;
+    if (signatureData == null) {
+      try {
+        this.signatureData = signatureData = readSignatureData();
+      } catch (IOException e) {
+        throw lazyDecodingFailed(TmdSection.SIGNATURE_DATA, "signature data", e);
+      }
+    }
     return signatureData;
   }
 
@@ -134,8 +596,17 @@ public class TMD {
    * Get the {@link Header} of the TMD.
    *
    * @return A {@link Header} object.
+   * @throws IllegalStateException The header couldn't be decoded. (lazy mode only)
    */
   public Header getHeader() {
+    Header header = this.header;
+    if (header == null) {
+      try {
+        this.header = header = readHeader();
+      } catch (IOException e) {
+        throw lazyDecodingFailed(TmdSection.HEADER, "header", e);
+      }
+    }
     return header;
   }
 
@@ -143,17 +614,36 @@ public class TMD {
    * Get all {@link ContentInfoRecord} objects from the TMD.
    *
    * @return A list of {@link ContentInfoRecord} objects.
+   * @throws IllegalStateException The content info records couldn't be decoded. (lazy mode only)
    */
   public List<ContentInfoRecord> getContentInfoRecords() {
+    List<ContentInfoRecord> contentInfoRecords = this.contentInfoRecords;
+    if (contentInfoRecords == null) {
+      try {
+        this.contentInfoRecords = contentInfoRecords = readContentInfoRecords();
+      } catch (IOException e) {
+        throw lazyDecodingFailed(TmdSection.CONTENT_INFO_RECORDS, "content info records", e);
+      }
+    }
     return contentInfoRecords;
   }
 
   /**
-   * Get all {@link ContentChunkRecord} objects from the TMD.
+   * Get all {@link ContentChunkRecord} objects from the TMD. The list is a {@link ContentChunkRecordList}, which
+   * provides primitive getters for all values as well.
    *
    * @return A list of {@link ContentChunkRecord} objects.
+   * @throws IllegalStateException The content chunk records couldn't be decoded. (lazy mode only)
    */
   public List<ContentChunkRecord> getContentChunkRecords() {
+    List<ContentChunkRecord> contentChunkRecords = this.contentChunkRecords;
+    if (contentChunkRecords == null) {
+      try {
+        this.contentChunkRecords = contentChunkRecords = readContentChunkRecords();
+      } catch (IOException e) {
+        throw lazyDecodingFailed(TmdSection.CONTENT_CHUNK_RECORDS, "content chunk records", e);
+      }
+    }
     return contentChunkRecords;
   }
 
@@ -161,8 +651,17 @@ public class TMD {
    * Get the certificates of the TMD, if available.
    *
    * @return Two certificates or {@code null}, if not available.
+   * @throws IllegalStateException The certificates couldn't be decoded. (lazy mode only)
    */
   public Certificate[] getCertificates() {
+    if (!certificatesRead) {
+      try {
+        this.certificates     = readCertificates();
+        this.certificatesRead = true;
+      } catch (IOException e) {
+        throw lazyDecodingFailed(TmdSection.CERTIFICATES, "certificates", e);
+      }
+    }
     return certificates;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.parts.Certificate;
+import pro.schuhmann.tmdlib.parts.SignatureData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retrieve information about tickets (.tik files or the ticket of a CIA) by creating an instance from this class. A
+ * ticket holds the encrypted title key of a title. It starts with signature data like a TMD, followed by the ticket
+ * data: 0x164 bytes for Wii tickets (ticket version 0) and additionally a content index of variable size for 3DS and
+ * Wii U tickets (ticket version 1). Tickets from the CDN have their certificates appended, just like TMDs.
+ *
+ * All values are decoded by the constructor, the reader isn't used afterwards.
+ *
+ * @see <a href="https://3dbrew.org/wiki/Ticket">3dbrew: Ticket</a>
+ */
+public class Ticket {
+
+  private final SignatureData signatureData;
+  private final String signatureIssuer;
+  private final byte version;
+  private final byte caCrlVersion;
+  private final byte signerCrlVersion;
+  private final HexString titleKey;
+  private final long ticketId;
+  private final int consoleId;
+  private final TitleId titleId;
+  private final short titleVersion;
+  private final byte licenseType;
+  private final byte commonKeyIndex;
+  private final int accountId;
+  private final byte audit;
+  private final int length;
+  private final Certificate[] certificates;
+
+  /**
+   * Create a new ticket object.
+   *
+   * @param ticketFile A {@link File} object pointing to the ticket file.
+   * @throws IOException An error occurred while reading the ticket file.
+   */
+  public Ticket(File ticketFile) throws IOException {
+    this(TmdFileReader.forFile(ticketFile));
+  }
+
+  /**
+   * Create a new ticket object from any kind of {@link TmdFileReader}, e.g. a slice of a CIA.
+   *
+   * @param ticketFile A TmdFileReader providing the bytes of the ticket.
+   * @throws IOException The ticket is invalid or truncated.
+   */
+  public Ticket(TmdFileReader ticketFile) throws IOException {
+    this.signatureData = new SignatureData(ticketFile, 0);
+    final int data     = signatureData.getSignatureType().getSignatureDataSize();
+
+    this.signatureIssuer  = ticketFile.getString(data, 0x40);
+    this.version          = ticketFile.getByte(data + 0x7C);
+    this.caCrlVersion     = ticketFile.getByte(data + 0x7D);
+    this.signerCrlVersion = ticketFile.getByte(data + 0x7E);
+    this.titleKey         = ticketFile.getHexString(data + 0x7F, 0x10);
+    this.ticketId         = ticketFile.getLong(data + 0x90);
+    this.consoleId        = ticketFile.getInt(data + 0x98);
+    this.titleId          = new TitleId(ticketFile.getLong(data + 0x9C));
+    this.titleVersion     = ticketFile.getShort(data + 0xA6);
+    this.licenseType      = ticketFile.getByte(data + 0xB0);
+    this.commonKeyIndex   = ticketFile.getByte(data + 0xB1);
+    this.accountId        = ticketFile.getInt(data + 0xDC);
+    this.audit            = ticketFile.getByte(data + 0xE1);
+
+    // Version 1 tickets end with the content index, it's size is stored in it's header
+    int contentIndexSize = version == 0 ? 0 : ticketFile.getInt(data + 0x164 + 0x4);
+    if (contentIndexSize < 0 || data + 0x164 + contentIndexSize > ticketFile.getFileLength())
+      throw new IOException("The content index of the ticket exceeds the ticket file.");
+    this.length = data + 0x164 + contentIndexSize;
+
+    // Everything after the ticket is a certificate chain
+    List<Certificate> certificates = new ArrayList<>();
+    for (int offset = length; offset < ticketFile.getFileLength(); ) {
+      Certificate certificate = new Certificate(ticketFile, offset);
+      certificates.add(certificate);
+      offset += certificate.getSize();
+    }
+    this.certificates = certificates.isEmpty() ? null : certificates.toArray(new Certificate[0]);
+  }
+
+  /**
+   * Create a new ticket object from a byte array containing the complete ticket.
+   *
+   * @param data The bytes of the ticket.
+   * @return A new Ticket object.
+   * @throws IOException The ticket is invalid or truncated.
+   */
+  public static Ticket fromByteArray(byte[] data) throws IOException {
+    return new Ticket(TmdFileReader.forByteArray(data));
+  }
+
+  /**
+   * Get the {@link SignatureData} of the ticket.
+   *
+   * @return A {@link SignatureData} object.
+   */
+  public SignatureData getSignatureData() {
+    return signatureData;
+  }
+
+  /**
+   * Get the signature issuer of the ticket, like "Root-CA00000003-XS0000000c".
+   *
+   * @return The signature issuer.
+   */
+  public String getSignatureIssuer() {
+    return signatureIssuer;
+  }
+
+  /**
+   * Get the version of the ticket format: 0 for Wii tickets, 1 for 3DS and Wii U tickets.
+   *
+   * @return The ticket version.
+   */
+  public byte getVersion() {
+    return version;
+  }
+
+  /**
+   * Get the ca_crl_version of the ticket.
+   *
+   * @return The ca_crl_version.
+   */
+  public byte getCaCrlVersion() {
+    return caCrlVersion;
+  }
+
+  /**
+   * Get the signer_crl_version of the ticket.
+   *
+   * @return The signer_crl_version.
+   */
+  public byte getSignerCrlVersion() {
+    return signerCrlVersion;
+  }
+
+  /**
+   * Get the title key, encrypted with the common key selected by {@link #getCommonKeyIndex()}.
+   *
+   * @return A HexString containing the encrypted title key (0x10 bytes).
+   */
+  public HexString getTitleKey() {
+    return titleKey;
+  }
+
+  /**
+   * Get the ticket ID.
+   *
+   * @return The ticket ID.
+   */
+  public long getTicketId() {
+    return ticketId;
+  }
+
+  /**
+   * Get the ID of the console the ticket was issued for, 0 for tickets which aren't bound to a console.
+   *
+   * @return The console ID.
+   */
+  public int getConsoleId() {
+    return consoleId;
+  }
+
+  /**
+   * Get the title ID of the title the ticket belongs to.
+   *
+   * @return The title ID.
+   */
+  public TitleId getTitleId() {
+    return titleId;
+  }
+
+  /**
+   * Get the title version of the ticket.
+   *
+   * @return The title version.
+   */
+  public short getTitleVersion() {
+    return titleVersion;
+  }
+
+  /**
+   * Get the license type of the ticket.
+   *
+   * @return The license type.
+   */
+  public byte getLicenseType() {
+    return licenseType;
+  }
+
+  /**
+   * Get the index of the common key, which encrypts the title key.
+   *
+   * @return The common key index.
+   */
+  public byte getCommonKeyIndex() {
+    return commonKeyIndex;
+  }
+
+  /**
+   * Get the eShop account ID the ticket was issued for.
+   *
+   * @return The account ID.
+   */
+  public int getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * Get the audit value of the ticket.
+   *
+   * @return The audit value.
+   */
+  public byte getAudit() {
+    return audit;
+  }
+
+  /**
+   * Get the length of the ticket, which is the offset of the appended certificates (if any).
+   *
+   * @return The length in bytes.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Get the certificates appended to the ticket, if available.
+   *
+   * @return The certificates or {@code null}, if not available.
+   */
+  public Certificate[] getCertificates() {
+    return certificates;
+  }
+}
@@ -0,0 +1,185 @@
+package pro.schuhmann.tmdlib;
+
+/**
+ * A title ID, stored as a single {@code long}. The upper 32 bits (the "high" half) identify the platform and the
+ * category of a title, the lower 32 bits (the "low" half) identify the title itself. For example the title ID
+ * {@code 00040000000EE000} consists of the platform 0x0004 (3DS), the category 0x0000 (application) and the low half
+ * 0x000EE000.
+ *
+ * Title IDs are ordered unsigned, so all title IDs with the same high half are next to each other.
+ * Use {@link #rangeStart(int)} and {@link #rangeEnd(int)} to query a sorted collection for all titles with a specific
+ * high half.
+ *
+ * @see <a href="https://3dbrew.org/wiki/Titles">3dbrew: Titles</a>
+ */
+public final class TitleId implements Comparable<TitleId> {
+
+  private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+
+  private final long value;
+
+  /**
+   * Create a new title ID.
+   *
+   * @param value The title ID as long.
+   */
+  public TitleId(long value) {
+    this.value = value;
+  }
+
+  /**
+   * Create a new title ID from it's halves.
+   *
+   * @param high The upper 32 bits (platform and category).
+   * @param low  The lower 32 bits.
+   * @return A new title ID.
+   */
+  public static TitleId of(int high, int low) {
+    return new TitleId(((long) high << 32) | (low & 0xFFFFFFFFL));
+  }
+
+  /**
+   * Parse a title ID from a hexadecimal String with 16 characters, like "00040000000EE000".
+   * Upper and lower case characters are allowed.
+   *
+   * @param s A String with 16 hexadecimal characters.
+   * @return A new title ID.
+   * @throws IllegalArgumentException The String is not a valid title ID.
+   */
+  public static TitleId parse(String s) {
+    if (s.length() != 16)
+      throw new IllegalArgumentException("A title ID must have exactly 16 hexadecimal characters: " + s);
+
+    long value = 0;
+    for (int i = 0; i < 16; i++) {
+      int digit = Character.digit(s.charAt(i), 16);
+      if (digit < 0)
+        throw new IllegalArgumentException("Not a hexadecimal title ID: " + s);
+      value = (value << 4) | digit;
+    }
+    return new TitleId(value);
+  }
+
+  /**
+   * Get the smallest title ID with the given high half.
+   *
+   * @param high The upper 32 bits (platform and category).
+   * @return The first title ID of the range (inclusive).
+   */
+  public static TitleId rangeStart(int high) {
+    return of(high, 0);
+  }
+
+  /**
+   * Get the greatest title ID with the given high half.
+   *
+   * @param high The upper 32 bits (platform and category).
+   * @return The last title ID of the range (inclusive).
+   */
+  public static TitleId rangeEnd(int high) {
+    return of(high, 0xFFFFFFFF);
+  }
+
+  /**
+   * Get the title ID as long.
+   *
+   * @return The title ID.
+   */
+  public long toLong() {
+    return value;
+  }
+
+  /**
+   * Get the upper 32 bits of the title ID, which contain the platform and the category.
+   *
+   * @return The high half.
+   */
+  public int getHigh() {
+    return (int) (value >>> 32);
+  }
+
+  /**
+   * Get the lower 32 bits of the title ID, which identify the title itself (unique ID and variation).
+   *
+   * @return The low half.
+   */
+  public int getLow() {
+    return (int) value;
+  }
+
+  /**
+   * Get the platform of the title, like 0x0004 for 3DS or 0x0005 for Wii U titles.
+   *
+   * @return The platform.
+   */
+  public int getPlatform() {
+    return (int) (value >>> 48);
+  }
+
+  /**
+   * Get the category of the title, like 0x0000 for applications or 0x000E for updates (3DS).
+   *
+   * @return The category.
+   */
+  public int getCategory() {
+    return (int) (value >>> 32) & 0xFFFF;
+  }
+
+  /**
+   * Check whether this title ID has the given high half.
+   *
+   * @param high The upper 32 bits (platform and category).
+   * @return {@code true} if the high half is equal.
+   */
+  public boolean hasHigh(int high) {
+    return getHigh() == high;
+  }
+
+  /**
+   * Compare two title IDs unsigned.
+   *
+   * @param other Another title ID.
+   * @return A negative number, zero or a positive number, if this title ID is smaller, equal or greater.
+   */
+  @Override
+  public int compareTo(TitleId other) {
+    return compare(value, other.value);
+  }
+
+  /**
+   * Compare two title IDs given as long unsigned.
+   *
+   * @param a A title ID.
+   * @param b Another title ID.
+   * @return A negative number, zero or a positive number, if {@code a} is smaller, equal or greater.
+   */
+  public static int compare(long a, long b) {
+    return Long.compare(a + Long.MIN_VALUE, b + Long.MIN_VALUE);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof TitleId && ((TitleId) o).value == value);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (value ^ (value >>> 32));
+  }
+
+  /**
+   * Convert this title ID to a hexadecimal String with 16 upper case characters, like "00040000000EE000".
+   *
+   * @return A String.
+   */
+  @Override
+  public String toString() {
+    char[] chars = new char[16];
+    long v = value;
+    for (int i = 15; i >= 0; i--) {
+      chars[i] = HEX_ARRAY[(int) v & 0x0F];
+      v >>>= 4;
+    }
+    return new String(chars);
+  }
+}
@@ -0,0 +1,92 @@
+package pro.schuhmann.tmdlib;
+
+/**
+ * A title ID together with a title version, identifying a single TMD on the CDN (like "00040000000EE000/tmd.1040").
+ * Ordered by title ID first and by version second, so all versions of a title are next to each other.
+ */
+public final class TitleVersion implements Comparable<TitleVersion> {
+
+  private final long titleId;
+  private final int version;
+
+  /**
+   * Create a new title version.
+   *
+   * @param titleId The title ID.
+   * @param version The title version (unsigned 16 bit).
+   */
+  public TitleVersion(TitleId titleId, int version) {
+    this(titleId.toLong(), version);
+  }
+
+  /**
+   * Create a new title version.
+   *
+   * @param titleId The title ID as long.
+   * @param version The title version (unsigned 16 bit).
+   */
+  public TitleVersion(long titleId, int version) {
+    if (version < 0 || version > 0xFFFF)
+      throw new IllegalArgumentException("A title version has 16 bits: " + version);
+
+    this.titleId = titleId;
+    this.version = version;
+  }
+
+  /**
+   * Get the title version of a TMD.
+   *
+   * @param tmd The TMD.
+   * @return The title ID and the title version of the TMD.
+   */
+  public static TitleVersion of(TMD tmd) {
+    return new TitleVersion(tmd.getHeader().getTitleIdValue(), tmd.getHeader().getTitleVersion() & 0xFFFF);
+  }
+
+  /**
+   * Get the title ID.
+   *
+   * @return The title ID.
+   */
+  public TitleId getTitleId() {
+    return new TitleId(titleId);
+  }
+
+  /**
+   * Get the title version.
+   *
+   * @return The title version (unsigned).
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public int compareTo(TitleVersion other) {
+    int result = TitleId.compare(titleId, other.titleId);
+    return result != 0 ? result : Integer.compare(version, other.version);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof TitleVersion))
+      return false;
+    TitleVersion other = (TitleVersion) o;
+    return titleId == other.titleId && version == other.version;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (titleId ^ (titleId >>> 32)) * 31 + version;
+  }
+
+  /**
+   * Get the title version as String, like "00040000000EE000 v1040".
+   *
+   * @return The title version as String.
+   */
+  @Override
+  public String toString() {
+    return new TitleId(titleId) + " v" + version;
+  }
+}
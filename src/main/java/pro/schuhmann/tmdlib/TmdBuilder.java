@@ -0,0 +1,406 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Build a TMD, either from scratch or by changing an existing one, and write it with a {@link TmdWriter}:
+ * <pre>{@code
+ * TmdBuilder builder = TmdBuilder.from(tmd).titleVersion(1040);
+ * byte[] patched = new TmdWriter().toByteArray(builder);
+ * }</pre>
+ * The builder keeps the header, the content info records and the content chunk records in their binary layout, so
+ * everything the builder has no setter for (like reserved areas) is written unchanged. The content count, the hashes
+ * and (if a {@link TmdSigner} is used) the signature are calculated by the writer.
+ *
+ * By default, a single content info record covers all content chunk records, like in almost every TMD. Other
+ * layouts can be set with {@link #contentInfoRecord(int, int, int)}.
+ *
+ * The sizes and offsets of all sections are taken from the {@link TmdLayout} of the builder, so 3DS, Wii U and Wii
+ * TMDs can be built. Wii TMDs don't have content info records.
+ */
+public class TmdBuilder {
+
+  final TmdLayout layout;
+  private SignatureType signatureType;
+  private byte[] signature;
+  final byte[] header;
+  final byte[] infoRecords;
+  boolean explicitInfoRecords;
+  byte[] chunks;
+  int chunkCount;
+  byte[] certificates;
+
+  private final ByteBuffer headerBuffer;
+
+  /**
+   * Create a new builder for an empty 3DS TMD, signed by "Root-CA00000003-CP0000000b" with {@link
+   * SignatureType#RSA_2048_SHA256}.
+   */
+  public TmdBuilder() {
+    this(TmdLayout.CTR);
+  }
+
+  /**
+   * Create a new builder for an empty TMD with the given layout. 3DS and Wii U TMDs are signed by
+   * "Root-CA00000003-CP0000000b" with {@link SignatureType#RSA_2048_SHA256}, Wii TMDs by "Root-CA00000001-CP00000004"
+   * with {@link SignatureType#RSA_2048_SHA1}.
+   *
+   * @param layout The layout of the TMD.
+   */
+  public TmdBuilder(TmdLayout layout) {
+    this.layout       = layout;
+    this.header       = new byte[layout.getHeaderSize()];
+    this.infoRecords  = new byte[layout.getContentInfoRecordCount() * TmdLayout.CONTENT_INFO_RECORD_SIZE];
+    this.chunks       = new byte[16 * layout.getContentChunkRecordSize()];
+    this.headerBuffer = ByteBuffer.wrap(header);
+
+    if (layout == TmdLayout.WII) {
+      this.signatureType = SignatureType.RSA_2048_SHA1;
+      signatureIssuer("Root-CA00000001-CP00000004");
+      version(0);
+    } else {
+      this.signatureType = SignatureType.RSA_2048_SHA256;
+      signatureIssuer("Root-CA00000003-CP0000000b");
+      version(1);
+    }
+  }
+
+  /**
+   * Create a new builder containing all parts of an existing TMD, including the signature and the certificates.
+   *
+   * @param tmd The TMD.
+   * @return A new builder.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  public static TmdBuilder from(TMD tmd) throws IOException {
+    TmdFileReader reader   = tmd.getTmdFileReader();
+    final int headerOffset = tmd.getHeaderOffset();
+    final TmdLayout layout = tmd.getLayout();
+
+    TmdBuilder builder    = new TmdBuilder(layout);
+    builder.signatureType = tmd.getSignatureData().getSignatureType();
+    builder.signature     = tmd.getSignatureData().getSignature().toBytes();
+    reader.getBytes(headerOffset, builder.header, 0, builder.header.length);
+    reader.getBytes(headerOffset + layout.getContentInfoRecordsOffset(), builder.infoRecords, 0,
+        builder.infoRecords.length);
+
+    builder.chunkCount = builder.headerBuffer.getShort(0x9E) & 0xFFFF;
+    builder.chunks     = reader.getBytes(headerOffset + layout.getContentChunkRecordsOffset(),
+        builder.chunkCount * layout.getContentChunkRecordSize());
+
+    // Keep the content info records only if they aren't the default layout
+    if (builder.infoRecords.length != 0) {
+      ByteBuffer info = ByteBuffer.wrap(builder.infoRecords);
+      builder.explicitInfoRecords = info.getShort(0) != 0 || (info.getShort(0x2) & 0xFFFF) != builder.chunkCount
+          || info.getShort(0x24 + 0x2) != 0;
+    }
+
+    if (tmd.getCertificates() != null)
+      builder.certificates = reader.getBytes(reader.getFileLength() - 0x700, 0x700);
+    return builder;
+  }
+
+  /**
+   * Set the signature type. The signature is reset, unless the type doesn't change.
+   *
+   * @param signatureType The signature type.
+   * @return This builder.
+   */
+  public TmdBuilder signatureType(SignatureType signatureType) {
+    if (signatureType != this.signatureType)
+      this.signature = null;
+    this.signatureType = signatureType;
+    return this;
+  }
+
+  /**
+   * Set the signature. It is replaced, if the TMD is written with a {@link TmdSigner}.
+   *
+   * @param signature The signature, {@link SignatureType#getSignatureSize()} bytes.
+   * @return This builder.
+   */
+  public TmdBuilder signature(byte[] signature) {
+    if (signature.length != signatureType.getSignatureSize())
+      throw new IllegalArgumentException("A signature of type " + signatureType + " has "
+          + signatureType.getSignatureSize() + " bytes, not " + signature.length + ".");
+
+    this.signature = signature.clone();
+    return this;
+  }
+
+  /**
+   * Set the signature issuer, like "Root-CA00000003-CP0000000b".
+   *
+   * @param signatureIssuer The signature issuer, up to 64 ASCII characters.
+   * @return This builder.
+   */
+  public TmdBuilder signatureIssuer(String signatureIssuer) {
+    byte[] bytes = signatureIssuer.getBytes(StandardCharsets.US_ASCII);
+    if (bytes.length > 0x40)
+      throw new IllegalArgumentException("The signature issuer is longer than 64 characters.");
+
+    Arrays.fill(header, 0, 0x40, (byte) 0);
+    System.arraycopy(bytes, 0, header, 0, bytes.length);
+    return this;
+  }
+
+  /**
+   * Set the version of the TMD format.
+   *
+   * @param version The version, 1 for 3DS and Wii U TMDs, 0 for Wii TMDs.
+   * @return This builder.
+   */
+  public TmdBuilder version(int version) {
+    header[0x40] = (byte) version;
+    return this;
+  }
+
+  /**
+   * Set the required system version.
+   *
+   * @param systemVersion The system version.
+   * @return This builder.
+   */
+  public TmdBuilder systemVersion(long systemVersion) {
+    headerBuffer.putLong(0x44, systemVersion);
+    return this;
+  }
+
+  /**
+   * Set the title ID.
+   *
+   * @param titleId The title ID.
+   * @return This builder.
+   */
+  public TmdBuilder titleId(TitleId titleId) {
+    headerBuffer.putLong(0x4C, titleId.toLong());
+    return this;
+  }
+
+  /**
+   * Set the title type.
+   *
+   * @param titleType The title type.
+   * @return This builder.
+   */
+  public TmdBuilder titleType(int titleType) {
+    headerBuffer.putInt(0x54, titleType);
+    return this;
+  }
+
+  /**
+   * Set the group ID.
+   *
+   * @param groupId The group ID.
+   * @return This builder.
+   */
+  public TmdBuilder groupId(int groupId) {
+    headerBuffer.putShort(0x58, (short) groupId);
+    return this;
+  }
+
+  /**
+   * Set the save data size.
+   *
+   * @param saveDataSize The save data size in bytes.
+   * @return This builder.
+   */
+  public TmdBuilder saveDataSize(int saveDataSize) {
+    headerBuffer.putInt(0x5A, saveDataSize);
+    return this;
+  }
+
+  /**
+   * Set the access rights.
+   *
+   * @param accessRights The access rights.
+   * @return This builder.
+   */
+  public TmdBuilder accessRights(int accessRights) {
+    headerBuffer.putInt(0x98, accessRights);
+    return this;
+  }
+
+  /**
+   * Set the title version.
+   *
+   * @param titleVersion The title version (unsigned 16 bit).
+   * @return This builder.
+   */
+  public TmdBuilder titleVersion(int titleVersion) {
+    headerBuffer.putShort(0x9C, (short) titleVersion);
+    return this;
+  }
+
+  /**
+   * Set the boot content.
+   *
+   * @param bootContent The index of the boot content.
+   * @return This builder.
+   */
+  public TmdBuilder bootContent(int bootContent) {
+    headerBuffer.putShort(0xA0, (short) bootContent);
+    return this;
+  }
+
+  /**
+   * Set a content info record. Once a record is set, the default layout (a single record covering all content chunk
+   * records) isn't used anymore, see {@link #defaultContentInfoRecords()}.
+   *
+   * @param index              The index of the record (0 to 63).
+   * @param contentIndexOffset The index of the first content chunk record covered by this record.
+   * @param commandCount       The number of content chunk records covered by this record, 0 for an unused record.
+   * @return This builder.
+   * @throws IllegalArgumentException The index is out of range, Wii TMDs have no content info records at all.
+   */
+  public TmdBuilder contentInfoRecord(int index, int contentIndexOffset, int commandCount) {
+    if (index < 0 || index >= layout.getContentInfoRecordCount())
+      throw new IllegalArgumentException("A " + layout + " TMD has only " + layout.getContentInfoRecordCount()
+          + " content info records.");
+
+    ByteBuffer.wrap(infoRecords).putShort(index * 0x24, (short) contentIndexOffset)
+        .putShort(index * 0x24 + 0x2, (short) commandCount);
+    explicitInfoRecords = true;
+    return this;
+  }
+
+  /**
+   * Use the default layout of the content info records again: A single record covering all content chunk records.
+   *
+   * @return This builder.
+   */
+  public TmdBuilder defaultContentInfoRecords() {
+    Arrays.fill(infoRecords, (byte) 0);
+    explicitInfoRecords = false;
+    return this;
+  }
+
+  /**
+   * Append a content chunk record.
+   *
+   * @param contentId    The content ID.
+   * @param contentIndex The content index.
+   * @param contentType  The content type.
+   * @param contentSize  The size of the content in bytes.
+   * @param hash         The hash of the decrypted content, {@link TmdLayout#getContentHashSize()} bytes.
+   * @return This builder.
+   */
+  public TmdBuilder addContentChunk(int contentId, int contentIndex, int contentType, long contentSize, byte[] hash) {
+    if (chunkCount == 0xFFFF)
+      throw new IllegalStateException("A TMD can't have more than 65535 contents.");
+    checkHash(hash);
+
+    final int recordSize = layout.getContentChunkRecordSize();
+    if ((chunkCount + 1) * recordSize > chunks.length)
+      chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, recordSize));
+    chunkCount++;
+    return setContentChunk(chunkCount - 1, contentId, contentIndex, contentType, contentSize, hash);
+  }
+
+  /**
+   * Replace a content chunk record.
+   *
+   * @param position     The position of the record in the content chunk records.
+   * @param contentId    The content ID.
+   * @param contentIndex The content index.
+   * @param contentType  The content type.
+   * @param contentSize  The size of the content in bytes.
+   * @param hash         The hash of the decrypted content, {@link TmdLayout#getContentHashSize()} bytes: SHA-256
+   *                     for 3DS TMDs, SHA-1 for Wii and Wii U TMDs.
+   * @return This builder.
+   */
+  public TmdBuilder setContentChunk(int position, int contentId, int contentIndex, int contentType, long contentSize,
+                                    byte[] hash) {
+    if (position < 0 || position >= chunkCount)
+      throw new IndexOutOfBoundsException("Position: " + position + ", content chunks: " + chunkCount);
+    checkHash(hash);
+
+    final int offset = position * layout.getContentChunkRecordSize();
+    ByteBuffer.wrap(chunks).putInt(offset, contentId).putShort(offset + 0x4, (short) contentIndex)
+        .putShort(offset + 0x6, (short) contentType).putLong(offset + 0x8, contentSize);
+    final int hashSize = hash.length;
+    System.arraycopy(hash, 0, chunks, offset + 0x10, hashSize);
+    // Wii U records pad the SHA-1 hash to 32 bytes
+    Arrays.fill(chunks, offset + 0x10 + hashSize, offset + layout.getContentChunkRecordSize(), (byte) 0);
+    return this;
+  }
+
+  /**
+   * Remove all content chunk records.
+   *
+   * @return This builder.
+   */
+  public TmdBuilder clearContentChunks() {
+    chunkCount = 0;
+    return this;
+  }
+
+  /**
+   * Get the number of content chunk records.
+   *
+   * @return The number of content chunk records.
+   */
+  public int getContentChunkCount() {
+    return chunkCount;
+  }
+
+  /**
+   * Set the certificates appended to the TMD, like the CDN certificates of another TMD.
+   *
+   * @param certificates The raw certificates or {@code null} for no certificates.
+   * @return This builder.
+   */
+  public TmdBuilder certificates(byte[] certificates) {
+    this.certificates = certificates == null ? null : certificates.clone();
+    return this;
+  }
+
+  /**
+   * Get the layout of the TMD.
+   *
+   * @return The layout.
+   */
+  public TmdLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Get the signature type.
+   *
+   * @return The signature type.
+   */
+  public SignatureType getSignatureType() {
+    return signatureType;
+  }
+
+  /**
+   * Get the signature.
+   *
+   * @return The signature or {@code null}, if it wasn't set.
+   */
+  byte[] getSignature() {
+    return signature;
+  }
+
+  /**
+   * Get the length of the TMD written from this builder.
+   *
+   * @return The length in bytes.
+   */
+  public int getLength() {
+    return signatureType.getSignatureDataSize() + layout.getLength(chunkCount)
+        + (certificates != null ? certificates.length : 0);
+  }
+
+  private void checkHash(byte[] hash) {
+    if (hash.length != layout.getContentHashSize())
+      throw new IllegalArgumentException("A " + layout.getContentHashAlgorithm() + " hash (" + layout + " TMD) has "
+          + layout.getContentHashSize() + " bytes, not " + hash.length + ".");
+  }
+}
@@ -1,26 +1,29 @@
 package pro.schuhmann.tmdlib;
 
+import pro.schuhmann.tmdlib.metrics.TmdMetrics;
+import pro.schuhmann.tmdlib.metrics.TmdSection;
+
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 
 /**
  * Read different data from a TMD file, like integers, bytes or Strings.
+ * A TmdFileReader is just a view on the bytes of a single TMD file. Where these bytes come from (a file, a byte array,
+ * a {@link ByteBuffer}...) is up to the implementation, all offsets are always relative to the start of the TMD.
+ * All values are read in big endian byte order.
+ * <p>
+ * All readers are safe to use from several threads at once. Only readers created by {@link #openFile(File)} hold an
+ * open file and have to be closed, closing any other reader does nothing.
  */
-public class TmdFileReader {
-
-  private RandomAccessFile tmdFile;
-
-  /**
-   * Create a new TmdFileReader. These objects are only created by the {@link TMD} constructor.
-   *
-   * @param f A {@link File} pointing to a TMD file.
-   * @throws FileNotFoundException TMD file couldn't be found.
-   */
-  TmdFileReader(File f) throws FileNotFoundException {
-    this.tmdFile = new RandomAccessFile(f, "r");
-  }
+public abstract class TmdFileReader implements Closeable {
 
   /**
    * Read a byte from the TMD file.
@@ -29,10 +32,7 @@ public class TmdFileReader {
    * @return A byte.
    * @throws IOException An error occurred while reading the TMD file.
    */
-  public byte getByte(int index) throws IOException {
-    tmdFile.seek(index);
-    return tmdFile.readByte();
-  }
+  public abstract byte getByte(int index) throws IOException;
 
   /**
    * Read a short from the TMD file.
@@ -41,10 +41,7 @@ public class TmdFileReader {
    * @return A short.
    * @throws IOException An error occurred while reading the TMD file.
    */
-  public short getShort(int index) throws IOException {
-    tmdFile.seek(index);
-    return tmdFile.readShort();
-  }
+  public abstract short getShort(int index) throws IOException;
 
   /**
    * Read an int from the TMD file.
@@ -53,10 +50,7 @@ public class TmdFileReader {
    * @return An int.
    * @throws IOException An error occurred while reading the TMD file.
    */
-  public int getInt(int index) throws IOException {
-    tmdFile.seek(index);
-    return tmdFile.readInt();
-  }
+  public abstract int getInt(int index) throws IOException;
 
   /**
    * Read a long from the TMD file.
@@ -65,33 +59,66 @@ public class TmdFileReader {
    * @return A long.
    * @throws IOException An error occurred while reading the TMD file.
    */
-  public long getLong(int index) throws IOException {
-    tmdFile.seek(index);
-    return tmdFile.readLong();
+  public abstract long getLong(int index) throws IOException;
+
+  /**
+   * Copy bytes from the TMD file into a byte array.
+   *
+   * @param index       The start index in the file. (eg. offset 0x140)
+   * @param destination The byte array to copy the bytes to.
+   * @param offset      The start index in the destination array.
+   * @param length      The number of bytes to copy.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public abstract void getBytes(long index, byte[] destination, int offset, int length) throws IOException;
+
+  /**
+   * get the length of the TMD file.
+   *
+   * @return The TMD file length in bytes.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public abstract int getFileLength() throws IOException;
+
+  /**
+   * Read a byte array from the TMD file.
+   *
+   * @param index  The start index. (eg. offset 0x140)
+   * @param length The length. (eg. 40 bytes)
+   * @return A byte array.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public byte[] getBytes(long index, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    getBytes(index, bytes, 0, length);
+    return bytes;
+  }
+
+  /**
+   * Feed bytes of the TMD file into a {@link MessageDigest}, without creating a copy of them if possible.
+   *
+   * @param digest The message digest to update.
+   * @param index  The start index. (eg. offset 0x140)
+   * @param length The number of bytes to hash.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public void digest(MessageDigest digest, long index, int length) throws IOException {
+    digest.update(getBytes(index, length));
   }
 
   /**
-   * Read a hexadecimal String from the TMD file.
-   * Mostly stolen from: <a href="https://stackoverflow.com/a/9855338">Stackoverflow</a> (modified)
+   * Read a hexadecimal String from the TMD file. The bytes are copied once, the hexadecimal String itself is only
+   * created when it is requested.
    *
    * @param index  The start of the hexadecimal String in the file. (eg. offset 0x140)
    * @param length The length of the hexadecimal String in the file. (eg. 40 bytes)
-   * @return A {@link HexString} in format "0x0123456789ABCDEF".
+   * @return A {@link HexString} in format "0123456789ABCDEF".
    * @throws IOException An error occurred while reading the TMD file.
    */
   public HexString getHexString(long index, int length) throws IOException {
-    byte[] bytes = readByteArray(index, length);
-    if (bytes.length == 0)
+    if (length <= 0)
       throw new IllegalArgumentException();
-
-    final char[] hexArray = "0123456789ABCDEF".toCharArray();
-    char[] hexChars = new char[bytes.length * 2];
-    for ( int j = 0; j < bytes.length; j++ ) {
-      int v = bytes[j] & 0xFF;
-      hexChars[j * 2] = hexArray[v >>> 4];
-      hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-    }
-    return new HexString(new String(hexChars));
+    return new HexString(getBytes(index, length));
   }
 
   /**
@@ -103,43 +130,199 @@ public class TmdFileReader {
    * @throws IOException An error occurred while reading the TMD file.
    */
   public String getString(long index, int length) throws IOException {
-    byte[] bytes = readByteArray(index, length);
-    if (bytes.length == 0) {
+    if (length <= 0) {
       throw new IllegalArgumentException();
     }
+    byte[] bytes = getBytes(index, length);
 
-    StringBuilder newString = new StringBuilder();
-    for (byte b : bytes)
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++)
     {
-      newString.append((char) (b & 0xFF));
+      chars[i] = (char) (bytes[i] & 0xFF);
     }
 
-    return newString.toString().trim();
+    return new String(chars).trim();
   }
 
   /**
-   * Read a byte array from the TMD file.
+   * Release the resources of this reader, like an open file. Nothing can be read after the reader was closed.
+   * Readers of byte arrays, buffers and completely read files don't hold any resources, so this does nothing.
+   *
+   * @throws IOException An error occurred while closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    // Nothing to release
+  }
+
+  /**
+   * Make sure that the given area is completely located inside the TMD file.
    *
    * @param index  The start index. (eg. offset 0x140)
    * @param length The length. (eg. 40 bytes)
-   * @return A byte array.
-   * @throws IOException An error occurred while reading the TMD file.
+   * @throws IOException The area exceeds the TMD file or the length couldn't be determined.
    */
-  private byte[] readByteArray(long index, int length) throws IOException {
-    byte[] bytes = new byte[length];
-    tmdFile.seek(index);
-    tmdFile.read(bytes, 0, length);
-    return bytes;
+  protected void checkBounds(long index, int length) throws IOException {
+    final int fileLength = getFileLength();
+    if (index < 0 || length < 0 || index + length > fileLength)
+      throw new EOFException("Tried to read " + length + " bytes at offset " + index
+          + ", but the TMD file has only " + fileLength + " bytes.");
   }
 
   /**
-   * get the length of the TMD file.
+   * Create a new TmdFileReader for a TMD file on disk.
+   * The file is read completely with a single bulk read and closed right afterwards.
    *
-   * @return The TMD file length in bytes.
-   * @throws IOException An error occurred while reading the TMD file.
+   * @param f A {@link File} pointing to a TMD file.
+   * @return A new TmdFileReader.
+   * @throws IOException TMD file couldn't be found or read.
+   */
+  public static TmdFileReader forFile(File f) throws IOException {
+    return forFile(f, TmdMetrics.NONE);
+  }
+
+  /**
+   * Create a new TmdFileReader for a TMD file on disk, reporting the read to {@link TmdMetrics}.
+   * The file is read completely with a single bulk read and closed right afterwards.
+   *
+   * @param f       A {@link File} pointing to a TMD file.
+   * @param metrics The metrics receiving the number of bytes and reads.
+   * @return A new TmdFileReader.
+   * @throws IOException TMD file couldn't be found or read.
+   */
+  public static TmdFileReader forFile(File f, TmdMetrics metrics) throws IOException {
+    final long start = metrics != TmdMetrics.NONE ? System.nanoTime() : 0;
+    try (RandomAccessFile file = new RandomAccessFile(f, "r")) {
+      // TMD files are usually ~4700 bytes, the biggest one i've seen was 18.388 bytes!
+      long length = file.length();
+      if (length > Integer.MAX_VALUE)
+        throw new IOException("The file is too large to be a TMD file: " + length + " bytes.");
+
+      byte[] data = new byte[(int) length];
+      int position = 0;
+      int reads    = 0;
+      while (position < data.length) {
+        int read = file.read(data, position, data.length - position);
+        reads++;
+        if (read < 0)
+          throw new EOFException("The TMD file was truncated while reading it.");
+        position += read;
+      }
+      if (metrics != TmdMetrics.NONE)
+        metrics.onFileRead(data.length, reads, System.nanoTime() - start);
+      return new ByteArrayTmdFileReader(data, 0, data.length);
+    } catch (IOException e) {
+      metrics.onFailure(TmdSection.FILE, null, null, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Open a TMD file without reading it completely. Every value is read from the file when it's requested, so the file
+   * stays open until the reader is closed. Prefer {@link #forFile(File)}, unless only a few values of large files are
+   * needed (like a lazy {@link TMD}, see {@link TmdOptions#lazy(boolean)}).
+   *
+   * @param f A {@link File} pointing to a TMD file.
+   * @return A new TmdFileReader, which must be closed.
+   * @throws IOException TMD file couldn't be found or opened.
+   */
+  public static TmdFileReader openFile(File f) throws IOException {
+    return openFile(f, TmdMetrics.NONE);
+  }
+
+  /**
+   * Open a TMD file without reading it completely, like {@link #openFile(File)}, reporting every read to
+   * {@link TmdMetrics}.
+   *
+   * @param f       A {@link File} pointing to a TMD file.
+   * @param metrics The metrics receiving the number of bytes and reads.
+   * @return A new TmdFileReader, which must be closed.
+   * @throws IOException TMD file couldn't be found or opened.
+   */
+  public static TmdFileReader openFile(File f, TmdMetrics metrics) throws IOException {
+    FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+    try {
+      return new FileChannelTmdFileReader(channel, metrics);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Create a new TmdFileReader for a TMD stored in a byte array. The array is not copied!
+   *
+   * @param data The complete TMD.
+   * @return A new TmdFileReader.
+   */
+  public static TmdFileReader forByteArray(byte[] data) {
+    return new ByteArrayTmdFileReader(data, 0, data.length);
+  }
+
+  /**
+   * Create a new TmdFileReader for a TMD stored somewhere inside a byte array. The array is not copied!
+   *
+   * @param data   A byte array containing the TMD.
+   * @param offset The start of the TMD in the array.
+   * @param length The length of the TMD in bytes.
+   * @return A new TmdFileReader.
+   */
+  public static TmdFileReader forByteArray(byte[] data, int offset, int length) {
+    return new ByteArrayTmdFileReader(data, offset, length);
+  }
+
+  /**
+   * Create a new TmdFileReader for the remaining bytes of a {@link ByteBuffer}, which is everything between the
+   * position and the limit of the buffer. The buffer content is not copied and it's position is not changed.
+   *
+   * @param buffer A heap or direct buffer containing the TMD.
+   * @return A new TmdFileReader.
    */
-  public int getFileLength() throws IOException{
-    // TMD files are usually ~4700 bytes, the biggest one i've seen was 18.388 bytes!
-    return (int) tmdFile.length();
+  public static TmdFileReader forByteBuffer(ByteBuffer buffer) {
+    return forByteBuffer(buffer, buffer.position(), buffer.remaining());
+  }
+
+  /**
+   * Create a new TmdFileReader for a slice of a {@link ByteBuffer}. The buffer content is not copied and it's
+   * position is not changed.
+   *
+   * @param buffer A heap or direct buffer containing the TMD.
+   * @param offset The absolute start of the TMD in the buffer.
+   * @param length The length of the TMD in bytes.
+   * @return A new TmdFileReader.
+   */
+  public static TmdFileReader forByteBuffer(ByteBuffer buffer, int offset, int length) {
+    if (offset < 0 || length < 0 || length > buffer.limit() - offset)
+      throw new IndexOutOfBoundsException("The slice " + offset + "+" + length + " exceeds the buffer limit "
+          + buffer.limit() + ".");
+
+    if (buffer.hasArray())
+      return new ByteArrayTmdFileReader(buffer.array(), buffer.arrayOffset() + offset, length);
+
+    return new ByteBufferTmdFileReader(buffer, offset, length);
+  }
+
+  /**
+   * Create a new TmdFileReader for a TMD read from an {@link InputStream}. The stream is read until it ends, but it is
+   * not closed.
+   *
+   * @param in An input stream providing exactly one TMD.
+   * @return A new TmdFileReader.
+   * @throws IOException An error occurred while reading the stream.
+   */
+  public static TmdFileReader forInputStream(InputStream in) throws IOException {
+    // Most TMD files fit into this initial buffer, so it usually doesn't need to grow.
+    byte[] data = new byte[0x2000];
+    int length = 0;
+    int read;
+    while ((read = in.read(data, length, data.length - length)) != -1) {
+      length += read;
+      if (length == data.length) {
+        byte[] larger = new byte[data.length * 2];
+        System.arraycopy(data, 0, larger, 0, length);
+        data = larger;
+      }
+    }
+    return new ByteArrayTmdFileReader(data, 0, length);
   }
 }
@@ -0,0 +1,49 @@
+package pro.schuhmann.tmdlib;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a TMD isn't structurally valid: An unknown signature or public key type, a section exceeding the file or
+ * values contradicting each other. The {@link Problem} classifies the failure, see {@link TmdValidator}.
+ */
+public class TmdFormatException extends IOException {
+
+  /**
+   * The kinds of structural problems.
+   */
+  public enum Problem {
+    UNKNOWN_SIGNATURE_TYPE,          // Of the TMD or a certificate
+    UNKNOWN_PUBLIC_KEY_TYPE,         // Of a certificate
+    TRUNCATED_SIGNATURE_DATA,
+    TRUNCATED_HEADER,
+    TRUNCATED_CONTENT_INFO_RECORDS,
+    TRUNCATED_CONTENT_CHUNK_RECORDS, // The content count of the header exceeds the file
+    COUNT_MISMATCH,                  // A content info record covers more content chunk records than there are
+    TRUNCATED_CERTIFICATE,
+    MISSING_CERTIFICATE_CHAIN        // A certificate of the chain from the TMD issuer up to "Root" is missing
+  }
+
+  private static final long serialVersionUID = 1L;
+
+  private final Problem problem;
+
+  /**
+   * Create a new TmdFormatException.
+   *
+   * @param problem The kind of the problem.
+   * @param message A description of the problem.
+   */
+  public TmdFormatException(Problem problem, String message) {
+    super(message);
+    this.problem = problem;
+  }
+
+  /**
+   * Get the kind of the problem.
+   *
+   * @return The problem.
+   */
+  public Problem getProblem() {
+    return problem;
+  }
+}
@@ -0,0 +1,21 @@
+package pro.schuhmann.tmdlib;
+
+import java.io.IOException;
+
+/**
+ * Thrown if the integrity check of a TMD fails, which means that one of the hashes stored in the TMD doesn't match
+ * the data it covers. See {@link TmdOptions#verifyIntegrity(boolean)}.
+ */
+public class TmdIntegrityException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Create a new TmdIntegrityException.
+   *
+   * @param message A description of the hash mismatch.
+   */
+  public TmdIntegrityException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,139 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.metrics.TmdMetrics;
+
+/**
+ * Options for parsing a {@link TMD}. Instances are immutable, every "setter" returns a new TmdOptions object, so they
+ * can be shared freely:
+ * <pre>{@code
+ * TmdOptions options = TmdOptions.DEFAULT.lazy(true);
+ * TMD tmd = new TMD(tmdFile, options);
+ * }</pre>
+ */
+public final class TmdOptions {
+
+  /**
+   * The default options: Every section of the TMD is decoded right away.
+   */
+  public static final TmdOptions DEFAULT = new TmdOptions(false, false, false, null, TmdMetrics.NONE);
+
+  private final boolean lazy;
+  private final boolean verifyIntegrity;
+  private final boolean validateStructure;
+  private final CertificateStore certificateStore;
+  private final TmdMetrics metrics;
+
+  private TmdOptions(boolean lazy, boolean verifyIntegrity, boolean validateStructure,
+                     CertificateStore certificateStore, TmdMetrics metrics) {
+    this.lazy              = lazy;
+    this.verifyIntegrity   = verifyIntegrity;
+    this.validateStructure = validateStructure;
+    this.certificateStore  = certificateStore;
+    this.metrics           = metrics;
+  }
+
+  /**
+   * Enable or disable the lazy mode. In lazy mode, every section of the TMD (signature data, header, content info
+   * records, content chunk records and certificates) is decoded the first time it is requested. This is a lot cheaper,
+   * if only a few values of the TMD are needed, like the title ID and version from the header. Lazy TMDs keep the
+   * reader they were created from, eager TMDs only keep a compact copy of the TMD (see {@link TMD#getTmdFileReader()}).
+   *
+   * @param lazy {@code true} to enable the lazy mode.
+   * @return New options with the lazy mode enabled or disabled.
+   */
+  public TmdOptions lazy(boolean lazy) {
+    return new TmdOptions(lazy, verifyIntegrity, validateStructure, certificateStore, metrics);
+  }
+
+  /**
+   * Check whether the lazy mode is enabled.
+   *
+   * @return {@code true} if the lazy mode is enabled.
+   */
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  /**
+   * Enable or disable the integrity check. If enabled, the hash of the content info records (stored in the header) and
+   * the hashes of the content chunk records (stored in the content info records) are checked by the TMD constructor,
+   * directly on the raw bytes. A mismatch causes a {@link TmdIntegrityException}. This works in lazy mode as well.
+   *
+   * @param verifyIntegrity {@code true} to enable the integrity check.
+   * @return New options with the integrity check enabled or disabled.
+   */
+  public TmdOptions verifyIntegrity(boolean verifyIntegrity) {
+    return new TmdOptions(lazy, verifyIntegrity, validateStructure, certificateStore, metrics);
+  }
+
+  /**
+   * Check whether the integrity check is enabled.
+   *
+   * @return {@code true} if the integrity check is enabled.
+   */
+  public boolean isVerifyingIntegrity() {
+    return verifyIntegrity;
+  }
+
+  /**
+   * Enable or disable the structure validation. If enabled, the TMD constructor checks the structure of the TMD with a
+   * {@link TmdValidator} before decoding anything, so a broken TMD causes a {@link TmdFormatException} telling what's
+   * wrong with it (instead of failing somewhere while decoding). Certificates aren't required.
+   *
+   * @param validateStructure {@code true} to enable the structure validation.
+   * @return New options with the structure validation enabled or disabled.
+   */
+  public TmdOptions validateStructure(boolean validateStructure) {
+    return new TmdOptions(lazy, verifyIntegrity, validateStructure, certificateStore, metrics);
+  }
+
+  /**
+   * Check whether the structure validation is enabled.
+   *
+   * @return {@code true} if the structure validation is enabled.
+   */
+  public boolean isValidatingStructure() {
+    return validateStructure;
+  }
+
+  /**
+   * Set the {@link CertificateStore}, which is used to share identical certificates between TMDs. By default, every
+   * TMD decodes it's own certificates.
+   *
+   * @param certificateStore The certificate store or {@code null} to disable sharing.
+   * @return New options with the certificate store.
+   */
+  public TmdOptions certificateStore(CertificateStore certificateStore) {
+    return new TmdOptions(lazy, verifyIntegrity, validateStructure, certificateStore, metrics);
+  }
+
+  /**
+   * Get the {@link CertificateStore} used to share identical certificates between TMDs.
+   *
+   * @return The certificate store or {@code null}, if sharing is disabled.
+   */
+  public CertificateStore getCertificateStore() {
+    return certificateStore;
+  }
+
+  /**
+   * Set the {@link TmdMetrics}, which receive the time spent reading the file and decoding every section, the bytes
+   * read and the failures. By default ({@link TmdMetrics#NONE}) nothing is measured.
+   *
+   * @param metrics The metrics or {@code null} to disable them.
+   * @return New options with the metrics.
+   */
+  public TmdOptions metrics(TmdMetrics metrics) {
+    return new TmdOptions(lazy, verifyIntegrity, validateStructure, certificateStore,
+        metrics == null ? TmdMetrics.NONE : metrics);
+  }
+
+  /**
+   * Get the {@link TmdMetrics} receiving the measurements.
+   *
+   * @return The metrics, {@link TmdMetrics#NONE} if disabled.
+   */
+  public TmdMetrics getMetrics() {
+    return metrics;
+  }
+}
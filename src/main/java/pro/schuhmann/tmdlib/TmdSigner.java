@@ -0,0 +1,25 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Signs the TMDs written by a {@link TmdWriter}. {@link RsaTmdSigner} signs with a RSA private key, other
+ * implementations may use a hardware key or a signing service.
+ */
+public interface TmdSigner {
+
+  /**
+   * Sign a TMD: The header of 3DS and Wii U TMDs, the header followed by the content chunk records of Wii TMDs (see
+   * {@link pro.schuhmann.tmdlib.enums.TmdLayout#getSignedLength(int)}).
+   *
+   * @param signatureType The signature type of the TMD.
+   * @param data          A byte array containing the signed bytes.
+   * @param offset        The start of the signed bytes in the array.
+   * @param length        The number of signed bytes.
+   * @return The signature, exactly {@link SignatureType#getSignatureSize()} bytes.
+   * @throws GeneralSecurityException The TMD couldn't be signed.
+   */
+  byte[] sign(SignatureType signatureType, byte[] data, int offset, int length) throws GeneralSecurityException;
+}
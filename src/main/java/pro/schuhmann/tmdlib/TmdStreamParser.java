@@ -0,0 +1,183 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * A streaming parser passing the parts of TMDs to a {@link TmdVisitor}, without creating a {@link TMD} or any other
+ * object per TMD or per record. Useful, if only a few values of a lot of TMDs are needed:
+ * <pre>{@code
+ * TmdStreamParser parser = new TmdStreamParser();
+ * for (File file : files) {
+ *   parser.parse(file, visitor);
+ * }
+ * }</pre>
+ * Files and streams are read into a buffer, which is reused for the next TMD and only grows if a TMD doesn't fit.
+ * Because of that, a parser must not be used by several threads at once. Use one parser per thread instead.
+ */
+public class TmdStreamParser {
+
+  private byte[] buffer = new byte[0x2000];
+
+  /**
+   * Parse a TMD file.
+   *
+   * @param tmdFile A {@link File} pointing to the TMD file.
+   * @param visitor The visitor receiving the parts of the TMD.
+   * @throws IOException An error occurred while reading the file or the TMD is truncated.
+   */
+  public void parse(File tmdFile, TmdVisitor visitor) throws IOException {
+    int length;
+    try (RandomAccessFile file = new RandomAccessFile(tmdFile, "r")) {
+      long fileLength = file.length();
+      if (fileLength > Integer.MAX_VALUE)
+        throw new IOException("The file is too large to be a TMD file: " + fileLength + " bytes.");
+
+      length = (int) fileLength;
+      ensureCapacity(length, 0);
+      file.readFully(buffer, 0, length);
+    }
+    parse(buffer, 0, length, visitor);
+  }
+
+  /**
+   * Parse a TMD from a stream. The stream is read until it ends, but not closed.
+   *
+   * @param in      The stream containing the TMD.
+   * @param visitor The visitor receiving the parts of the TMD.
+   * @throws IOException An error occurred while reading the stream or the TMD is truncated.
+   */
+  public void parse(InputStream in, TmdVisitor visitor) throws IOException {
+    int length = 0;
+    int read;
+    while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+      if (length == buffer.length)
+        ensureCapacity(buffer.length * 2, length);
+    }
+    parse(buffer, 0, length, visitor);
+  }
+
+  /**
+   * Parse a TMD stored in a byte array. The array is neither copied nor modified, the visitor receives it directly.
+   *
+   * @param data    A byte array containing the TMD.
+   * @param offset  The start of the TMD in the array.
+   * @param length  The length of the TMD in bytes.
+   * @param visitor The visitor receiving the parts of the TMD.
+   * @throws IOException The TMD is truncated.
+   */
+  public void parse(byte[] data, int offset, int length, TmdVisitor visitor) throws IOException {
+    if (offset < 0 || length < 0 || length > data.length - offset)
+      throw new IndexOutOfBoundsException("The slice " + offset + "+" + length + " exceeds the array length "
+          + data.length + ".");
+
+    // Signature data
+    checkBounds(0, 4, length);
+    SignatureType signatureType = SignatureType.getByValue(getInt(data, offset));
+    if (signatureType == null)
+      throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_SIGNATURE_TYPE,
+          "The signature type couldn't be identified! Make sure the given file is valid.");
+    checkBounds(0, 4 + signatureType.getSignatureSize(), length);
+    visitor.onSignature(signatureType, data, offset + 4);
+
+    // Header, the first 0xA4 bytes are enough to choose the layout
+    final int header = signatureType.getSignatureDataSize();
+    checkBounds(header, TmdLayout.WII.getHeaderSize(), length);
+    final int h = offset + header;
+    final long titleId     = getLong(data, h + 0x4C);
+    final TmdLayout layout = TmdLayout.detect(data[h + 0x40], titleId);
+    checkBounds(header, layout.getHeaderSize(), length);
+    final int contentCount = getShort(data, h + 0x9E) & 0xFFFF;
+    if (!visitor.onHeader(titleId, getShort(data, h + 0x9C), getInt(data, h + 0x54), getLong(data, h + 0x44),
+        contentCount, getShort(data, h + 0xA0), data, h))
+      return;
+
+    // Content info records, up to the first unused one
+    final int infoRecordCount = layout.getContentInfoRecordCount();
+    checkBounds(header + layout.getContentInfoRecordsOffset(), infoRecordCount * 0x24, length);
+    for (int i = 0; i < infoRecordCount; i++) {
+      final int record = h + layout.getContentInfoRecordsOffset() + i * 0x24;
+      short commandCount = getShort(data, record + 0x2);
+      if (commandCount == 0)
+        break;
+      visitor.onContentInfo(i, getShort(data, record), commandCount, data, record + 0x4);
+    }
+
+    // Content chunk records
+    final int chunks     = header + layout.getContentChunkRecordsOffset();
+    final int recordSize = layout.getContentChunkRecordSize();
+    checkBounds(chunks, contentCount * recordSize, length);
+    for (int i = 0; i < contentCount; i++) {
+      final int record = offset + chunks + i * recordSize;
+      visitor.onContentChunk(getInt(data, record), getShort(data, record + 0x4), getShort(data, record + 0x6),
+          getLong(data, record + 0x8), data, record + 0x10);
+    }
+
+    // Certificates, see TMD#readCertificates()
+    final int certificates = length - 0x700;
+    if (certificates >= chunks + contentCount * recordSize
+        && getInt(data, offset + certificates) == layout.getSignerCertificateType().getValue()
+        && getInt(data, offset + certificates + 0x300) == layout.getCaCertificateType().getValue()) {
+      int certificate = certificates;
+      for (int i = 0; i < 2; i++) {
+        SignatureType certificateSignatureType = SignatureType.getByValue(getInt(data, offset + certificate));
+        if (certificateSignatureType == null)
+          throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_SIGNATURE_TYPE,
+              "The signature type couldn't be identified! Make sure the given file is valid.");
+        int keyTypeOffset = certificate + certificateSignatureType.getSignatureDataSize() + 0x40;
+        checkBounds(keyTypeOffset, 4, length);
+        PublicKeyType publicKeyType = PublicKeyType.getByValue(getInt(data, offset + keyTypeOffset));
+        if (publicKeyType == null)
+          throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_PUBLIC_KEY_TYPE,
+              "The public key type couldn't be identified! Make sure the given file is valid.");
+
+        int size = keyTypeOffset + 0x48 + publicKeyType.getKeySize() + publicKeyType.getPaddingSize() - certificate;
+        checkBounds(certificate, size, length);
+        visitor.onCertificate(i, certificateSignatureType, publicKeyType, data, offset + certificate, size);
+        certificate += size;
+      }
+    }
+
+    visitor.onEnd();
+  }
+
+  /**
+   * Make sure the buffer can hold at least the given number of bytes.
+   *
+   * @param capacity The required capacity.
+   * @param keep     The number of bytes at the start of the buffer, which have to be kept.
+   */
+  private void ensureCapacity(int capacity, int keep) {
+    if (buffer.length < capacity) {
+      byte[] larger = new byte[capacity];
+      System.arraycopy(buffer, 0, larger, 0, keep);
+      buffer = larger;
+    }
+  }
+
+  private static void checkBounds(int index, int length, int tmdLength) throws EOFException {
+    if (length < 0 || length > tmdLength - index)
+      throw new EOFException("Tried to read " + length + " bytes at offset " + index
+          + ", but the TMD file has only " + tmdLength + " bytes.");
+  }
+
+  private static short getShort(byte[] data, int i) {
+    return (short) ((data[i] << 8) | (data[i + 1] & 0xFF));
+  }
+
+  private static int getInt(byte[] data, int i) {
+    return (data[i] << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+  }
+
+  private static long getLong(byte[] data, int i) {
+    return ((long) getInt(data, i) << 32) | (getInt(data, i + 4) & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,191 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.TmdFormatException.Problem;
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.IOException;
+
+/**
+ * Checks the structure of a TMD without decoding it: Every section has to be inside the file, the signature and public
+ * key types have to be known and the content info records must not cover more content chunk records than the header
+ * announces. The sections are expected at the offsets of the {@link TmdLayout} of the TMD, zero padding at the end is
+ * accepted. Only a few integers are read, so this is a cheap pre-pass to sort out broken files before decoding them:
+ * <pre>{@code
+ * TmdValidator validator = new TmdValidator(true);
+ * Problem problem = validator.getProblem(TmdFileReader.forFile(file));
+ * if (problem != null)
+ *   System.out.println(file + ": " + problem);
+ * }</pre>
+ * A TMD can also be validated by it's constructor, see {@link TmdOptions#validateStructure(boolean)}.
+ */
+public class TmdValidator {
+
+  private final boolean requireCertificates;
+
+  /**
+   * Create a new validator, which accepts TMDs without certificates.
+   */
+  public TmdValidator() {
+    this(false);
+  }
+
+  /**
+   * Create a new validator.
+   *
+   * @param requireCertificates {@code true} to require the certificates from the TMD issuer up to "Root" (like in
+   *                            TMDs from the CDN), see {@link Problem#MISSING_CERTIFICATE_CHAIN}.
+   */
+  public TmdValidator(boolean requireCertificates) {
+    this.requireCertificates = requireCertificates;
+  }
+
+  /**
+   * Check the structure of a TMD.
+   *
+   * @param tmdFile The TMD.
+   * @throws TmdFormatException The TMD isn't structurally valid.
+   * @throws IOException        An error occurred while reading the TMD.
+   */
+  public void validate(TmdFileReader tmdFile) throws IOException {
+    check(tmdFile, true);
+  }
+
+  /**
+   * Check the structure of a TMD, without throwing an exception for invalid TMDs (which is expensive, if most of the
+   * TMDs are broken).
+   *
+   * @param tmdFile The TMD.
+   * @return The first problem found or {@code null}, if the TMD is structurally valid.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  public Problem getProblem(TmdFileReader tmdFile) throws IOException {
+    return check(tmdFile, false);
+  }
+
+  private Problem check(TmdFileReader tmdFile, boolean throwing) throws IOException {
+    final int length = tmdFile.getFileLength();
+
+    // Signature data
+    if (length < 4)
+      return fail(throwing, Problem.TRUNCATED_SIGNATURE_DATA, "The TMD has only " + length + " bytes.");
+    SignatureType signatureType = SignatureType.getByValue(tmdFile.getInt(0));
+    if (signatureType == null)
+      return fail(throwing, Problem.UNKNOWN_SIGNATURE_TYPE, "Unknown signature type 0x"
+          + Integer.toHexString(tmdFile.getInt(0)) + ".");
+    final int header = signatureType.getSignatureDataSize();
+    if (length < header)
+      return fail(throwing, Problem.TRUNCATED_SIGNATURE_DATA, "The signature data needs " + header
+          + " bytes, but the TMD has only " + length + ".");
+
+    // Header, content info records and content chunk records. The first 0xA4 bytes of the header are the same for all
+    // layouts, they're enough to choose the layout.
+    if (length < header + TmdLayout.WII.getHeaderSize())
+      return fail(throwing, Problem.TRUNCATED_HEADER, "The header ends at " + (header + TmdLayout.WII.getHeaderSize())
+          + " at least, but the TMD has only " + length + " bytes.");
+    final TmdLayout layout = TmdLayout.detect(tmdFile, header);
+    final int infoRecords  = header + layout.getContentInfoRecordsOffset();
+    final int chunkRecords = header + layout.getContentChunkRecordsOffset();
+    if (length < header + layout.getHeaderSize())
+      return fail(throwing, Problem.TRUNCATED_HEADER, "The header ends at " + (header + layout.getHeaderSize())
+          + ", but the TMD has only " + length + " bytes.");
+    if (length < chunkRecords)
+      return fail(throwing, Problem.TRUNCATED_CONTENT_INFO_RECORDS, "The content info records end at "
+          + chunkRecords + ", but the TMD has only " + length + " bytes.");
+    final int contentCount = tmdFile.getShort(header + 0x9E) & 0xFFFF;
+    final int chunksEnd    = header + layout.getLength(contentCount);
+    if (length < chunksEnd)
+      return fail(throwing, Problem.TRUNCATED_CONTENT_CHUNK_RECORDS, "The " + contentCount
+          + " content chunk records end at " + chunksEnd + ", but the TMD has only " + length + " bytes.");
+
+    for (int i = 0; i < layout.getContentInfoRecordCount(); i++) {
+      int record       = infoRecords + i * 0x24;
+      int indexOffset  = tmdFile.getShort(record) & 0xFFFF;
+      int commandCount = tmdFile.getShort(record + 0x2) & 0xFFFF;
+      // Same as TMD#readContentInfoRecords(): The first empty record ends the list
+      if (commandCount == 0)
+        break;
+      if (indexOffset + commandCount > contentCount)
+        return fail(throwing, Problem.COUNT_MISMATCH, "Content info record " + i + " covers the content chunk records "
+            + indexOffset + " to " + (indexOffset + commandCount - 1) + ", but there are only " + contentCount + ".");
+    }
+
+    // Certificates: Everything after the content chunk records, up to the zero padding (like in TMDs taken from CIAs)
+    if (isPadding(tmdFile, chunksEnd, length)) {
+      if (requireCertificates)
+        return fail(throwing, Problem.MISSING_CERTIFICATE_CHAIN, "The TMD has no certificates.");
+      return null;
+    }
+    int certificateCount = 0;
+    for (int certificate = chunksEnd; certificate < length; certificateCount++) {
+      if (isPadding(tmdFile, certificate, length))
+        break;
+      if (length - certificate < 4)
+        return fail(throwing, Problem.TRUNCATED_CERTIFICATE, "Certificate " + certificateCount + " is truncated.");
+      SignatureType certificateSignatureType = SignatureType.getByValue(tmdFile.getInt(certificate));
+      if (certificateSignatureType == null)
+        return fail(throwing, Problem.UNKNOWN_SIGNATURE_TYPE, "Unknown signature type of certificate "
+            + certificateCount + ".");
+      int keyType = certificate + certificateSignatureType.getSignatureDataSize() + 0x40;
+      if (length < keyType + 4)
+        return fail(throwing, Problem.TRUNCATED_CERTIFICATE, "Certificate " + certificateCount + " is truncated.");
+      PublicKeyType publicKeyType = PublicKeyType.getByValue(tmdFile.getInt(keyType));
+      if (publicKeyType == null)
+        return fail(throwing, Problem.UNKNOWN_PUBLIC_KEY_TYPE, "Unknown public key type of certificate "
+            + certificateCount + ".");
+      int end = keyType + 0x48 + publicKeyType.getKeySize() + publicKeyType.getPaddingSize();
+      if (length < end)
+        return fail(throwing, Problem.TRUNCATED_CERTIFICATE, "Certificate " + certificateCount + " ends at " + end
+            + ", but the TMD has only " + length + " bytes.");
+      certificate = end;
+    }
+
+    if (requireCertificates)
+      return checkChain(tmdFile, tmdFile.getString(header, 0x40), chunksEnd, certificateCount, throwing);
+    return null;
+  }
+
+  /**
+   * Follow the issuers from the TMD up to "Root", every certificate of the chain has to be present.
+   */
+  private static Problem checkChain(TmdFileReader tmdFile, String issuer, int firstCertificate, int certificateCount,
+                                    boolean throwing) throws IOException {
+    // Every certificate can only be used once, so a loop in the chain ends here as well
+    for (int depth = 0; depth <= certificateCount && !issuer.equals("Root"); depth++) {
+      String next = null;
+      int certificate = firstCertificate;
+      for (int i = 0; i < certificateCount && next == null; i++) {
+        int keyType = certificate + SignatureType.getByValue(tmdFile.getInt(certificate)).getSignatureDataSize() + 0x40;
+        String certificateIssuer = tmdFile.getString(keyType - 0x40, 0x40);
+        if (issuer.equals(certificateIssuer + "-" + tmdFile.getString(keyType + 0x4, 0x40)))
+          next = certificateIssuer;
+        PublicKeyType publicKeyType = PublicKeyType.getByValue(tmdFile.getInt(keyType));
+        certificate = keyType + 0x48 + publicKeyType.getKeySize() + publicKeyType.getPaddingSize();
+      }
+      if (next == null)
+        return fail(throwing, Problem.MISSING_CERTIFICATE_CHAIN, "The certificate of \"" + issuer + "\" is missing.");
+      issuer = next;
+    }
+    if (!issuer.equals("Root"))
+      return fail(throwing, Problem.MISSING_CERTIFICATE_CHAIN, "The certificate chain doesn't end at \"Root\".");
+    return null;
+  }
+
+  /**
+   * Check whether the rest of the TMD only consists of zeros (or nothing at all).
+   */
+  private static boolean isPadding(TmdFileReader tmdFile, int offset, int length) throws IOException {
+    for (int i = offset; i < length; i++) {
+      if (tmdFile.getByte(i) != 0)
+        return false;
+    }
+    return true;
+  }
+
+  private static Problem fail(boolean throwing, Problem problem, String message) throws TmdFormatException {
+    if (throwing)
+      throw new TmdFormatException(problem, message);
+    return problem;
+  }
+}
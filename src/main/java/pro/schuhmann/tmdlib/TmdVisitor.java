@@ -0,0 +1,85 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+/**
+ * A visitor receiving the parts of a TMD from a {@link TmdStreamParser}, one callback per part, in the order of the
+ * file. Values are passed as primitives, hashes and other raw data as a position in the parser's buffer. The buffer
+ * is reused for the next TMD, so it must not be kept after the callback returns. {@link AbstractTmdVisitor} implements
+ * every callback with an empty method.
+ */
+public interface TmdVisitor {
+
+  /**
+   * Called for the signature data of the TMD.
+   *
+   * @param signatureType   The signature type.
+   * @param buffer          The buffer containing the TMD.
+   * @param signatureOffset The offset of the signature in the buffer, it is
+   *                        {@link SignatureType#getSignatureSize()} bytes long.
+   */
+  void onSignature(SignatureType signatureType, byte[] buffer, int signatureOffset);
+
+  /**
+   * Called for the header of the TMD. Values which aren't passed directly can be read from the buffer, using the
+   * offsets of {@link pro.schuhmann.tmdlib.parts.Header}. The layout of the following records is
+   * {@code TmdLayout.detect(buffer[headerOffset + 0x40], titleId)}, see {@link pro.schuhmann.tmdlib.enums.TmdLayout}.
+   *
+   * @param titleId       The title ID.
+   * @param titleVersion  The title version.
+   * @param titleType     The title type.
+   * @param systemVersion The required system version.
+   * @param contentCount  The number of contents (unsigned).
+   * @param bootContent   The index of the boot content.
+   * @param buffer        The buffer containing the TMD.
+   * @param headerOffset  The offset of the header in the buffer, it is 0xC4 bytes long (0xA4 for Wii TMDs).
+   * @return {@code true} to continue with the records, {@code false} to stop parsing this TMD.
+   */
+  boolean onHeader(long titleId, short titleVersion, int titleType, long systemVersion, int contentCount,
+                   short bootContent, byte[] buffer, int headerOffset);
+
+  /**
+   * Called for every used content info record. Wii TMDs have no content info records.
+   *
+   * @param index              The index of the record (0 to 63).
+   * @param contentIndexOffset The index of the first content chunk record covered by this record.
+   * @param commandCount       The number of content chunk records covered by this record.
+   * @param hashBuffer         The buffer containing the TMD.
+   * @param hashOffset         The offset of the SHA-256 hash of the covered content chunk records in the buffer.
+   */
+  void onContentInfo(int index, short contentIndexOffset, short commandCount, byte[] hashBuffer, int hashOffset);
+
+  /**
+   * Called for every content chunk record.
+   *
+   * @param contentId    The content ID.
+   * @param contentIndex The content index.
+   * @param contentType  The content type.
+   * @param contentSize  The size of the content in bytes.
+   * @param hashBuffer   The buffer containing the TMD.
+   * @param hashOffset   The offset of the SHA-256 hash of the content in the buffer. Wii and Wii U TMDs contain a
+   *                     SHA-1 hash (0x14 bytes) instead.
+   */
+  void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize, byte[] hashBuffer,
+                      int hashOffset);
+
+  /**
+   * Called for every certificate appended to the TMD.
+   *
+   * @param index             The index of the certificate.
+   * @param signatureType     The signature type of the certificate.
+   * @param publicKeyType     The type of the public key in the certificate.
+   * @param buffer            The buffer containing the TMD.
+   * @param certificateOffset The offset of the certificate in the buffer, using the layout of
+   *                          {@link pro.schuhmann.tmdlib.parts.Certificate}.
+   * @param certificateSize   The size of the certificate in bytes.
+   */
+  void onCertificate(int index, SignatureType signatureType, PublicKeyType publicKeyType, byte[] buffer,
+                     int certificateOffset, int certificateSize);
+
+  /**
+   * Called after the last part of the TMD, unless parsing was stopped by {@link #onHeader}.
+   */
+  void onEnd();
+}
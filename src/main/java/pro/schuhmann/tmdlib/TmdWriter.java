@@ -0,0 +1,215 @@
+package pro.schuhmann.tmdlib;
+
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Write TMDs in the binary layout read by {@link TMD}: signature data, header, content info records (64, none for Wii
+ * TMDs), the content chunk records and (optionally) the certificates. The layout is taken from the builder, see
+ * {@link TmdBuilder#getLayout()}.
+ * <pre>{@code
+ * TmdWriter writer = new TmdWriter(new RsaTmdSigner(privateKey));
+ * writer.write(TmdBuilder.from(tmd).titleVersion(1040), channel);
+ * }</pre>
+ * Before writing, the content count in the header, the hashes of the content info records and the hash in the header
+ * are recalculated, so they always match the content chunk records (Wii TMDs have no hash chain). Without a
+ * {@link TmdSigner}, the signature of the builder is written unchanged (or zeros, if it has none), which makes the
+ * signature invalid if anything was changed.
+ *
+ * The parts of the TMD are written directly from the arrays of the builder, without copying them into a single
+ * buffer first. A writer can be used by several threads at once, a builder can't.
+ */
+public class TmdWriter {
+
+  private final TmdSigner signer;
+
+  /**
+   * Create a new writer keeping the signatures of the builders.
+   */
+  public TmdWriter() {
+    this(null);
+  }
+
+  /**
+   * Create a new writer signing every TMD.
+   *
+   * @param signer The signer or {@code null} to keep the signatures of the builders.
+   */
+  public TmdWriter(TmdSigner signer) {
+    this.signer = signer;
+  }
+
+  /**
+   * Write a TMD into a buffer, starting at it's position. The position is moved to the end of the TMD.
+   *
+   * @param builder The builder containing the TMD.
+   * @param buffer  The buffer, at least {@link TmdBuilder#getLength()} bytes have to be remaining.
+   * @return The number of bytes written.
+   * @throws IOException The TMD couldn't be signed.
+   */
+  public int write(TmdBuilder builder, ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < builder.getLength())
+      throw new IllegalArgumentException("The TMD needs " + builder.getLength() + " bytes, but the buffer has only "
+          + buffer.remaining() + " bytes remaining.");
+
+    int length = 0;
+    for (ByteBuffer part : prepare(builder)) {
+      length += part.remaining();
+      buffer.put(part);
+    }
+    return length;
+  }
+
+  /**
+   * Write a TMD into a channel, like a {@link java.nio.channels.FileChannel}. The channel isn't closed.
+   *
+   * @param builder The builder containing the TMD.
+   * @param channel The channel.
+   * @return The number of bytes written.
+   * @throws IOException An error occurred while writing or the TMD couldn't be signed.
+   */
+  public int write(TmdBuilder builder, WritableByteChannel channel) throws IOException {
+    ByteBuffer[] parts = prepare(builder);
+    int length = builder.getLength();
+    if (channel instanceof GatheringByteChannel) {
+      // A single system call for all parts, if the channel supports it
+      long written = 0;
+      while (written < length)
+        written += ((GatheringByteChannel) channel).write(parts);
+    } else {
+      for (ByteBuffer part : parts) {
+        while (part.hasRemaining())
+          channel.write(part);
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Write a TMD into a new byte array.
+   *
+   * @param builder The builder containing the TMD.
+   * @return The bytes of the TMD.
+   * @throws IOException The TMD couldn't be signed.
+   */
+  public byte[] toByteArray(TmdBuilder builder) throws IOException {
+    byte[] tmd = new byte[builder.getLength()];
+    write(builder, ByteBuffer.wrap(tmd));
+    return tmd;
+  }
+
+  /**
+   * Update the content count, the hashes and the signature of the builder.
+   *
+   * @param builder The builder.
+   * @return The parts of the TMD, in the order they have to be written.
+   * @throws IOException The TMD couldn't be signed.
+   */
+  private ByteBuffer[] prepare(TmdBuilder builder) throws IOException {
+    final TmdLayout layout   = builder.layout;
+    final byte[] header      = builder.header;
+    final byte[] infoRecords = builder.infoRecords;
+    final int chunkCount     = builder.chunkCount;
+    final int recordSize     = layout.getContentChunkRecordSize();
+    ByteBuffer headerBuffer  = ByteBuffer.wrap(header);
+    ByteBuffer infoBuffer    = ByteBuffer.wrap(infoRecords);
+    headerBuffer.putShort(0x9E, (short) chunkCount);
+
+    if (layout.getContentInfoRecordCount() != 0)
+      updateHashes(builder, infoBuffer);
+
+    // Signature data: type, signature and padding
+    SignatureType signatureType = builder.getSignatureType();
+    byte[] signatureData = new byte[signatureType.getSignatureDataSize()];
+    ByteBuffer.wrap(signatureData).putInt(0, signatureType.getValue());
+    byte[] signature = builder.getSignature();
+    if (signer != null) {
+      try {
+        signature = sign(builder, signatureType);
+      } catch (GeneralSecurityException e) {
+        throw new IOException("The TMD couldn't be signed.", e);
+      }
+      if (signature.length != signatureType.getSignatureSize())
+        throw new IllegalStateException("The signer created a signature of " + signature.length + " bytes, but "
+            + signatureType + " needs " + signatureType.getSignatureSize() + " bytes.");
+    }
+    if (signature != null)
+      System.arraycopy(signature, 0, signatureData, 0x4, signature.length);
+
+    ByteBuffer chunks = ByteBuffer.wrap(builder.chunks, 0, chunkCount * recordSize);
+    if (builder.certificates == null)
+      return new ByteBuffer[] {ByteBuffer.wrap(signatureData), headerBuffer, infoBuffer, chunks};
+    return new ByteBuffer[] {ByteBuffer.wrap(signatureData), headerBuffer, infoBuffer, chunks,
+        ByteBuffer.wrap(builder.certificates)};
+  }
+
+  /**
+   * Recalculate the hash chain: content chunk records -> content info records -> header.
+   *
+   * @param builder    The builder.
+   * @param infoBuffer The content info records of the builder.
+   */
+  private static void updateHashes(TmdBuilder builder, ByteBuffer infoBuffer) {
+    final byte[] infoRecords = builder.infoRecords;
+    final int chunkCount     = builder.chunkCount;
+    final int recordSize     = builder.layout.getContentChunkRecordSize();
+    if (!builder.explicitInfoRecords) {
+      Arrays.fill(infoRecords, (byte) 0);
+      infoBuffer.putShort(0x2, (short) chunkCount);
+    }
+
+    MessageDigest digest = sha256();
+    for (int i = 0; i < builder.layout.getContentInfoRecordCount(); i++) {
+      final int record       = i * 0x24;
+      final int indexOffset  = infoBuffer.getShort(record) & 0xFFFF;
+      final int commandCount = infoBuffer.getShort(record + 0x2) & 0xFFFF;
+      if (commandCount == 0)
+        continue;
+      if (indexOffset + commandCount > chunkCount)
+        throw new IllegalStateException("The content info record " + i + " covers the content chunk records "
+            + indexOffset + " to " + (indexOffset + commandCount - 1) + ", but there are only " + chunkCount + ".");
+
+      digest.update(builder.chunks, indexOffset * recordSize, commandCount * recordSize);
+      System.arraycopy(digest.digest(), 0, infoRecords, record + 0x4, 0x20);
+    }
+    digest.update(infoRecords);
+    System.arraycopy(digest.digest(), 0, builder.header, 0xA4, 0x20);
+  }
+
+  /**
+   * Sign the TMD: The header of 3DS and Wii U TMDs, the header and the content chunk records of Wii TMDs.
+   *
+   * @param builder       The builder.
+   * @param signatureType The signature type.
+   * @return The signature.
+   * @throws GeneralSecurityException The TMD couldn't be signed.
+   */
+  private byte[] sign(TmdBuilder builder, SignatureType signatureType) throws GeneralSecurityException {
+    final byte[] header    = builder.header;
+    final int signedLength = builder.layout.getSignedLength(builder.chunkCount);
+    if (signedLength == header.length)
+      return signer.sign(signatureType, header, 0, header.length);
+
+    byte[] signed = Arrays.copyOf(header, signedLength);
+    System.arraycopy(builder.chunks, 0, signed, header.length, signedLength - header.length);
+    return signer.sign(signatureType, signed, 0, signedLength);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package pro.schuhmann.tmdlib.batch;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The summary of a batch run of a {@link TmdBatchParser}.
+ */
+public class BatchResult {
+
+  private final int parsedCount;
+  private final Map<Path, Exception> failures;
+  private final long elapsedNanos;
+
+  /**
+   * Create a new batch result. These objects are only created by the {@link TmdBatchParser}.
+   *
+   * @param parsedCount  The number of successfully parsed files.
+   * @param failures     All files which couldn't be parsed, mapped to the reason of the failure.
+   * @param elapsedNanos The duration of the batch run in nanoseconds.
+   */
+  BatchResult(int parsedCount, Map<Path, Exception> failures, long elapsedNanos) {
+    this.parsedCount  = parsedCount;
+    this.failures     = Collections.unmodifiableMap(failures);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Get the number of files, which were parsed successfully.
+   *
+   * @return The number of parsed files.
+   */
+  public int getParsedCount() {
+    return parsedCount;
+  }
+
+  /**
+   * Get the number of files, which couldn't be parsed.
+   *
+   * @return The number of failed files.
+   */
+  public int getFailedCount() {
+    return failures.size();
+  }
+
+  /**
+   * Get all files which couldn't be parsed, together with the reason of the failure.
+   *
+   * @return An unmodifiable map from the path of a file to the exception.
+   */
+  public Map<Path, Exception> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Get the duration of the batch run.
+   *
+   * @return The duration in nanoseconds.
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+}
@@ -0,0 +1,29 @@
+package pro.schuhmann.tmdlib.batch;
+
+import pro.schuhmann.tmdlib.TMD;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the results of a {@link TmdBatchParser}. Both methods are called by the worker threads of the parser,
+ * possibly by several threads at once, so implementations have to be thread-safe.
+ */
+public interface TmdBatchListener {
+
+  /**
+   * Called for every TMD file, which was parsed successfully.
+   *
+   * @param path The path of the TMD file.
+   * @param tmd  The parsed TMD.
+   */
+  void onParsed(Path path, TMD tmd);
+
+  /**
+   * Called for every TMD file, which couldn't be parsed or for which {@link #onParsed(Path, TMD)} threw an exception.
+   * The batch continues anyway.
+   *
+   * @param path  The path of the TMD file.
+   * @param error The reason of the failure.
+   */
+  void onFailure(Path path, Exception error);
+}
@@ -0,0 +1,251 @@
+package pro.schuhmann.tmdlib.batch;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TmdOptions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parse lots of TMD files in parallel, like a complete CDN mirror.
+ * <pre>{@code
+ * try (TmdBatchParser parser = new TmdBatchParser()) {
+ *   BatchResult result = parser.parseAll(mirrorRoot, listener);
+ * }
+ * }</pre>
+ * Every file is parsed by a worker thread of the executor, the results are passed to a {@link TmdBatchListener}.
+ * A failing file never aborts the batch, it's reported to the listener and collected in the {@link BatchResult}.
+ *
+ * The number of files being parsed or waiting for the listener at the same time is limited, so the memory usage stays
+ * bounded no matter how many files there are.
+ */
+public class TmdBatchParser implements Closeable {
+
+  /**
+   * The default filter for TMD files: Accepts files named "tmd", "tmd.[version]" (like on the CDN) or "*.tmd".
+   */
+  public static final DirectoryStream.Filter<Path> TMD_FILES = new DirectoryStream.Filter<Path>() {
+    @Override
+    public boolean accept(Path path) {
+      String name = path.getFileName().toString().toLowerCase();
+      return name.equals("tmd") || name.startsWith("tmd.") || name.endsWith(".tmd");
+    }
+  };
+
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final int maxInFlight;
+  private final TmdOptions options;
+
+  /**
+   * Create a new batch parser with a {@link ForkJoinPool}, which uses all available processors.
+   */
+  public TmdBatchParser() {
+    this(new ForkJoinPool(), true, Runtime.getRuntime().availableProcessors() * 4, TmdOptions.DEFAULT);
+  }
+
+  /**
+   * Create a new batch parser using the given executor, like a {@link ForkJoinPool} with a specific parallelism.
+   * The executor is not shut down by {@link #close()}.
+   *
+   * @param executor    The executor, which runs the parse tasks.
+   * @param maxInFlight The maximum number of files being parsed at the same time (including parsed TMDs, which are
+   *                    waiting for the listener).
+   * @param options     The options for parsing the TMDs.
+   */
+  public TmdBatchParser(ExecutorService executor, int maxInFlight, TmdOptions options) {
+    this(executor, false, maxInFlight, options);
+  }
+
+  private TmdBatchParser(ExecutorService executor, boolean ownExecutor, int maxInFlight, TmdOptions options) {
+    if (maxInFlight <= 0)
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+
+    this.executor    = executor;
+    this.ownExecutor = ownExecutor;
+    this.maxInFlight = maxInFlight;
+    this.options     = options;
+  }
+
+  /**
+   * Walk a directory tree and parse all files accepted by {@link #TMD_FILES}.
+   *
+   * @param root     The root directory.
+   * @param listener The listener receiving the results.
+   * @return The summary of the batch run.
+   * @throws IOException          The directory tree couldn't be walked.
+   * @throws InterruptedException The calling thread was interrupted while waiting for the workers.
+   */
+  public BatchResult parseAll(Path root, TmdBatchListener listener) throws IOException, InterruptedException {
+    return parseAll(root, TMD_FILES, listener);
+  }
+
+  /**
+   * Walk a directory tree and parse all files accepted by the given filter.
+   *
+   * @param root     The root directory.
+   * @param filter   A filter deciding which files are TMD files.
+   * @param listener The listener receiving the results.
+   * @return The summary of the batch run.
+   * @throws IOException          The directory tree couldn't be walked.
+   * @throws InterruptedException The calling thread was interrupted while waiting for the workers.
+   */
+  public BatchResult parseAll(Path root, final DirectoryStream.Filter<? super Path> filter, TmdBatchListener listener)
+      throws IOException, InterruptedException {
+    final Batch batch = new Batch(listener);
+    try {
+      Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          if (attrs.isRegularFile() && filter.accept(file)) {
+            try {
+              batch.submit(file);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return FileVisitResult.TERMINATE;
+            }
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          batch.fail(file, e);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } finally {
+      batch.await();
+    }
+    if (Thread.interrupted())
+      throw new InterruptedException();
+    return batch.result();
+  }
+
+  /**
+   * Parse all given TMD files.
+   *
+   * @param files    The TMD files.
+   * @param listener The listener receiving the results.
+   * @return The summary of the batch run.
+   * @throws InterruptedException The calling thread was interrupted while waiting for the workers.
+   */
+  public BatchResult parseAll(Iterable<Path> files, TmdBatchListener listener) throws InterruptedException {
+    Batch batch = new Batch(listener);
+    try {
+      for (Path file : files)
+        batch.submit(file);
+    } finally {
+      batch.await();
+    }
+    return batch.result();
+  }
+
+  /**
+   * Shut down the executor, if it was created by this batch parser.
+   */
+  @Override
+  public void close() {
+    if (ownExecutor)
+      executor.shutdown();
+  }
+
+  /**
+   * The state of a single batch run.
+   */
+  private class Batch {
+
+    private final TmdBatchListener listener;
+    private final Semaphore inFlight = new Semaphore(maxInFlight);
+    private final AtomicInteger parsedCount = new AtomicInteger();
+    private final ConcurrentHashMap<Path, Exception> failures = new ConcurrentHashMap<>();
+    private final long start = System.nanoTime();
+
+    Batch(TmdBatchListener listener) {
+      this.listener = listener;
+    }
+
+    /**
+     * Submit a file to the executor. Blocks while too many files are in flight.
+     */
+    void submit(final Path file) throws InterruptedException {
+      inFlight.acquire();
+      try {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              parse(file);
+            } finally {
+              inFlight.release();
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        inFlight.release();
+        fail(file, e);
+      }
+    }
+
+    private void parse(Path file) {
+      TMD tmd;
+      try {
+        tmd = new TMD(file.toFile(), options);
+      } catch (Exception e) {
+        fail(file, e);
+        return;
+      }
+
+      try {
+        listener.onParsed(file, tmd);
+        parsedCount.incrementAndGet();
+      } catch (RuntimeException e) {
+        // A failing listener must not kill the worker thread (or stop the batch), the file counts as failed
+        fail(file, e);
+      }
+    }
+
+    void fail(Path file, Exception e) {
+      failures.put(file, e);
+      try {
+        listener.onFailure(file, e);
+      } catch (RuntimeException ignored) {
+        // The failure is recorded already.
+      }
+    }
+
+    /**
+     * Wait until all submitted files are done.
+     */
+    void await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          inFlight.acquire(maxInFlight);
+          inFlight.release(maxInFlight);
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted)
+        Thread.currentThread().interrupt();
+    }
+
+    BatchResult result() {
+      return new BatchResult(parsedCount.get(), failures, System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package pro.schuhmann.tmdlib.cache;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TitleVersion;
+import pro.schuhmann.tmdlib.TmdOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of parsed TMD files, bounded by the total size of the TMD files. The least recently used TMDs
+ * are evicted first.
+ * <p>
+ * Every {@link #get(File)} checks the size and the modification time of the file, a changed file is parsed again.
+ * Threads asking for the same file at the same time share a single parse. TMDs in the cache can also be found by
+ * their title version ({@link #get(TitleVersion)}).
+ * <pre>{@code
+ * TmdCache cache = new TmdCache(64 * 1024 * 1024);
+ * TMD tmd = cache.get(new File("00040000000EE000/tmd.1040"));
+ * }</pre>
+ */
+public class TmdCache {
+
+  private final long maxBytes;
+  private final TmdOptions options;
+
+  // Guarded by this
+  private final LinkedHashMap<Path, Entry> entries             = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<TitleVersion, Entry> entriesByTitleVersion = new HashMap<>();
+  private long bytes;
+
+  private final ConcurrentMap<Path, FutureTask<Entry>> loading = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits      = new AtomicLong();
+  private final AtomicLong misses    = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Create a new cache parsing the TMDs with the default options.
+   *
+   * @param maxBytes The maximum total size of the cached TMD files.
+   */
+  public TmdCache(long maxBytes) {
+    this(maxBytes, TmdOptions.DEFAULT);
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param maxBytes The maximum total size of the cached TMD files.
+   * @param options  The options to parse the TMDs with.
+   */
+  public TmdCache(long maxBytes, TmdOptions options) {
+    if (maxBytes < 0)
+      throw new IllegalArgumentException("The maximum size can't be negative: " + maxBytes);
+
+    this.maxBytes = maxBytes;
+    this.options  = options;
+  }
+
+  /**
+   * Get the TMD of a file, from the cache if the file didn't change since it was parsed.
+   *
+   * @param tmdFile The TMD file.
+   * @return The TMD.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public TMD get(File tmdFile) throws IOException {
+    final Path path = tmdFile.toPath().toAbsolutePath().normalize();
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException e) {
+      invalidate(path);
+      throw e;
+    }
+    final long size         = attributes.size();
+    final long lastModified = attributes.lastModifiedTime().toMillis();
+
+    synchronized (this) {
+      Entry entry = entries.get(path);
+      if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+        hits.incrementAndGet();
+        return entry.tmd;
+      }
+    }
+    misses.incrementAndGet();
+
+    // Only one thread parses the file, the others wait for it's result
+    FutureTask<Entry> task = new FutureTask<>(new Callable<Entry>() {
+      @Override
+      public Entry call() throws IOException {
+        // Another thread could have finished loading the file just before
+        synchronized (TmdCache.this) {
+          Entry entry = entries.get(path);
+          if (entry != null && entry.size == size && entry.lastModified == lastModified)
+            return entry;
+        }
+        TMD tmd = new TMD(path.toFile(), options);
+        return new Entry(path, tmd, TitleVersion.of(tmd), size, lastModified);
+      }
+    });
+    FutureTask<Entry> running = loading.putIfAbsent(path, task);
+    if (running == null) {
+      running = task;
+      try {
+        task.run();
+        put(task.get());
+      } catch (ExecutionException | InterruptedException ignored) {
+        // Reported below
+      } finally {
+        loading.remove(path, task);
+      }
+    }
+    return await(running).tmd;
+  }
+
+  /**
+   * Get a cached TMD by it's title version. This doesn't load any files.
+   *
+   * @param titleVersion The title ID and title version.
+   * @return The TMD or null, if no TMD with this title version is cached.
+   */
+  public synchronized TMD get(TitleVersion titleVersion) {
+    Entry entry = entriesByTitleVersion.get(titleVersion);
+    if (entry == null)
+      return null;
+
+    entries.get(entry.path); // Mark as recently used
+    return entry.tmd;
+  }
+
+  /**
+   * Remove the TMD of a file from the cache.
+   *
+   * @param tmdFile The TMD file.
+   */
+  public void invalidate(File tmdFile) {
+    invalidate(tmdFile.toPath().toAbsolutePath().normalize());
+  }
+
+  /**
+   * Remove all TMDs from the cache. The counters aren't reset.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    entriesByTitleVersion.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Get the number of cached TMDs.
+   *
+   * @return The number of TMDs.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Get the total size of the cached TMD files.
+   *
+   * @return The size in bytes.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Get the maximum total size of the cached TMD files.
+   *
+   * @return The size in bytes.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Get the number of requests answered from the cache.
+   *
+   * @return The number of hits.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Get the number of requests, which had to parse the file (or wait for another thread parsing it).
+   *
+   * @return The number of misses.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Get the number of TMDs removed to stay below the maximum size. Invalidated TMDs aren't counted.
+   *
+   * @return The number of evictions.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  private synchronized void put(Entry entry) {
+    remove(entries.get(entry.path));
+    if (entry.size > maxBytes)
+      return;
+
+    entries.put(entry.path, entry);
+    entriesByTitleVersion.put(entry.titleVersion, entry);
+    bytes += entry.size;
+
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (bytes > maxBytes) {
+      Entry evicted = eldest.next();
+      eldest.remove();
+      if (entriesByTitleVersion.get(evicted.titleVersion) == evicted)
+        entriesByTitleVersion.remove(evicted.titleVersion);
+      bytes -= evicted.size;
+      evictions.incrementAndGet();
+    }
+  }
+
+  private synchronized void invalidate(Path path) {
+    remove(entries.get(path));
+  }
+
+  /**
+   * Remove an entry from both maps. Must be called while locked.
+   */
+  private void remove(Entry entry) {
+    if (entry == null)
+      return;
+
+    entries.remove(entry.path);
+    if (entriesByTitleVersion.get(entry.titleVersion) == entry)
+      entriesByTitleVersion.remove(entry.titleVersion);
+    bytes -= entry.size;
+  }
+
+  private static Entry await(FutureTask<Entry> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the TMD!", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new IOException(cause);
+    }
+  }
+
+  private static class Entry {
+
+    final Path path;
+    final TMD tmd;
+    final TitleVersion titleVersion;
+    final long size;
+    final long lastModified;
+
+    Entry(Path path, TMD tmd, TitleVersion titleVersion, long size, long lastModified) {
+      this.path         = path;
+      this.tmd          = tmd;
+      this.titleVersion = titleVersion;
+      this.size         = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
@@ -0,0 +1,440 @@
+package pro.schuhmann.tmdlib.cia;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.Ticket;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.parts.Certificate;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retrieve the certificate chain, ticket, TMD and contents of a CIA (CTR Importable Archive) by creating an instance
+ * from this class. A CIA consists of a header and five sections, each aligned to 64 bytes:
+ * <pre>
+ *   Header (0x2020 bytes) | Certificate chain | Ticket | TMD | Contents | Meta (optional)
+ * </pre>
+ * Only the certificate chain, the ticket and the TMD are memory mapped (a few KiB up to a few MiB), the ticket and the
+ * TMD are parsed in place from this mapping. The content section, which may be several GiB, is neither mapped nor
+ * read, only the offsets of the contents are calculated from the TMD:
+ * <pre>{@code
+ * try (CiaFile cia = new CiaFile(file)) {
+ *   System.out.println(cia.getTmd().getHeader().getTitleIdValue() + " " + cia.getTicket().getTitleKey());
+ *   long offset = cia.getContentOffset(0);
+ * }
+ * }</pre>
+ * The TMD, the ticket and the certificates can still be used after the CIA is closed.
+ *
+ * @see <a href="https://3dbrew.org/wiki/CIA">3dbrew: CIA</a>
+ */
+public class CiaFile implements Closeable {
+
+  /**
+   * The size of the CIA header, including the content index bitmap.
+   */
+  public static final int HEADER_SIZE = 0x2020;
+
+  private static final int ALIGNMENT = 0x40;
+  // Certificate chain + ticket + TMD, a TMD alone may have up to 4 MiB
+  private static final int MAX_METADATA_SIZE = 16 << 20;
+
+  private final FileChannel channel;
+  private final ByteBuffer data;
+  private final long size;
+
+  private final short type;
+  private final short version;
+  private final byte[] contentIndexBitmap = new byte[0x2000];
+
+  private final long certificateChainOffset;
+  private final int certificateChainSize;
+  private final long ticketOffset;
+  private final int ticketSize;
+  private final long tmdOffset;
+  private final int tmdSize;
+  private final long contentSectionOffset;
+  private final long contentSectionSize;
+  private final long metaOffset;
+  private final int metaSize;
+
+  private final Certificate[] certificates;
+  private final Ticket ticket;
+  private final TMD tmd;
+  // Absolute offset per content chunk record, -1 if the content isn't included
+  private final long[] contentOffsets;
+
+  /**
+   * Open a CIA file. The embedded TMD is created in lazy mode, so it's parsed in place from the mapping.
+   *
+   * @param ciaFile A {@link File} pointing to the CIA file.
+   * @throws IOException The file couldn't be read or it's not a valid CIA.
+   */
+  public CiaFile(File ciaFile) throws IOException {
+    this(ciaFile, TmdOptions.DEFAULT.lazy(true));
+  }
+
+  /**
+   * Open a CIA file.
+   *
+   * @param ciaFile A {@link File} pointing to the CIA file.
+   * @param options The options for parsing the embedded TMD, see {@link TmdOptions}. An eager TMD keeps a copy of it's
+   *                bytes instead of the mapping.
+   * @throws IOException The file couldn't be read or it's not a valid CIA.
+   */
+  public CiaFile(File ciaFile, TmdOptions options) throws IOException {
+    this(FileChannel.open(ciaFile.toPath(), StandardOpenOption.READ), null, options);
+  }
+
+  /**
+   * Create a new CIA object from the remaining bytes (position to limit) of a heap or direct {@link ByteBuffer}, e.g. a
+   * mapping created by the caller. Neither the buffer content is copied nor the position of the buffer is changed.
+   * The embedded TMD is created in lazy mode, so it's parsed in place from the buffer.
+   *
+   * @param buffer A buffer containing the CIA.
+   * @return A new CiaFile object.
+   * @throws IOException The CIA is invalid or truncated.
+   */
+  public static CiaFile fromByteBuffer(ByteBuffer buffer) throws IOException {
+    return fromByteBuffer(buffer, TmdOptions.DEFAULT.lazy(true));
+  }
+
+  /**
+   * Create a new CIA object from the remaining bytes (position to limit) of a heap or direct {@link ByteBuffer}, e.g. a
+   * mapping created by the caller. Neither the buffer content is copied nor the position of the buffer is changed.
+   *
+   * @param buffer  A buffer containing the CIA.
+   * @param options The options for parsing the embedded TMD, see {@link TmdOptions}. An eager TMD keeps a copy of it's
+   *                bytes instead of the buffer.
+   * @return A new CiaFile object.
+   * @throws IOException The CIA is invalid or truncated.
+   */
+  public static CiaFile fromByteBuffer(ByteBuffer buffer, TmdOptions options) throws IOException {
+    return new CiaFile(null, buffer.slice(), options);
+  }
+
+  private CiaFile(FileChannel channel, ByteBuffer data, TmdOptions options) throws IOException {
+    this.channel = channel;
+    this.data    = data;
+    try {
+      this.size = channel != null ? channel.size() : data.limit();
+
+      // The header is little endian, unlike the TMD and the ticket
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      if (size < HEADER_SIZE)
+        throw new EOFException("A CIA has at least " + HEADER_SIZE + " bytes, but the file has only " + size + ".");
+      readFully(header, 0);
+      if (header.getInt(0x0) != HEADER_SIZE)
+        throw new IOException("Not a CIA file: The header size is 0x" + Integer.toHexString(header.getInt(0x0))
+            + " instead of 0x" + Integer.toHexString(HEADER_SIZE) + ".");
+
+      this.type                 = header.getShort(0x4);
+      this.version              = header.getShort(0x6);
+      this.certificateChainSize = header.getInt(0x8);
+      this.ticketSize           = header.getInt(0xC);
+      this.tmdSize              = header.getInt(0x10);
+      this.metaSize             = header.getInt(0x14);
+      this.contentSectionSize   = header.getLong(0x18);
+      ((Buffer) header).position(0x20); // Cast: Compatibility with Java 8 and below
+      header.get(contentIndexBitmap);
+
+      // Every section starts at the next multiple of 64 bytes
+      this.certificateChainOffset = align(HEADER_SIZE);
+      this.ticketOffset           = align(certificateChainOffset + certificateChainSize);
+      this.tmdOffset              = align(ticketOffset + ticketSize);
+      this.contentSectionOffset   = align(tmdOffset + tmdSize);
+      this.metaOffset             = metaSize != 0 ? align(contentSectionOffset + contentSectionSize) : 0;
+
+      long metadataSize = contentSectionOffset - certificateChainOffset;
+      if (certificateChainSize < 0 || ticketSize < 0 || tmdSize < 0 || metaSize < 0 || contentSectionSize < 0
+          || metadataSize > MAX_METADATA_SIZE)
+        throw new IOException("Not a CIA file: The section sizes are invalid.");
+      long end = metaSize != 0 ? metaOffset + metaSize : contentSectionOffset + contentSectionSize;
+      if (end > size)
+        throw new EOFException("The sections of the CIA end at " + end + ", but the file has only " + size
+            + " bytes.");
+
+      // Map (or slice) certificate chain, ticket and TMD once, they're parsed directly from there
+      ByteBuffer metadata = slice(certificateChainOffset, (int) metadataSize);
+      final int base      = (int) certificateChainOffset;
+      this.certificates   = readCertificates(TmdFileReader.forByteBuffer(metadata, 0, certificateChainSize));
+      this.ticket         = new Ticket(TmdFileReader.forByteBuffer(metadata, (int) ticketOffset - base, ticketSize));
+      this.tmd            = new TMD(TmdFileReader.forByteBuffer(metadata, (int) tmdOffset - base, tmdSize), options);
+      this.contentOffsets = readContentOffsets();
+    } catch (IOException | RuntimeException e) {
+      if (channel != null)
+        channel.close();
+      throw e;
+    }
+  }
+
+  private static long align(long offset) {
+    return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  /**
+   * Read bytes at an absolute position of the CIA until the buffer is full.
+   */
+  private void readFully(ByteBuffer destination, long position) throws IOException {
+    while (destination.hasRemaining()) {
+      int read = read(destination, position);
+      if (read < 0)
+        throw new EOFException("The CIA file was truncated while reading it.");
+      position += read;
+    }
+  }
+
+  /**
+   * Get a read-only view of a part of the CIA, a memory mapping for files.
+   */
+  private ByteBuffer slice(long position, int length) throws IOException {
+    if (channel != null)
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+    ByteBuffer slice = data.duplicate();
+    ((Buffer) slice).limit((int) position + length); // Cast: Compatibility with Java 8 and below
+    ((Buffer) slice).position((int) position);
+    return slice.slice();
+  }
+
+  private static Certificate[] readCertificates(TmdFileReader chain) throws IOException {
+    List<Certificate> certificates = new ArrayList<>();
+    for (int offset = 0; offset < chain.getFileLength(); ) {
+      Certificate certificate = new Certificate(chain, offset);
+      certificates.add(certificate);
+      offset += certificate.getSize();
+    }
+    return certificates.toArray(new Certificate[0]);
+  }
+
+  /**
+   * The contents are stored in the order of the content chunk records, but only those which are marked in the content
+   * index bitmap of the header.
+   */
+  private long[] readContentOffsets() throws IOException {
+    List<ContentChunkRecord> records = tmd.getContentChunkRecords();
+    long[] offsets = new long[records.size()];
+    long offset    = contentSectionOffset;
+    for (int i = 0; i < offsets.length; i++) {
+      ContentChunkRecord record = records.get(i);
+      if (isContentIncluded(record.getContentIndex() & 0xFFFF)) {
+        offsets[i] = offset;
+        offset    += record.getContentSize();
+      } else {
+        offsets[i] = -1;
+      }
+    }
+    if (offset > contentSectionOffset + contentSectionSize)
+      throw new IOException("The contents of the CIA need " + (offset - contentSectionOffset)
+          + " bytes, but the content section has only " + contentSectionSize + ".");
+    return offsets;
+  }
+
+  /**
+   * Get the size of the CIA.
+   *
+   * @return The size in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Get the type of the CIA (usually 0).
+   *
+   * @return The type.
+   */
+  public short getType() {
+    return type;
+  }
+
+  /**
+   * Get the version of the CIA format (usually 0).
+   *
+   * @return The version.
+   */
+  public short getVersion() {
+    return version;
+  }
+
+  /**
+   * Check whether a content is included in the CIA, by the content index bitmap of the header.
+   *
+   * @param contentIndex The content index (unsigned), see {@link ContentChunkRecord#getContentIndex()}.
+   * @return {@code true} if the content is included.
+   */
+  public boolean isContentIncluded(int contentIndex) {
+    return (contentIndexBitmap[contentIndex >>> 3] & (0x80 >>> (contentIndex & 0x7))) != 0;
+  }
+
+  /**
+   * Get the certificate chain of the CIA, usually the CA, the ticket signer (XS) and the TMD signer (CP) certificate.
+   *
+   * @return The certificates.
+   */
+  public Certificate[] getCertificates() {
+    return certificates;
+  }
+
+  /**
+   * Get the ticket of the CIA.
+   *
+   * @return The ticket.
+   */
+  public Ticket getTicket() {
+    return ticket;
+  }
+
+  /**
+   * Get the TMD of the CIA. Unless it was created with eager options, it's backed by the mapping of the CIA. Either
+   * way, it's raw bytes are available for {@link pro.schuhmann.tmdlib.verify.SignatureVerifier}.
+   *
+   * @return The TMD.
+   */
+  public TMD getTmd() {
+    return tmd;
+  }
+
+  /**
+   * Get the offset of the certificate chain in the CIA.
+   *
+   * @return The offset.
+   */
+  public long getCertificateChainOffset() {
+    return certificateChainOffset;
+  }
+
+  /**
+   * Get the size of the certificate chain.
+   *
+   * @return The size in bytes.
+   */
+  public int getCertificateChainSize() {
+    return certificateChainSize;
+  }
+
+  /**
+   * Get the offset of the ticket in the CIA.
+   *
+   * @return The offset.
+   */
+  public long getTicketOffset() {
+    return ticketOffset;
+  }
+
+  /**
+   * Get the size of the ticket.
+   *
+   * @return The size in bytes.
+   */
+  public int getTicketSize() {
+    return ticketSize;
+  }
+
+  /**
+   * Get the offset of the TMD in the CIA.
+   *
+   * @return The offset.
+   */
+  public long getTmdOffset() {
+    return tmdOffset;
+  }
+
+  /**
+   * Get the size of the TMD.
+   *
+   * @return The size in bytes.
+   */
+  public int getTmdSize() {
+    return tmdSize;
+  }
+
+  /**
+   * Get the offset of the content section in the CIA.
+   *
+   * @return The offset.
+   */
+  public long getContentSectionOffset() {
+    return contentSectionOffset;
+  }
+
+  /**
+   * Get the size of the content section.
+   *
+   * @return The size in bytes.
+   */
+  public long getContentSectionSize() {
+    return contentSectionSize;
+  }
+
+  /**
+   * Get the offset of the meta section in the CIA.
+   *
+   * @return The offset or 0, if the CIA has no meta section.
+   */
+  public long getMetaOffset() {
+    return metaOffset;
+  }
+
+  /**
+   * Get the size of the meta section.
+   *
+   * @return The size in bytes, 0 if the CIA has no meta section.
+   */
+  public int getMetaSize() {
+    return metaSize;
+  }
+
+  /**
+   * Get the offset of a content in the CIA. The size of the content is
+   * {@link ContentChunkRecord#getContentSize()}.
+   *
+   * @param index The index of the content chunk record in {@link TMD#getContentChunkRecords()}.
+   * @return The offset or -1, if the content isn't included in the CIA.
+   */
+  public long getContentOffset(int index) {
+    return contentOffsets[index];
+  }
+
+  /**
+   * Read bytes from an absolute position of the CIA, like {@link FileChannel#read(ByteBuffer, long)}. This is meant for
+   * the content section, which isn't mapped. Several threads may read at once, there is no shared position.
+   *
+   * @param destination The buffer to read into, up to it's remaining bytes.
+   * @param position    The position in the CIA.
+   * @return The number of bytes read, -1 if the position is at or behind the end of the CIA.
+   * @throws IOException An error occurred while reading the file.
+   */
+  public int read(ByteBuffer destination, long position) throws IOException {
+    if (channel != null)
+      return channel.read(destination, position);
+
+    if (position >= size)
+      return -1;
+    int length = (int) Math.min(destination.remaining(), size - position);
+    destination.put(slice(position, length));
+    return length;
+  }
+
+  /**
+   * Close the CIA file. The ticket, the TMD and the certificates may still be used afterwards, the mapping is released
+   * as soon as none of them is referenced any more.
+   *
+   * @throws IOException An error occurred while closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null)
+      channel.close();
+  }
+}
@@ -4,13 +4,15 @@ package pro.schuhmann.tmdlib.enums;
  * An enumeration of the different public key types. The length of the public key depends on the key type.
  */
 public enum PublicKeyType {
-  RSA_4096(0x34),
-  RSA_2048(0x34),
-  ELLIPTIC_CURVE(0x3C);
+  RSA_4096      (0x204, 0x34), // Modulus + public exponent
+  RSA_2048      (0x104, 0x34), // Modulus + public exponent
+  ELLIPTIC_CURVE(0x3C , 0x3C);
 
+  final int keySize;
   final int paddingSize;
 
-  PublicKeyType(int paddingSize) {
+  PublicKeyType(int keySize, int paddingSize) {
+    this.keySize     = keySize;
     this.paddingSize = paddingSize;
   }
 
@@ -30,6 +32,15 @@ public enum PublicKeyType {
     return null;
   }
 
+  /**
+   * Get the size of the public key data. For RSA keys, this includes the public exponent.
+   *
+   * @return The key size.
+   */
+  public int getKeySize() {
+    return keySize;
+  }
+
   /**
    * Get the padding size of the public key.
    *
@@ -42,6 +42,22 @@ public enum SignatureType {
     return null;
   }
 
+  /**
+   * Get the value of the signature type, as stored in the first four bytes of the TMD file.
+   *
+   * @return The value, see {@link #getByValue(int)}.
+   */
+  public int getValue() {
+    switch (this) {
+      case RSA_4096_SHA1:       return 0x010000;
+      case RSA_2048_SHA1:       return 0x010001;
+      case ELLIPTIC_CURVE_SHA1: return 0x010002;
+      case RSA_4096_SHA256:     return 0x010003;
+      case RSA_2048_SHA256:     return 0x010004;
+      default:                  return 0x010005;
+    }
+  }
+
   /**
    * Get the size of the signature data area, which is: {@code 0x4 + padding size + signature size}.
    *
@@ -61,6 +77,35 @@ public enum SignatureType {
     return signatureSize;
   }
 
+  /**
+   * Get the name of the signature algorithm in the Java Cryptography Architecture, like "SHA256withRSA".
+   *
+   * @return The algorithm name for {@link java.security.Signature#getInstance(String)}.
+   */
+  public String getAlgorithm() {
+    switch (this) {
+      case RSA_4096_SHA1:
+      case RSA_2048_SHA1:
+        return "SHA1withRSA";
+      case RSA_4096_SHA256:
+      case RSA_2048_SHA256:
+        return "SHA256withRSA";
+      case ELLIPTIC_CURVE_SHA1:
+        return "SHA1withECDSA";
+      default:
+        return "SHA256withECDSA";
+    }
+  }
+
+  /**
+   * Check whether this is an ECDSA signature type. ECDSA signatures are stored as raw r and s values.
+   *
+   * @return {@code true} for ECDSA signatures.
+   */
+  public boolean isEcdsa() {
+    return this == ELLIPTIC_CURVE_SHA1 || this == ECDSA_SHA256;
+  }
+
   /**
    * Get the padding size.
    *
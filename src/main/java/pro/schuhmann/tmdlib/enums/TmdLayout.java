@@ -0,0 +1,185 @@
+package pro.schuhmann.tmdlib.enums;
+
+import pro.schuhmann.tmdlib.TmdFileReader;
+
+import java.io.IOException;
+
+/**
+ * An enumeration of the TMD layouts of the different platforms. All of them start with the signature data and share the
+ * first 0xA4 bytes of the header, but the sections after it differ:
+ * <pre>
+ *   Layout  Header  Content info records  Content chunk records     Certificates
+ *   CTR     0xC4    64 * 0x24             0x30, SHA-256 hash        RSA_2048_SHA256 + RSA_4096_SHA256
+ *   WII_U   0xC4    64 * 0x24             0x30, SHA-1 hash (padded) RSA_2048_SHA256 + RSA_4096_SHA256
+ *   WII     0xA4    none                  0x24, SHA-1 hash          RSA_2048_SHA1   + RSA_4096_SHA1
+ * </pre>
+ * All offsets are relative to the start of the header and computed once per layout, see {@link #detect(byte, long)}
+ * for how the layout of a TMD is chosen.
+ *
+ * @see <a href="https://wiibrew.org/wiki/Title_metadata">WiiBrew: Title metadata</a>
+ * @see <a href="https://wiiubrew.org/wiki/Title_metadata">WiiUBrew: Title metadata</a>
+ */
+public enum TmdLayout {
+  CTR  (0xC4, 64, 0x30, 0x20, "SHA-256", SignatureType.RSA_2048_SHA256, SignatureType.RSA_4096_SHA256),
+  WII_U(0xC4, 64, 0x30, 0x14, "SHA-1"  , SignatureType.RSA_2048_SHA256, SignatureType.RSA_4096_SHA256),
+  WII  (0xA4, 0 , 0x24, 0x14, "SHA-1"  , SignatureType.RSA_2048_SHA1  , SignatureType.RSA_4096_SHA1);
+
+  /**
+   * The size of a single content info record in bytes, the same for all layouts using them.
+   */
+  public static final int CONTENT_INFO_RECORD_SIZE = 0x24;
+
+  private final int headerSize;
+  private final int contentInfoRecordCount;
+  private final int contentChunkRecordsOffset;
+  private final int contentChunkRecordSize;
+  private final int contentHashSize;
+  private final String contentHashAlgorithm;
+  private final SignatureType signerCertificateType;
+  private final SignatureType caCertificateType;
+
+  TmdLayout(int headerSize, int contentInfoRecordCount, int contentChunkRecordSize, int contentHashSize,
+            String contentHashAlgorithm, SignatureType signerCertificateType, SignatureType caCertificateType) {
+    this.headerSize                = headerSize;
+    this.contentInfoRecordCount    = contentInfoRecordCount;
+    this.contentChunkRecordsOffset = headerSize + contentInfoRecordCount * CONTENT_INFO_RECORD_SIZE;
+    this.contentChunkRecordSize    = contentChunkRecordSize;
+    this.contentHashSize           = contentHashSize;
+    this.contentHashAlgorithm      = contentHashAlgorithm;
+    this.signerCertificateType     = signerCertificateType;
+    this.caCertificateType         = caCertificateType;
+  }
+
+  /**
+   * Choose the layout of a TMD: Wii TMDs (including vWii) have the TMD version 0, Wii U titles have the platform
+   * 0x0005 in the upper 16 bits of the title ID, everything else is treated as a 3DS TMD.
+   *
+   * @param version The TMD version, the byte at header offset 0x40.
+   * @param titleId The title ID, the long at header offset 0x4C.
+   * @return The layout.
+   */
+  public static TmdLayout detect(byte version, long titleId) {
+    if (version == 0)
+      return WII;
+    if ((titleId >>> 48) == 0x0005)
+      return WII_U;
+    return CTR;
+  }
+
+  /**
+   * Choose the layout of a TMD by reading the TMD version and the title ID from it's header, see
+   * {@link #detect(byte, long)}.
+   *
+   * @param tmdFile      A {@link TmdFileReader} pointing to a TMD file.
+   * @param headerOffset The offset of the header, which equals the size of the signature data.
+   * @return The layout.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public static TmdLayout detect(TmdFileReader tmdFile, int headerOffset) throws IOException {
+    return detect(tmdFile.getByte(headerOffset + 0x40), tmdFile.getLong(headerOffset + 0x4C));
+  }
+
+  /**
+   * Get the size of the header.
+   *
+   * @return The header size.
+   */
+  public int getHeaderSize() {
+    return headerSize;
+  }
+
+  /**
+   * Get the number of content info record slots following the header, 0 if the layout has none.
+   *
+   * @return The number of content info records.
+   */
+  public int getContentInfoRecordCount() {
+    return contentInfoRecordCount;
+  }
+
+  /**
+   * Get the offset of the content info records, relative to the header.
+   *
+   * @return The offset of the content info records.
+   */
+  public int getContentInfoRecordsOffset() {
+    return headerSize;
+  }
+
+  /**
+   * Get the offset of the content chunk records, relative to the header.
+   *
+   * @return The offset of the content chunk records.
+   */
+  public int getContentChunkRecordsOffset() {
+    return contentChunkRecordsOffset;
+  }
+
+  /**
+   * Get the size of a single content chunk record.
+   *
+   * @return The record size.
+   */
+  public int getContentChunkRecordSize() {
+    return contentChunkRecordSize;
+  }
+
+  /**
+   * Get the size of the content hash stored at offset 0x10 of every content chunk record.
+   *
+   * @return The hash size.
+   */
+  public int getContentHashSize() {
+    return contentHashSize;
+  }
+
+  /**
+   * Get the name of the algorithm of the content hashes in the Java Cryptography Architecture.
+   *
+   * @return The algorithm name for {@link java.security.MessageDigest#getInstance(String)}.
+   */
+  public String getContentHashAlgorithm() {
+    return contentHashAlgorithm;
+  }
+
+  /**
+   * Get the length of the TMD without the signature data and certificates, i.e. the end of the content chunk records
+   * relative to the header.
+   *
+   * @param contentCount The number of contents (unsigned).
+   * @return The length in bytes.
+   */
+  public int getLength(int contentCount) {
+    return contentChunkRecordsOffset + contentCount * contentChunkRecordSize;
+  }
+
+  /**
+   * Get the length of the part of the TMD covered by the signature, starting at the header. 3DS and Wii U TMDs sign
+   * only the header (the records are covered by it's hash chain), Wii TMDs sign the header and all content chunk
+   * records.
+   *
+   * @param contentCount The number of contents (unsigned).
+   * @return The signed length in bytes.
+   */
+  public int getSignedLength(int contentCount) {
+    return contentInfoRecordCount == 0 ? getLength(contentCount) : headerSize;
+  }
+
+  /**
+   * Get the signature type of the first certificate appended by the CDN, the certificate of the TMD signer.
+   *
+   * @return The signature type.
+   */
+  public SignatureType getSignerCertificateType() {
+    return signerCertificateType;
+  }
+
+  /**
+   * Get the signature type of the second certificate appended by the CDN, the certificate of the CA.
+   *
+   * @return The signature type.
+   */
+  public SignatureType getCaCertificateType() {
+    return caCertificateType;
+  }
+}
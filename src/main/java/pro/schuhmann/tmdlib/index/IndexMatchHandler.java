@@ -0,0 +1,19 @@
+package pro.schuhmann.tmdlib.index;
+
+import pro.schuhmann.tmdlib.TMD;
+
+/**
+ * Receives the results of a lookup in a {@link TmdIndex}. The handler is called while the index is locked for
+ * reading, so it must not add TMDs to the same index.
+ */
+public interface IndexMatchHandler {
+
+  /**
+   * Called for every match.
+   *
+   * @param tmd           The matching TMD.
+   * @param chunkPosition The position of the matching content chunk record in
+   *                      {@link TMD#getContentChunkRecords()}, or -1 for lookups by title.
+   */
+  void onMatch(TMD tmd, int chunkPosition);
+}
@@ -0,0 +1,128 @@
+package pro.schuhmann.tmdlib.index;
+
+import java.util.Arrays;
+
+/**
+ * A multimap from {@code long} keys to {@code int} values, without any boxing. The keys are stored in an open
+ * addressing table (linear probing), the values of a key form a chain of entries, newest first:
+ * <pre>{@code
+ * for (int entry = map.first(key); entry >= 0; entry = map.next(entry)) {
+ *   int value = map.value(entry);
+ * }
+ * }</pre>
+ * Entries are never removed, so entry handles stay valid while the map grows. Not thread-safe.
+ */
+final class LongMultimap {
+
+  private static final int EMPTY = -1;
+
+  // The table: key and newest entry per slot
+  private long[] keys;
+  private int[] heads;
+  private int usedSlots;
+
+  // The entries: value and next (older) entry of the same key
+  private int[] values;
+  private int[] next;
+  private int entries;
+
+  LongMultimap() {
+    keys   = new long[64];
+    heads  = new int[64];
+    values = new int[64];
+    next   = new int[64];
+    Arrays.fill(heads, EMPTY);
+  }
+
+  /**
+   * Add a value to a key.
+   *
+   * @param key   The key.
+   * @param value The value.
+   */
+  void put(long key, int value) {
+    if ((usedSlots + 1) * 2 > keys.length)
+      resizeTable();
+    if (entries == values.length) {
+      values = Arrays.copyOf(values, entries * 2);
+      next   = Arrays.copyOf(next, entries * 2);
+    }
+
+    int slot = findSlot(keys, heads, key);
+    if (heads[slot] == EMPTY) {
+      keys[slot] = key;
+      usedSlots++;
+    }
+    values[entries] = value;
+    next[entries]   = heads[slot];
+    heads[slot]     = entries++;
+  }
+
+  /**
+   * Get the newest entry of a key.
+   *
+   * @param key The key.
+   * @return The entry or -1, if the key isn't in the map.
+   */
+  int first(long key) {
+    return heads[findSlot(keys, heads, key)];
+  }
+
+  /**
+   * Get the next (older) entry of the same key.
+   *
+   * @param entry An entry.
+   * @return The next entry or -1, if there is none.
+   */
+  int next(int entry) {
+    return next[entry];
+  }
+
+  /**
+   * Get the value of an entry.
+   *
+   * @param entry An entry.
+   * @return The value.
+   */
+  int value(int entry) {
+    return values[entry];
+  }
+
+  private void resizeTable() {
+    long[] newKeys  = new long[keys.length * 2];
+    int[] newHeads  = new int[heads.length * 2];
+    Arrays.fill(newHeads, EMPTY);
+    for (int i = 0; i < keys.length; i++) {
+      if (heads[i] != EMPTY) {
+        int slot = findSlot(newKeys, newHeads, keys[i]);
+        newKeys[slot]  = keys[i];
+        newHeads[slot] = heads[i];
+      }
+    }
+    keys  = newKeys;
+    heads = newHeads;
+  }
+
+  /**
+   * Find the slot of a key or the empty slot, where it would be inserted.
+   */
+  private static int findSlot(long[] keys, int[] heads, long key) {
+    final int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (heads[slot] != EMPTY && keys[slot] != key)
+      slot = (slot + 1) & mask;
+    return slot;
+  }
+
+  /**
+   * Spread the bits of a key, content IDs and title IDs are far from random (finalizer of MurmurHash3).
+   */
+  private static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xFF51AFD7ED558CCDL;
+    key ^= key >>> 33;
+    key *= 0xC4CEB9FE1A85EC53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
@@ -0,0 +1,405 @@
+package pro.schuhmann.tmdlib.index;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TitleVersion;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecordList;
+import pro.schuhmann.tmdlib.parts.Header;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of TMDs, answering "which titles contain content ID X", "which title owns SHA256 hash Y" and
+ * "all versions of title Z" without scanning all TMDs.
+ * <p>
+ * The title IDs, content IDs and content hashes are kept in primitive hash maps, the lookups
+ * ({@link #findByTitleId(long, IndexMatchHandler)}, {@link #findByContentId(int, IndexMatchHandler)},
+ * {@link #findByContentHash(byte[], int, IndexMatchHandler)} and {@link #get(long, int)}) don't allocate any
+ * objects. The index is thread-safe: any number of threads can query it while another thread adds or removes TMDs.
+ * <pre>{@code
+ * TmdIndex index = new TmdIndex();
+ * for (TMD tmd : tmds)
+ *   index.add(tmd);
+ *
+ * index.findByContentId(0x0000004C, new IndexMatchHandler() {
+ *   public void onMatch(TMD tmd, int chunkPosition) {
+ *     System.out.println(tmd.getHeader().getTitleId());
+ *   }
+ * });
+ * }</pre>
+ */
+public class TmdIndex {
+
+  private static final int HASH_SIZE = 0x20;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock readLock               = lock.readLock();
+  private final Lock writeLock              = lock.writeLock();
+
+  // The TMDs, removed TMDs are null until the next compaction
+  private TMD[] tmds;
+  private long[] titleIds;
+  private int[] titleVersions;
+  private int tmdCount;
+  private int liveCount;
+
+  // The content chunk records of all TMDs
+  private int[] contentTmds;
+  private int[] contentPositions;
+  private byte[] contentHashes;
+  private int contentCount;
+
+  // Title ID -> TMD, content ID -> content, first 8 bytes of the hash -> content
+  private LongMultimap byTitleId;
+  private LongMultimap byContentId;
+  private LongMultimap byContentHash;
+
+  /**
+   * Create a new, empty index.
+   */
+  public TmdIndex() {
+    clearIndex();
+  }
+
+  /**
+   * Add a TMD to the index. A TMD with the same title ID and title version is replaced.
+   *
+   * @param tmd The TMD.
+   * @return The replaced TMD or null, if this title version wasn't in the index.
+   */
+  public TMD add(TMD tmd) {
+    // Read everything before locking, so the readers aren't blocked by parsing the TMD
+    Header header = tmd.getHeader();
+    long titleId  = header.getTitleIdValue().toLong();
+    int version   = header.getTitleVersion() & 0xFFFF;
+    List<ContentChunkRecord> records = tmd.getContentChunkRecords();
+    int[] contentIds = new int[records.size()];
+    byte[] hashes    = new byte[records.size() * HASH_SIZE];
+    readContents(records, contentIds, hashes);
+
+    writeLock.lock();
+    try {
+      TMD previous = null;
+      int ordinal = find(titleId, version);
+      if (ordinal >= 0) {
+        previous = tmds[ordinal];
+        tmds[ordinal] = null;
+        liveCount--;
+      }
+      insert(tmd, titleId, version, contentIds, hashes);
+      compactIfNeeded();
+      return previous;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Remove a TMD from the index.
+   *
+   * @param titleVersion The title ID and title version of the TMD.
+   * @return The removed TMD or null, if this title version wasn't in the index.
+   */
+  public TMD remove(TitleVersion titleVersion) {
+    writeLock.lock();
+    try {
+      int ordinal = find(titleVersion.getTitleId().toLong(), titleVersion.getVersion());
+      if (ordinal < 0)
+        return null;
+
+      TMD removed = tmds[ordinal];
+      tmds[ordinal] = null;
+      liveCount--;
+      compactIfNeeded();
+      return removed;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Remove all TMDs from the index.
+   */
+  public void clear() {
+    writeLock.lock();
+    try {
+      clearIndex();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of TMDs in the index.
+   *
+   * @return The number of TMDs.
+   */
+  public int size() {
+    readLock.lock();
+    try {
+      return liveCount;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Get a TMD by it's title ID and title version.
+   *
+   * @param titleId The title ID as long.
+   * @param version The title version (unsigned).
+   * @return The TMD or null, if it isn't in the index.
+   */
+  public TMD get(long titleId, int version) {
+    readLock.lock();
+    try {
+      int ordinal = find(titleId, version);
+      return ordinal >= 0 ? tmds[ordinal] : null;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Get a TMD by it's title ID and title version.
+   *
+   * @param titleVersion The title ID and title version.
+   * @return The TMD or null, if it isn't in the index.
+   */
+  public TMD get(TitleVersion titleVersion) {
+    return get(titleVersion.getTitleId().toLong(), titleVersion.getVersion());
+  }
+
+  /**
+   * Find all versions of a title. The handler is called with a chunk position of -1, newest added TMD first.
+   *
+   * @param titleId The title ID as long.
+   * @param handler The handler receiving the TMDs.
+   * @return The number of TMDs found.
+   */
+  public int findByTitleId(long titleId, IndexMatchHandler handler) {
+    readLock.lock();
+    try {
+      int matches = 0;
+      for (int entry = byTitleId.first(titleId); entry >= 0; entry = byTitleId.next(entry)) {
+        TMD tmd = tmds[byTitleId.value(entry)];
+        if (tmd != null) {
+          handler.onMatch(tmd, -1);
+          matches++;
+        }
+      }
+      return matches;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Get all versions of a title.
+   *
+   * @param titleId The title ID.
+   * @return The TMDs of the title, ordered by title version. Empty, if the title isn't in the index.
+   */
+  public List<TMD> getVersions(TitleId titleId) {
+    final List<TMD> versions = new ArrayList<>();
+    findByTitleId(titleId.toLong(), new IndexMatchHandler() {
+      @Override
+      public void onMatch(TMD tmd, int chunkPosition) {
+        versions.add(tmd);
+      }
+    });
+    Collections.sort(versions, new Comparator<TMD>() {
+      @Override
+      public int compare(TMD a, TMD b) {
+        return Integer.compare(a.getHeader().getTitleVersion() & 0xFFFF, b.getHeader().getTitleVersion() & 0xFFFF);
+      }
+    });
+    return versions;
+  }
+
+  /**
+   * Find all TMDs containing a content ID.
+   *
+   * @param contentId The content ID.
+   * @param handler   The handler receiving the TMDs and the positions of the content chunk records.
+   * @return The number of content chunk records found.
+   */
+  public int findByContentId(int contentId, IndexMatchHandler handler) {
+    readLock.lock();
+    try {
+      int matches = 0;
+      for (int entry = byContentId.first(contentId & 0xFFFFFFFFL); entry >= 0; entry = byContentId.next(entry)) {
+        int content = byContentId.value(entry);
+        TMD tmd = tmds[contentTmds[content]];
+        if (tmd != null) {
+          handler.onMatch(tmd, contentPositions[content]);
+          matches++;
+        }
+      }
+      return matches;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Find all TMDs containing a content with the given SHA256 hash. SHA-1 hashes of Wii and Wii U contents are
+   * stored with zeros up to 0x20 bytes, so they have to be padded the same way.
+   *
+   * @param hash    The array containing the hash.
+   * @param offset  The index of the first byte of the hash (0x20 bytes).
+   * @param handler The handler receiving the TMDs and the positions of the content chunk records.
+   * @return The number of content chunk records found.
+   */
+  public int findByContentHash(byte[] hash, int offset, IndexMatchHandler handler) {
+    if (offset < 0 || offset + HASH_SIZE > hash.length)
+      throw new IllegalArgumentException("A SHA256 hash has 0x20 bytes!");
+
+    readLock.lock();
+    try {
+      int matches = 0;
+      long key = hashKey(hash, offset);
+      for (int entry = byContentHash.first(key); entry >= 0; entry = byContentHash.next(entry)) {
+        int content = byContentHash.value(entry);
+        TMD tmd = tmds[contentTmds[content]];
+        if (tmd != null && hashEquals(content, hash, offset)) {
+          handler.onMatch(tmd, contentPositions[content]);
+          matches++;
+        }
+      }
+      return matches;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private void clearIndex() {
+    tmds             = new TMD[16];
+    titleIds         = new long[16];
+    titleVersions    = new int[16];
+    tmdCount         = 0;
+    liveCount        = 0;
+    contentTmds      = new int[64];
+    contentPositions = new int[64];
+    contentHashes    = new byte[64 * HASH_SIZE];
+    contentCount     = 0;
+    byTitleId        = new LongMultimap();
+    byContentId      = new LongMultimap();
+    byContentHash    = new LongMultimap();
+  }
+
+  /**
+   * Find the ordinal of a TMD in the index. Must be called while locked.
+   */
+  private int find(long titleId, int version) {
+    for (int entry = byTitleId.first(titleId); entry >= 0; entry = byTitleId.next(entry)) {
+      int ordinal = byTitleId.value(entry);
+      if (tmds[ordinal] != null && titleVersions[ordinal] == version)
+        return ordinal;
+    }
+    return -1;
+  }
+
+  /**
+   * Append a TMD and it's contents. Must be called while locked for writing.
+   */
+  private void insert(TMD tmd, long titleId, int version, int[] contentIds, byte[] hashes) {
+    if (tmdCount == tmds.length) {
+      tmds          = Arrays.copyOf(tmds, tmdCount * 2);
+      titleIds      = Arrays.copyOf(titleIds, tmdCount * 2);
+      titleVersions = Arrays.copyOf(titleVersions, tmdCount * 2);
+    }
+    int ordinal = tmdCount++;
+    tmds[ordinal]          = tmd;
+    titleIds[ordinal]      = titleId;
+    titleVersions[ordinal] = version;
+    liveCount++;
+    byTitleId.put(titleId, ordinal);
+
+    int required = contentCount + contentIds.length;
+    if (required > contentTmds.length) {
+      int capacity = Math.max(required, contentTmds.length * 2);
+      contentTmds      = Arrays.copyOf(contentTmds, capacity);
+      contentPositions = Arrays.copyOf(contentPositions, capacity);
+      contentHashes    = Arrays.copyOf(contentHashes, capacity * HASH_SIZE);
+    }
+    for (int i = 0; i < contentIds.length; i++) {
+      int content = contentCount++;
+      contentTmds[content]      = ordinal;
+      contentPositions[content] = i;
+      System.arraycopy(hashes, i * HASH_SIZE, contentHashes, content * HASH_SIZE, HASH_SIZE);
+      byContentId.put(contentIds[i] & 0xFFFFFFFFL, content);
+      byContentHash.put(hashKey(hashes, i * HASH_SIZE), content);
+    }
+  }
+
+  /**
+   * Rebuild the index without the removed TMDs, once they make up the larger part of it. Must be called while locked
+   * for writing.
+   */
+  private void compactIfNeeded() {
+    int removed = tmdCount - liveCount;
+    if (removed < 64 || removed < liveCount)
+      return;
+
+    TMD[] oldTmds          = tmds;
+    long[] oldTitleIds     = titleIds;
+    int[] oldTitleVersions = titleVersions;
+    int oldTmdCount        = tmdCount;
+    clearIndex();
+    for (int i = 0; i < oldTmdCount; i++) {
+      TMD tmd = oldTmds[i];
+      if (tmd == null)
+        continue;
+      List<ContentChunkRecord> records = tmd.getContentChunkRecords();
+      int[] contentIds = new int[records.size()];
+      byte[] hashes    = new byte[records.size() * HASH_SIZE];
+      readContents(records, contentIds, hashes);
+      insert(tmd, oldTitleIds[i], oldTitleVersions[i], contentIds, hashes);
+    }
+  }
+
+  private static void readContents(List<ContentChunkRecord> records, int[] contentIds, byte[] hashes) {
+    if (records instanceof ContentChunkRecordList) {
+      // Without creating a ContentChunkRecord per content
+      ContentChunkRecordList list = (ContentChunkRecordList) records;
+      for (int i = 0; i < contentIds.length; i++) {
+        contentIds[i] = list.getContentId(i);
+        list.getSha256hash(i, hashes, i * HASH_SIZE);
+      }
+    } else {
+      for (int i = 0; i < contentIds.length; i++) {
+        ContentChunkRecord record = records.get(i);
+        contentIds[i] = record.getContentId();
+        byte[] hash = record.getSha256hash().toBytes();
+        System.arraycopy(hash, 0, hashes, i * HASH_SIZE, Math.min(hash.length, HASH_SIZE));
+      }
+    }
+  }
+
+  private boolean hashEquals(int content, byte[] hash, int offset) {
+    int start = content * HASH_SIZE;
+    for (int i = 0; i < HASH_SIZE; i++) {
+      if (contentHashes[start + i] != hash[offset + i])
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * The first 8 bytes of a hash, good enough as a hash key.
+   */
+  private static long hashKey(byte[] hash, int offset) {
+    long key = 0;
+    for (int i = 0; i < 8; i++)
+      key = (key << 8) | (hash[offset + i] & 0xFF);
+    return key;
+  }
+}
@@ -0,0 +1,28 @@
+package pro.schuhmann.tmdlib.metrics;
+
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+/**
+ * A {@link TmdMetrics} ignoring every measurement, so subclasses only have to override the callbacks they are
+ * interested in.
+ */
+public abstract class AbstractTmdMetrics implements TmdMetrics {
+
+  @Override
+  public void onFileRead(long bytes, int reads, long nanos) {
+  }
+
+  @Override
+  public void onSectionDecoded(TmdSection section, int bytes, long nanos) {
+  }
+
+  @Override
+  public void onParsed(SignatureType signatureType, int length, long nanos) {
+  }
+
+  @Override
+  public void onFailure(TmdSection section, SignatureType signatureType, PublicKeyType publicKeyType,
+                        Exception error) {
+  }
+}
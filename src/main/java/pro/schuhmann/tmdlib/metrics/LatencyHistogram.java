@@ -0,0 +1,96 @@
+package pro.schuhmann.tmdlib.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of durations with power of two buckets: Bucket {@code n} counts the durations from
+ * {@code 2^(n-1)} up to {@code 2^n - 1} nanoseconds (bucket 0 counts durations of 0 ns). Coarse, but recording is a
+ * single atomic increment.
+ */
+public final class LatencyHistogram {
+
+  private final AtomicLongArray buckets = new AtomicLongArray(64);
+  private final AtomicLong count        = new AtomicLong();
+  private final AtomicLong totalNanos   = new AtomicLong();
+  private final AtomicLong maxNanos     = new AtomicLong();
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos The duration in nanoseconds, negative durations are counted as 0.
+   */
+  public void record(long nanos) {
+    if (nanos < 0)
+      nanos = 0;
+
+    buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    long max;
+    while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+      // Retry
+    }
+  }
+
+  /**
+   * Get the number of recorded durations.
+   *
+   * @return The number of durations.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Get the sum of all recorded durations.
+   *
+   * @return The sum in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  /**
+   * Get the longest recorded duration.
+   *
+   * @return The duration in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Get the number of durations in a bucket.
+   *
+   * @param bucket The bucket (0 to 63).
+   * @return The number of durations.
+   */
+  public long getBucketCount(int bucket) {
+    return buckets.get(bucket);
+  }
+
+  /**
+   * Get an upper bound of a percentile: The upper end of the bucket, which contains the percentile.
+   *
+   * @param percentile The percentile (0.0 to 100.0), like 99.0.
+   * @return The upper bound in nanoseconds or 0, if nothing was recorded.
+   */
+  public long getPercentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("A percentile is between 0 and 100: " + percentile);
+
+    long total = count.get();
+    if (total == 0)
+      return 0;
+
+    long rank = (long) Math.ceil(total * percentile / 100.0);
+    long seen = 0;
+    for (int bucket = 0; bucket < 64; bucket++) {
+      seen += buckets.get(bucket);
+      if (seen >= rank && seen > 0)
+        return Math.min(bucket == 0 ? 0 : (1L << bucket) - 1, maxNanos.get());
+    }
+    return maxNanos.get();
+  }
+}
@@ -0,0 +1,197 @@
+package pro.schuhmann.tmdlib.metrics;
+
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects all measurements in plain Java counters and {@link LatencyHistogram}s, to be exported to any monitoring
+ * system with {@link #toMap()}:
+ * <pre>{@code
+ * SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+ * TmdOptions options = TmdOptions.DEFAULT.metrics(metrics);
+ * ...
+ * for (Map.Entry<String, Long> metric : metrics.toMap().entrySet())
+ *   System.out.println(metric.getKey() + " = " + metric.getValue());
+ * }</pre>
+ */
+public class SimpleTmdMetrics implements TmdMetrics {
+
+  private final AtomicLong bytesRead = new AtomicLong();
+  private final AtomicLong reads     = new AtomicLong();
+
+  private final AtomicLongArray sectionBytes    = new AtomicLongArray(TmdSection.values().length);
+  private final LatencyHistogram[] sectionTimes = new LatencyHistogram[TmdSection.values().length];
+
+  private final AtomicLongArray parsed    = new AtomicLongArray(SignatureType.values().length);
+  private final LatencyHistogram parseTime = new LatencyHistogram();
+
+  // "section/signature type/public key type/exception" -> count
+  private final ConcurrentMap<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+  /**
+   * Create new, empty metrics.
+   */
+  public SimpleTmdMetrics() {
+    for (int i = 0; i < sectionTimes.length; i++)
+      sectionTimes[i] = new LatencyHistogram();
+  }
+
+  @Override
+  public void onFileRead(long bytes, int reads, long nanos) {
+    this.bytesRead.addAndGet(bytes);
+    this.reads.addAndGet(reads);
+    onSectionDecoded(TmdSection.FILE, (int) Math.min(bytes, Integer.MAX_VALUE), nanos);
+  }
+
+  @Override
+  public void onSectionDecoded(TmdSection section, int bytes, long nanos) {
+    sectionBytes.addAndGet(section.ordinal(), bytes);
+    sectionTimes[section.ordinal()].record(nanos);
+  }
+
+  @Override
+  public void onParsed(SignatureType signatureType, int length, long nanos) {
+    parsed.incrementAndGet(signatureType.ordinal());
+    parseTime.record(nanos);
+  }
+
+  @Override
+  public void onFailure(TmdSection section, SignatureType signatureType, PublicKeyType publicKeyType,
+                        Exception error) {
+    String reason = section + "/" + (signatureType == null ? "UNKNOWN" : signatureType.name()) + "/"
+        + (publicKeyType == null ? "UNKNOWN" : publicKeyType.name()) + "/" + error.getClass().getSimpleName();
+    AtomicLong count = failures.get(reason);
+    if (count == null) {
+      AtomicLong newCount = new AtomicLong();
+      count = failures.putIfAbsent(reason, newCount);
+      if (count == null)
+        count = newCount;
+    }
+    count.incrementAndGet();
+  }
+
+  /**
+   * Get the number of successfully parsed TMDs.
+   *
+   * @return The number of TMDs.
+   */
+  public long getParsedCount() {
+    long count = 0;
+    for (int i = 0; i < parsed.length(); i++)
+      count += parsed.get(i);
+    return count;
+  }
+
+  /**
+   * Get the number of successfully parsed TMDs with a signature type.
+   *
+   * @param signatureType The signature type.
+   * @return The number of TMDs.
+   */
+  public long getParsedCount(SignatureType signatureType) {
+    return parsed.get(signatureType.ordinal());
+  }
+
+  /**
+   * Get the durations of the TMD constructors.
+   *
+   * @return The histogram.
+   */
+  public LatencyHistogram getParseTime() {
+    return parseTime;
+  }
+
+  /**
+   * Get the durations of reading, decoding or checking a section.
+   *
+   * @param section The section.
+   * @return The histogram.
+   */
+  public LatencyHistogram getSectionTime(TmdSection section) {
+    return sectionTimes[section.ordinal()];
+  }
+
+  /**
+   * Get the total size of all decoded sections of a kind, a rough estimate of the memory allocated for them.
+   *
+   * @param section The section.
+   * @return The size in bytes.
+   */
+  public long getSectionBytes(TmdSection section) {
+    return sectionBytes.get(section.ordinal());
+  }
+
+  /**
+   * Get the number of bytes read from TMD files.
+   *
+   * @return The number of bytes.
+   */
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+
+  /**
+   * Get the number of read calls (system calls) on TMD files.
+   *
+   * @return The number of read calls.
+   */
+  public long getReadCount() {
+    return reads.get();
+  }
+
+  /**
+   * Get the number of failures, by reason.
+   *
+   * @return A sorted copy of the failure counts, keyed by "section/signature type/public key type/exception class",
+   * like "HEADER/RSA_2048_SHA256/UNKNOWN/EOFException". The public key type is only known for failed certificates.
+   */
+  public Map<String, Long> getFailures() {
+    Map<String, Long> copy = new TreeMap<>();
+    for (Map.Entry<String, AtomicLong> failure : failures.entrySet())
+      copy.put(failure.getKey(), failure.getValue().get());
+    return copy;
+  }
+
+  /**
+   * Get all metrics as flat map, e.g. for exporting them. All durations are in nanoseconds, percentiles are upper
+   * bounds (see {@link LatencyHistogram#getPercentileNanos(double)}).
+   *
+   * @return A sorted map like {"tmd.file.bytes" = 4708, "tmd.header.count" = 1, "tmd.header.p99" = 2047, ...}.
+   */
+  public Map<String, Long> toMap() {
+    Map<String, Long> map = new TreeMap<>();
+    map.put("tmd.file.bytes", getBytesRead());
+    map.put("tmd.file.reads", getReadCount());
+    putHistogram(map, "tmd.parse", parseTime);
+    for (SignatureType signatureType : SignatureType.values())
+      map.put("tmd.parse." + name(signatureType) + ".count", getParsedCount(signatureType));
+    for (TmdSection section : TmdSection.values()) {
+      putHistogram(map, "tmd." + name(section), getSectionTime(section));
+      if (section != TmdSection.FILE)
+        map.put("tmd." + name(section) + ".bytes", getSectionBytes(section));
+    }
+    for (Map.Entry<String, Long> failure : getFailures().entrySet())
+      map.put("tmd.failures." + failure.getKey().replace('/', '.'), failure.getValue());
+    return map;
+  }
+
+  private static void putHistogram(Map<String, Long> map, String prefix, LatencyHistogram histogram) {
+    map.put(prefix + ".count", histogram.getCount());
+    map.put(prefix + ".nanos", histogram.getTotalNanos());
+    map.put(prefix + ".max", histogram.getMaxNanos());
+    map.put(prefix + ".p50", histogram.getPercentileNanos(50));
+    map.put(prefix + ".p99", histogram.getPercentileNanos(99));
+  }
+
+  private static String name(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT);
+  }
+}
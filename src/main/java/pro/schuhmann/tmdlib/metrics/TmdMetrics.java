@@ -0,0 +1,61 @@
+package pro.schuhmann.tmdlib.metrics;
+
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+/**
+ * Receives measurements of parsing TMDs, set by {@link TmdOptions#metrics(TmdMetrics)}. All methods are called by
+ * the parsing threads, so implementations have to be thread-safe and fast. Extend {@link AbstractTmdMetrics} to
+ * receive only some of the measurements, or use {@link SimpleTmdMetrics} to collect all of them.
+ * <p>
+ * By default {@link #NONE} is used. It ignores everything, and the parser doesn't even measure the time then.
+ */
+public interface TmdMetrics {
+
+  /**
+   * Ignores all measurements.
+   */
+  TmdMetrics NONE = new AbstractTmdMetrics() {
+  };
+
+  /**
+   * Called after reading from a TMD file.
+   *
+   * @param bytes The number of bytes read.
+   * @param reads The number of read calls on the file (each one is a system call).
+   * @param nanos The time spent opening and reading the file.
+   */
+  void onFileRead(long bytes, int reads, long nanos);
+
+  /**
+   * Called after a section of a TMD was decoded (or checked, for {@link TmdSection#INTEGRITY}). In lazy mode, this
+   * happens when the section is requested for the first time.
+   *
+   * @param section The section.
+   * @param bytes   The size of the section in the TMD. The decoded objects copy them, so this is a rough estimate of
+   *                the memory allocated.
+   * @param nanos   The time spent decoding.
+   */
+  void onSectionDecoded(TmdSection section, int bytes, long nanos);
+
+  /**
+   * Called after the TMD constructor finished successfully.
+   *
+   * @param signatureType The signature type of the TMD.
+   * @param length        The length of the TMD in bytes.
+   * @param nanos         The time spent by the constructor, without reading the file.
+   */
+  void onParsed(SignatureType signatureType, int length, long nanos);
+
+  /**
+   * Called when reading, decoding or checking a section failed.
+   *
+   * @param section       The failed section.
+   * @param signatureType The signature type of the TMD or {@code null}, if it isn't known (yet).
+   * @param publicKeyType The public key type of the failed certificate (section {@link TmdSection#CERTIFICATES}) or
+   *                      {@code null}, if it isn't known or another section failed.
+   * @param error         The exception, which is thrown afterwards.
+   */
+  void onFailure(TmdSection section, SignatureType signatureType, PublicKeyType publicKeyType, Exception error);
+}
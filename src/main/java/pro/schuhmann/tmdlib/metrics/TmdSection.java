@@ -0,0 +1,16 @@
+package pro.schuhmann.tmdlib.metrics;
+
+/**
+ * The steps of parsing a TMD, as reported to {@link TmdMetrics}.
+ */
+public enum TmdSection {
+
+  FILE,                  // Reading the TMD file
+  STRUCTURE,             // Validating the structure, see TmdOptions.validateStructure(boolean)
+  SIGNATURE_DATA,
+  HEADER,
+  CONTENT_INFO_RECORDS,
+  CONTENT_CHUNK_RECORDS,
+  CERTIFICATES,
+  INTEGRITY              // Checking the hashes, see TmdOptions.verifyIntegrity(boolean)
+}
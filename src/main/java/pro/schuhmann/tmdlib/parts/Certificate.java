@@ -1,6 +1,7 @@
 package pro.schuhmann.tmdlib.parts;
 
 import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdFormatException;
 import pro.schuhmann.tmdlib.enums.PublicKeyType;
 
 import java.io.IOException;
@@ -14,6 +15,7 @@ public class Certificate {
   private final String issuer;
   private final String name;
   private final PublicKey publicKey;
+  private final int size;
 
   /**
    * Create a new certificate object.
@@ -30,10 +32,12 @@ public class Certificate {
 
     PublicKeyType pkt  = PublicKeyType.getByValue(tmdFile.getInt(newOffset + 0x40));
     if (pkt == null)
-      throw new NullPointerException("The public key type couldn't be identified! Make sure the given file is valid.");
+      throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_PUBLIC_KEY_TYPE,
+          "The public key type couldn't be identified! Make sure the given file is valid.");
 
     this.name          = tmdFile.getString(newOffset + 0x44, 0x40);
     this.publicKey     = new PublicKey(tmdFile, newOffset + 0x88, pkt);
+    this.size          = newOffset + 0x88 + pkt.getKeySize() + pkt.getPaddingSize() - certificateOffsetInFile;
   }
 
   /**
@@ -71,4 +75,14 @@ public class Certificate {
   public PublicKey getPublicKey() {
     return publicKey;
   }
+
+  /**
+   * Get the size of the certificate in the file, including the signature data and the padding of the public key.
+   * The signed part of the certificate starts after the signature data and ends at the end of the certificate.
+   *
+   * @return The size in bytes.
+   */
+  public int getSize() {
+    return size;
+  }
 }
@@ -24,11 +24,23 @@ public class ContentChunkRecord {
    * @throws IOException An error occurred while reading the TMD file.
    */
   public ContentChunkRecord(TmdFileReader tmdFile, int contentChunkOffsetInFile) throws IOException {
+    this(tmdFile, contentChunkOffsetInFile, 0x20);
+  }
+
+  /**
+   * Create a new content chunk record object with a hash of the given size.
+   *
+   * @param tmdFile A {@link TmdFileReader} pointing to a TMD file.
+   * @param contentChunkOffsetInFile The offset in the TMD file, where the content chunk records are located.
+   * @param hashSize The size of the content hash, 0x20 for SHA-256 or 0x14 for SHA-1.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public ContentChunkRecord(TmdFileReader tmdFile, int contentChunkOffsetInFile, int hashSize) throws IOException {
     this.contentId    = tmdFile.getInt(contentChunkOffsetInFile);
     this.contentIndex = tmdFile.getShort(contentChunkOffsetInFile + 0x4);
     this.contentType  = tmdFile.getShort(contentChunkOffsetInFile + 0x6);
     this.contentSize  = tmdFile.getLong(contentChunkOffsetInFile + 0x8);
-    this.sha256hash   = tmdFile.getHexString(contentChunkOffsetInFile + 0x10, 0x20);
+    this.sha256hash   = tmdFile.getHexString(contentChunkOffsetInFile + 0x10, hashSize);
   }
 
   /**
@@ -68,9 +80,9 @@ public class ContentChunkRecord {
   }
 
   /**
-   * Get the SHA256 hash of the content chunk record.
+   * Get the SHA256 hash of the content chunk record. Wii and Wii U TMDs contain a SHA-1 hash instead.
    *
-   * @return A HexString containing a SHA256 hash.
+   * @return A HexString containing a SHA256 hash (or SHA-1 hash).
    */
   public HexString getSha256hash() {
     return sha256hash;
@@ -0,0 +1,156 @@
+package pro.schuhmann.tmdlib.parts;
+
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A compact, read-only list of {@link ContentChunkRecord}s. Instead of holding one object per content chunk, the raw
+ * content chunk records (0x30 bytes each, 0x24 bytes in Wii TMDs) are copied into a single byte array.
+ * {@link #get(int)} creates a light {@link ContentChunkRecord} from these bytes on every call, the primitive getters
+ * like {@link #getContentId(int)} don't allocate anything at all.
+ */
+public class ContentChunkRecordList extends AbstractList<ContentChunkRecord> implements RandomAccess {
+
+  /**
+   * The size of a single content chunk record of a 3DS or Wii U TMD in bytes.
+   */
+  public static final int RECORD_SIZE = 0x30;
+
+  private final byte[] records;
+  private final int size;
+  private final int recordSize;
+  private final int hashSize;
+  private final TmdFileReader recordReader;
+
+  /**
+   * Create a new content chunk record list by copying the content chunk records from a TMD file.
+   *
+   * @param tmdFile A {@link TmdFileReader} pointing to a TMD file.
+   * @param contentChunkOffsetInFile The offset in the TMD file, where the content chunk records are located.
+   * @param contentCount The number of content chunk records.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public ContentChunkRecordList(TmdFileReader tmdFile, int contentChunkOffsetInFile, int contentCount)
+      throws IOException {
+    this(tmdFile, contentChunkOffsetInFile, contentCount, TmdLayout.CTR);
+  }
+
+  /**
+   * Create a new content chunk record list by copying the content chunk records of a TMD with the given layout.
+   *
+   * @param tmdFile A {@link TmdFileReader} pointing to a TMD file.
+   * @param contentChunkOffsetInFile The offset in the TMD file, where the content chunk records are located.
+   * @param contentCount The number of content chunk records.
+   * @param layout The layout of the TMD, which defines the record and hash size.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public ContentChunkRecordList(TmdFileReader tmdFile, int contentChunkOffsetInFile, int contentCount,
+                                TmdLayout layout) throws IOException {
+    this.size         = contentCount;
+    this.recordSize   = layout.getContentChunkRecordSize();
+    this.hashSize     = layout.getContentHashSize();
+    this.records      = tmdFile.getBytes(contentChunkOffsetInFile, contentCount * recordSize);
+    this.recordReader = TmdFileReader.forByteArray(records);
+  }
+
+  @Override
+  public ContentChunkRecord get(int index) {
+    checkIndex(index);
+    try {
+      return new ContentChunkRecord(recordReader, index * recordSize, hashSize);
+    } catch (IOException e) {
+      // Can't happen, all records are in memory and the index is checked.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the content ID of a content chunk record, without creating a {@link ContentChunkRecord}.
+   *
+   * @param index The index of the content chunk record in this list.
+   * @return The content ID.
+   */
+  public int getContentId(int index) {
+    checkIndex(index);
+    return readInt(index * recordSize);
+  }
+
+  /**
+   * Get the content index of a content chunk record, without creating a {@link ContentChunkRecord}.
+   *
+   * @param index The index of the content chunk record in this list.
+   * @return The content index.
+   */
+  public short getContentIndex(int index) {
+    checkIndex(index);
+    return readShort(index * recordSize + 0x4);
+  }
+
+  /**
+   * Get the content type of a content chunk record, without creating a {@link ContentChunkRecord}.
+   *
+   * @param index The index of the content chunk record in this list.
+   * @return The content type.
+   */
+  public short getContentType(int index) {
+    checkIndex(index);
+    return readShort(index * recordSize + 0x6);
+  }
+
+  /**
+   * Get the content size of a content chunk record, without creating a {@link ContentChunkRecord}.
+   *
+   * @param index The index of the content chunk record in this list.
+   * @return The content size.
+   */
+  public long getContentSize(int index) {
+    checkIndex(index);
+    final int offset = index * recordSize + 0x8;
+    return ((long) readInt(offset) << 32) | (readInt(offset + 0x4) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Copy the SHA256 hash of a content chunk record into a byte array, without creating a {@link ContentChunkRecord}.
+   * Wii and Wii U TMDs contain SHA-1 hashes, only {@link #getHashSize()} bytes are copied for them.
+   *
+   * @param index       The index of the content chunk record in this list.
+   * @param destination The byte array to copy the hash to. At least 0x20 bytes long, starting at {@code offset}.
+   * @param offset      The start index in the destination array.
+   */
+  public void getSha256hash(int index, byte[] destination, int offset) {
+    checkIndex(index);
+    System.arraycopy(records, index * recordSize + 0x10, destination, offset, hashSize);
+  }
+
+  /**
+   * Get the size of the content hashes in this list.
+   *
+   * @return 0x20 for SHA-256 hashes (3DS), 0x14 for SHA-1 hashes (Wii and Wii U).
+   */
+  public int getHashSize() {
+    return hashSize;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+
+  private short readShort(int i) {
+    return (short) ((records[i] << 8) | (records[i + 1] & 0xFF));
+  }
+
+  private int readInt(int i) {
+    return (records[i] << 24) | ((records[i + 1] & 0xFF) << 16) | ((records[i + 2] & 0xFF) << 8)
+        | (records[i + 3] & 0xFF);
+  }
+}
@@ -1,7 +1,9 @@
 package pro.schuhmann.tmdlib.parts;
 
 import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.TitleId;
 import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
 
 import java.io.IOException;
 
@@ -16,6 +18,7 @@ public class Header {
   private final byte signerCrlVersion;
   private final long systemVersion;
   private final HexString titleId;
+  private final TitleId titleIdValue;
   private final int titleType;
   private final short groupId;
   private final int saveDataSize;
@@ -35,12 +38,26 @@ public class Header {
    * @throws IOException An error occurred while reading the TMD file.
    */
   public Header(TmdFileReader tmdFile, final int headerOffsetInFile) throws IOException {
+    this(tmdFile, headerOffsetInFile, TmdLayout.CTR);
+  }
+
+  /**
+   * Create a new header object of a TMD with the given layout. Wii TMDs have no content info records, so there's no
+   * hash of them in the header either.
+   *
+   * @param tmdFile A TmdFileReader pointing to a TMD file.
+   * @param headerOffsetInFile The offset in the TMD file, where the header is located.
+   * @param layout The layout of the TMD.
+   * @throws IOException An error occurred while reading the TMD file.
+   */
+  public Header(TmdFileReader tmdFile, final int headerOffsetInFile, TmdLayout layout) throws IOException {
     this.signatureIssuer        = tmdFile.getString(headerOffsetInFile, 0x40);
     this.version                = tmdFile.getByte(headerOffsetInFile + 0x40);
     this.caCrlVersion           = tmdFile.getByte(headerOffsetInFile + 0x41);
     this.signerCrlVersion       = tmdFile.getByte(headerOffsetInFile + 0x42);
     this.systemVersion          = tmdFile.getLong(headerOffsetInFile + 0x44);
     this.titleId                = tmdFile.getHexString(headerOffsetInFile + 0x4C, 0x8);
+    this.titleIdValue           = new TitleId(tmdFile.getLong(headerOffsetInFile + 0x4C));
     this.titleType              = tmdFile.getInt(headerOffsetInFile + 0x54);
     this.groupId                = tmdFile.getShort(headerOffsetInFile + 0x58);
     this.saveDataSize           = tmdFile.getInt(headerOffsetInFile + 0x5A);
@@ -50,7 +67,8 @@ public class Header {
     this.titleVersion           = tmdFile.getShort(headerOffsetInFile + 0x9C);
     this.contentCount           = tmdFile.getShort(headerOffsetInFile + 0x9E);
     this.bootContent            = tmdFile.getShort(headerOffsetInFile + 0xA0);
-    this.ContentInfoRecordsHash = tmdFile.getHexString(headerOffsetInFile + 0xA4, 0x20);
+    this.ContentInfoRecordsHash = layout.getContentInfoRecordCount() != 0
+        ? tmdFile.getHexString(headerOffsetInFile + 0xA4, 0x20) : null;
   }
 
   /**
@@ -113,6 +131,15 @@ public class Header {
     return titleId;
   }
 
+  /**
+   * Get the title ID as {@link TitleId}, which is a lot cheaper to compare, sort and hash than a {@link HexString}.
+   *
+   * @return The title ID.
+   */
+  public TitleId getTitleIdValue() {
+    return titleIdValue;
+  }
+
   /**
    * Get the title type. <br>
    * TODO: More investigation - Possibly relating to Title ID: UID Title type?
@@ -203,7 +230,7 @@ public class Header {
   /**
    * Get the SHA256 hash of the content info records.
    *
-   * @return A HexString containing a SHA256 hash.
+   * @return A HexString containing a SHA256 hash or {@code null} for Wii TMDs.
    */
   public HexString getContentInfoRecordsHash() {
     return ContentInfoRecordsHash;
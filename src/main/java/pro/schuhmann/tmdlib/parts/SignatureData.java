@@ -2,6 +2,7 @@ package pro.schuhmann.tmdlib.parts;
 
 import pro.schuhmann.tmdlib.HexString;
 import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdFormatException;
 import pro.schuhmann.tmdlib.enums.SignatureType;
 
 import java.io.IOException;
@@ -25,7 +26,8 @@ public class SignatureData {
     this.signatureType = SignatureType.getByValue(tmdFile.getInt(signatureDataOffsetInFile));
 
     if (signatureType == null)
-      throw new NullPointerException("The signature type couldn't be identified! Make sure the given file is valid.");
+      throw new TmdFormatException(TmdFormatException.Problem.UNKNOWN_SIGNATURE_TYPE,
+          "The signature type couldn't be identified! Make sure the given file is valid.");
 
     this.signature = tmdFile.getHexString(signatureDataOffsetInFile + 0x4, signatureType.getSignatureSize());
   }
@@ -0,0 +1,409 @@
+package pro.schuhmann.tmdlib.snapshot;
+
+import pro.schuhmann.tmdlib.MappedTmdArchive;
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecordList;
+import pro.schuhmann.tmdlib.parts.ContentInfoRecord;
+import pro.schuhmann.tmdlib.parts.Header;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of pre-parsed TMD metadata, written by {@link TmdSnapshotWriter}. The snapshot file is memory mapped, so
+ * opening it is almost free, no matter how many TMDs it contains - nothing is parsed again.
+ * <pre>{@code
+ * try (TmdSnapshot snapshot = new TmdSnapshot(snapshotFile)) {
+ *   for (int i = 0; i < snapshot.size(); i++) {
+ *     TitleId titleId = snapshot.getTitleId(i);
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ * Entries are addressed by their index. The primitive getters read directly from the mapping and don't allocate
+ * anything, {@link #getHeader(int)} and friends decode the stored parts with the usual classes.
+ *
+ * File format (big endian):
+ * <pre>
+ * 0x00  File header: magic "TMDS", format version, entry count, reserved, offset of the data area (long)
+ * 0x20  Entry table: one entry of 0x40 bytes per TMD, see the ENTRY_* offsets
+ * ...   Data area: per TMD the raw header, the used content info records (0x24 bytes each), the content chunk
+ *       records and the path of the source file (UTF-8)
+ * </pre>
+ * The sizes of the header and the content chunk records depend on the {@link TmdLayout} of the TMD, which is stored in
+ * the entry (see {@link #getLayout(int)}). Wii TMDs have no content info records.
+ *
+ * Instances can be shared between threads.
+ */
+public class TmdSnapshot implements Closeable {
+
+  static final int MAGIC          = 0x544D4453; // "TMDS"
+  static final int FORMAT_VERSION = 2;
+  static final int HEADER_SIZE    = 0x20;
+  static final int ENTRY_SIZE     = 0x40;
+
+  static final int ENTRY_TITLE_ID           = 0x00;
+  static final int ENTRY_SOURCE_SIZE        = 0x08;
+  static final int ENTRY_SOURCE_MODIFIED    = 0x10;
+  static final int ENTRY_DATA_OFFSET        = 0x18;
+  static final int ENTRY_SYSTEM_VERSION     = 0x20;
+  static final int ENTRY_TITLE_TYPE         = 0x28;
+  static final int ENTRY_SIGNATURE_TYPE     = 0x2C;
+  static final int ENTRY_TITLE_VERSION      = 0x30;
+  static final int ENTRY_CONTENT_COUNT      = 0x32;
+  static final int ENTRY_BOOT_CONTENT       = 0x34;
+  static final int ENTRY_INFO_RECORD_COUNT  = 0x36;
+  static final int ENTRY_PATH_LENGTH        = 0x38;
+  static final int ENTRY_LAYOUT             = 0x3A;
+
+  private final MappedTmdArchive data;
+  private final ByteBuffer entries;
+  private final int size;
+  private volatile Map<String, Integer> pathIndex;
+
+  /**
+   * Open and map a snapshot file.
+   *
+   * @param snapshotFile A {@link File} pointing to the snapshot file.
+   * @throws IOException The file couldn't be opened or it isn't a snapshot of a supported version.
+   */
+  public TmdSnapshot(File snapshotFile) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "r")) {
+      FileChannel channel = file.getChannel();
+      if (channel.size() < HEADER_SIZE)
+        throw new IOException(snapshotFile + " isn't a TMD snapshot.");
+
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt(0x0) != MAGIC)
+        throw new IOException(snapshotFile + " isn't a TMD snapshot.");
+      if (header.getInt(0x4) != FORMAT_VERSION)
+        throw new IOException("The TMD snapshot " + snapshotFile + " has the unsupported version "
+            + header.getInt(0x4) + ".");
+
+      this.size = header.getInt(0x8);
+      long tableSize = (long) size * ENTRY_SIZE;
+      if (size < 0 || HEADER_SIZE + tableSize > channel.size() || tableSize > Integer.MAX_VALUE)
+        throw new IOException("The TMD snapshot " + snapshotFile + " is truncated.");
+      this.entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, tableSize);
+    }
+    this.data = new MappedTmdArchive(snapshotFile);
+  }
+
+  /**
+   * Get the number of TMDs in the snapshot.
+   *
+   * @return The number of entries.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Find the entry of a source file.
+   *
+   * @param sourceFile The TMD file.
+   * @return The index of the entry or -1, if the file isn't part of the snapshot.
+   */
+  public int indexOf(File sourceFile) {
+    Map<String, Integer> index = pathIndex;
+    if (index == null) {
+      // Only built on demand, reading all paths isn't needed to serve queries by index
+      index = new HashMap<>(size * 2);
+      for (int i = 0; i < size; i++)
+        index.put(getPath(i), i);
+      pathIndex = index;
+    }
+    Integer entry = index.get(sourceFile.getAbsolutePath());
+    return entry != null ? entry : -1;
+  }
+
+  /**
+   * Check whether an entry is still up to date, by comparing the size and the modification time of the source file
+   * with the ones stored in the snapshot.
+   *
+   * @param entry      The index of the entry.
+   * @param sourceFile The TMD file.
+   * @return {@code true} if the source file wasn't changed.
+   */
+  public boolean isCurrent(int entry, File sourceFile) {
+    return isCurrent(entry, sourceFile.length(), sourceFile.lastModified());
+  }
+
+  /**
+   * Check whether an entry is still up to date.
+   *
+   * @param entry        The index of the entry.
+   * @param size         The current size of the source file.
+   * @param lastModified The current modification time of the source file.
+   * @return {@code true} if size and modification time match the ones stored in the snapshot.
+   */
+  public boolean isCurrent(int entry, long size, long lastModified) {
+    return getSourceSize(entry) == size && getSourceLastModified(entry) == lastModified;
+  }
+
+  /**
+   * Get the absolute path of the source file of an entry.
+   *
+   * @param entry The index of the entry.
+   * @return The path.
+   */
+  public String getPath(int entry) {
+    int length = getUnsignedShort(entry, ENTRY_PATH_LENGTH);
+    try {
+      byte[] path = data.getReader(getDataOffset(entry) + getDataLength(entry) - length, length).getBytes(0, length);
+      return new String(path, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw corrupt(entry, e);
+    }
+  }
+
+  /**
+   * Get the size of the source file, when the snapshot was written.
+   *
+   * @param entry The index of the entry.
+   * @return The size in bytes.
+   */
+  public long getSourceSize(int entry) {
+    return entries.getLong(offset(entry) + ENTRY_SOURCE_SIZE);
+  }
+
+  /**
+   * Get the modification time of the source file, when the snapshot was written.
+   *
+   * @param entry The index of the entry.
+   * @return The modification time, see {@link File#lastModified()}.
+   */
+  public long getSourceLastModified(int entry) {
+    return entries.getLong(offset(entry) + ENTRY_SOURCE_MODIFIED);
+  }
+
+  /**
+   * Get the title ID.
+   *
+   * @param entry The index of the entry.
+   * @return The title ID.
+   */
+  public TitleId getTitleId(int entry) {
+    return new TitleId(getTitleIdValue(entry));
+  }
+
+  /**
+   * Get the title ID as long, without creating an object.
+   *
+   * @param entry The index of the entry.
+   * @return The title ID.
+   */
+  public long getTitleIdValue(int entry) {
+    return entries.getLong(offset(entry) + ENTRY_TITLE_ID);
+  }
+
+  /**
+   * Get the title version.
+   *
+   * @param entry The index of the entry.
+   * @return The title version.
+   */
+  public short getTitleVersion(int entry) {
+    return entries.getShort(offset(entry) + ENTRY_TITLE_VERSION);
+  }
+
+  /**
+   * Get the title type.
+   *
+   * @param entry The index of the entry.
+   * @return The title type.
+   */
+  public int getTitleType(int entry) {
+    return entries.getInt(offset(entry) + ENTRY_TITLE_TYPE);
+  }
+
+  /**
+   * Get the required system version.
+   *
+   * @param entry The index of the entry.
+   * @return The system version.
+   */
+  public long getSystemVersion(int entry) {
+    return entries.getLong(offset(entry) + ENTRY_SYSTEM_VERSION);
+  }
+
+  /**
+   * Get the number of contents.
+   *
+   * @param entry The index of the entry.
+   * @return The content count (unsigned).
+   */
+  public int getContentCount(int entry) {
+    return getUnsignedShort(entry, ENTRY_CONTENT_COUNT);
+  }
+
+  /**
+   * Get the boot content.
+   *
+   * @param entry The index of the entry.
+   * @return The index of the boot content.
+   */
+  public short getBootContent(int entry) {
+    return entries.getShort(offset(entry) + ENTRY_BOOT_CONTENT);
+  }
+
+  /**
+   * Get the value of the signature type of the TMD.
+   *
+   * @param entry The index of the entry.
+   * @return The signature type value, see {@link pro.schuhmann.tmdlib.enums.SignatureType#getByValue(int)}.
+   */
+  public int getSignatureType(int entry) {
+    return entries.getInt(offset(entry) + ENTRY_SIGNATURE_TYPE);
+  }
+
+  /**
+   * Get the layout of the TMD, which defines the sizes of the stored header and records.
+   *
+   * @param entry The index of the entry.
+   * @return The layout.
+   */
+  public TmdLayout getLayout(int entry) {
+    TmdLayout[] layouts = TmdLayout.values();
+    int layout = entries.get(offset(entry) + ENTRY_LAYOUT) & 0xFF;
+    if (layout >= layouts.length)
+      throw new IllegalStateException("The entry " + entry + " of the TMD snapshot has the unknown layout " + layout
+          + ".");
+    return layouts[layout];
+  }
+
+  /**
+   * Decode the header of an entry.
+   *
+   * @param entry The index of the entry.
+   * @return The header.
+   */
+  public Header getHeader(int entry) {
+    TmdLayout layout = getLayout(entry);
+    try {
+      return new Header(data.getReader(getDataOffset(entry), layout.getHeaderSize()), 0, layout);
+    } catch (IOException e) {
+      throw corrupt(entry, e);
+    }
+  }
+
+  /**
+   * Decode the used content info records of an entry.
+   *
+   * @param entry The index of the entry.
+   * @return The content info records.
+   */
+  public List<ContentInfoRecord> getContentInfoRecords(int entry) {
+    int count = getUnsignedShort(entry, ENTRY_INFO_RECORD_COUNT);
+    List<ContentInfoRecord> records = new ArrayList<>(count);
+    try {
+      TmdFileReader reader = data.getReader(getDataOffset(entry) + getLayout(entry).getHeaderSize(), count * 0x24);
+      for (int i = 0; i < count; i++)
+        records.add(new ContentInfoRecord(reader, i * 0x24));
+    } catch (IOException e) {
+      throw corrupt(entry, e);
+    }
+    return records;
+  }
+
+  /**
+   * Decode the content chunk records of an entry.
+   *
+   * @param entry The index of the entry.
+   * @return The content chunk records.
+   */
+  public ContentChunkRecordList getContentChunkRecords(int entry) {
+    TmdLayout layout = getLayout(entry);
+    int count        = getContentCount(entry);
+    long start       = getDataOffset(entry) + layout.getHeaderSize()
+        + getUnsignedShort(entry, ENTRY_INFO_RECORD_COUNT) * TmdLayout.CONTENT_INFO_RECORD_SIZE;
+    try {
+      return new ContentChunkRecordList(data.getReader(start, count * layout.getContentChunkRecordSize()), 0, count,
+          layout);
+    } catch (IOException e) {
+      throw corrupt(entry, e);
+    }
+  }
+
+  /**
+   * Get the raw data of an entry, used to copy unchanged entries into a new snapshot.
+   *
+   * @param entry The index of the entry.
+   * @return The data area of the entry.
+   * @throws IOException The entry exceeds the snapshot file.
+   */
+  TmdFileReader getData(int entry) throws IOException {
+    return data.getReader(getDataOffset(entry), getDataLength(entry));
+  }
+
+  /**
+   * Copy the table entry of an entry.
+   *
+   * @param entry       The index of the entry.
+   * @param destination The buffer receiving the 0x40 bytes of the entry.
+   */
+  void getEntry(int entry, byte[] destination) {
+    ByteBuffer view = entries.duplicate();
+    ((Buffer) view).position(offset(entry)); // Cast: Compatibility with Java 8 and below
+    view.get(destination, 0, ENTRY_SIZE);
+  }
+
+  private long getDataOffset(int entry) {
+    return entries.getLong(offset(entry) + ENTRY_DATA_OFFSET);
+  }
+
+  private int getDataLength(int entry) {
+    return getDataLength(getLayout(entry), getUnsignedShort(entry, ENTRY_INFO_RECORD_COUNT), getContentCount(entry),
+        getUnsignedShort(entry, ENTRY_PATH_LENGTH));
+  }
+
+  /**
+   * Calculate the size of the data area of an entry.
+   *
+   * @param layout          The layout of the TMD.
+   * @param infoRecordCount The number of used content info records.
+   * @param contentCount    The number of content chunk records.
+   * @param pathLength      The length of the UTF-8 encoded path.
+   * @return The size in bytes.
+   */
+  static int getDataLength(TmdLayout layout, int infoRecordCount, int contentCount, int pathLength) {
+    return layout.getHeaderSize() + infoRecordCount * TmdLayout.CONTENT_INFO_RECORD_SIZE
+        + contentCount * layout.getContentChunkRecordSize() + pathLength;
+  }
+
+  private int getUnsignedShort(int entry, int field) {
+    return entries.getShort(offset(entry) + field) & 0xFFFF;
+  }
+
+  private int offset(int entry) {
+    if (entry < 0 || entry >= size)
+      throw new IndexOutOfBoundsException("Entry: " + entry + ", size: " + size);
+    return entry * ENTRY_SIZE;
+  }
+
+  private static IllegalStateException corrupt(int entry, IOException e) {
+    return new IllegalStateException("The entry " + entry + " of the TMD snapshot is corrupt.", e);
+  }
+
+  /**
+   * Close the snapshot file. The mapping is released as soon as no decoded part of it is referenced any more.
+   *
+   * @throws IOException An error occurred while closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+}
@@ -0,0 +1,201 @@
+package pro.schuhmann.tmdlib.snapshot;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write a {@link TmdSnapshot} of a list of TMD files. If a previous snapshot is given, the entries of unchanged files
+ * (same size and modification time) are copied from it, so only new and changed files are parsed:
+ * <pre>{@code
+ * TmdSnapshotWriter writer = new TmdSnapshotWriter(previousSnapshot);
+ * writer.write(snapshotFile, tmdFiles);
+ * }</pre>
+ * The snapshot is written to a temporary file first, which replaces the snapshot file at the end. A previous snapshot
+ * may be the one being replaced, but it has to be reopened afterwards to see the new entries.
+ *
+ * Files which couldn't be parsed are left out of the snapshot, see {@link #getFailures()}. A writer isn't thread-safe.
+ */
+public class TmdSnapshotWriter {
+
+  private final TmdSnapshot previous;
+  private int parsedCount;
+  private int reusedCount;
+  private final Map<File, IOException> failures = new LinkedHashMap<>();
+
+  /**
+   * Create a new writer, which parses every file.
+   */
+  public TmdSnapshotWriter() {
+    this(null);
+  }
+
+  /**
+   * Create a new writer, which reuses the unchanged entries of a previous snapshot.
+   *
+   * @param previous The previous snapshot or {@code null}.
+   */
+  public TmdSnapshotWriter(TmdSnapshot previous) {
+    this.previous = previous;
+  }
+
+  /**
+   * Write a snapshot.
+   *
+   * @param snapshotFile The snapshot file, it's replaced if it exists.
+   * @param tmdFiles     The TMD files.
+   * @throws IOException The snapshot couldn't be written.
+   */
+  public void write(File snapshotFile, List<File> tmdFiles) throws IOException {
+    parsedCount = 0;
+    reusedCount = 0;
+    failures.clear();
+
+    File temporaryFile = new File(snapshotFile.getPath() + ".tmp");
+    long dataStart = TmdSnapshot.HEADER_SIZE + (long) tmdFiles.size() * TmdSnapshot.ENTRY_SIZE;
+    ByteBuffer table = ByteBuffer.allocate(tmdFiles.size() * TmdSnapshot.ENTRY_SIZE);
+    byte[] entry = new byte[TmdSnapshot.ENTRY_SIZE];
+    ByteBuffer entryBuffer = ByteBuffer.wrap(entry);
+
+    try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      long position = dataStart;
+      for (File tmdFile : tmdFiles) {
+        byte[] data;
+        String path = tmdFile.getAbsolutePath();
+        int previousEntry = previous != null ? previous.indexOf(tmdFile) : -1;
+        if (previousEntry >= 0 && previous.isCurrent(previousEntry, tmdFile)) {
+          previous.getEntry(previousEntry, entry);
+          TmdFileReader reader = previous.getData(previousEntry);
+          data = reader.getBytes(0, reader.getFileLength());
+          reusedCount++;
+        } else {
+          try {
+            data = parse(tmdFile, path, entryBuffer);
+          } catch (IOException | RuntimeException e) {
+            failures.put(tmdFile, e instanceof IOException ? (IOException) e : new IOException(e));
+            continue;
+          }
+          parsedCount++;
+        }
+
+        entryBuffer.putLong(TmdSnapshot.ENTRY_DATA_OFFSET, position);
+        table.put(entry);
+        position += writeFully(channel, ByteBuffer.wrap(data), position);
+      }
+
+      int entryCount = table.position() / TmdSnapshot.ENTRY_SIZE;
+      ByteBuffer header = ByteBuffer.allocate(TmdSnapshot.HEADER_SIZE);
+      header.putInt(0x0, TmdSnapshot.MAGIC).putInt(0x4, TmdSnapshot.FORMAT_VERSION).putInt(0x8, entryCount)
+          .putLong(0x10, dataStart);
+      table.flip();
+      writeFully(channel, table, TmdSnapshot.HEADER_SIZE);
+      writeFully(channel, header, 0);
+      channel.force(false);
+    }
+
+    try {
+      Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Parse a TMD file and fill the table entry.
+   *
+   * @param tmdFile The TMD file.
+   * @param path    The absolute path of the file.
+   * @param entry   The table entry to fill, except for the data offset.
+   * @return The data area of the entry.
+   * @throws IOException The file couldn't be read or the TMD is invalid.
+   */
+  private static byte[] parse(File tmdFile, String path, ByteBuffer entry) throws IOException {
+    // Read size and modification time first, a change while parsing just causes another parse next time
+    long size         = tmdFile.length();
+    long lastModified = tmdFile.lastModified();
+
+    TMD tmd = new TMD(TmdFileReader.forFile(tmdFile), TmdOptions.DEFAULT.lazy(true));
+    TmdFileReader reader   = tmd.getTmdFileReader();
+    final int headerOffset = tmd.getHeaderOffset();
+    final TmdLayout layout = tmd.getLayout();
+    int infoRecordCount    = tmd.getContentInfoRecords().size();
+    int contentCount       = tmd.getHeader().getContentCount() & 0xFFFF;
+    byte[] pathBytes       = path.getBytes(StandardCharsets.UTF_8);
+    if (pathBytes.length > 0xFFFF)
+      throw new IOException("The path is too long: " + path);
+
+    // Header, used content info records and content chunk records, just like in the TMD, followed by the path
+    int recordsLength = layout.getHeaderSize() + infoRecordCount * TmdLayout.CONTENT_INFO_RECORD_SIZE;
+    int chunksLength  = contentCount * layout.getContentChunkRecordSize();
+    byte[] data = new byte[TmdSnapshot.getDataLength(layout, infoRecordCount, contentCount, pathBytes.length)];
+    reader.getBytes(headerOffset, data, 0, recordsLength);
+    reader.getBytes(headerOffset + layout.getContentChunkRecordsOffset(), data, recordsLength, chunksLength);
+    System.arraycopy(pathBytes, 0, data, recordsLength + chunksLength, pathBytes.length);
+
+    ByteBuffer header = ByteBuffer.wrap(data, 0, layout.getHeaderSize());
+    entry.putLong(TmdSnapshot.ENTRY_TITLE_ID, header.getLong(0x4C))
+        .putLong(TmdSnapshot.ENTRY_SOURCE_SIZE, size)
+        .putLong(TmdSnapshot.ENTRY_SOURCE_MODIFIED, lastModified)
+        .putLong(TmdSnapshot.ENTRY_SYSTEM_VERSION, header.getLong(0x44))
+        .putInt(TmdSnapshot.ENTRY_TITLE_TYPE, header.getInt(0x54))
+        .putInt(TmdSnapshot.ENTRY_SIGNATURE_TYPE, reader.getInt(0))
+        .putShort(TmdSnapshot.ENTRY_TITLE_VERSION, header.getShort(0x9C))
+        .putShort(TmdSnapshot.ENTRY_CONTENT_COUNT, (short) contentCount)
+        .putShort(TmdSnapshot.ENTRY_BOOT_CONTENT, header.getShort(0xA0))
+        .putShort(TmdSnapshot.ENTRY_INFO_RECORD_COUNT, (short) infoRecordCount)
+        .putShort(TmdSnapshot.ENTRY_PATH_LENGTH, (short) pathBytes.length)
+        .put(TmdSnapshot.ENTRY_LAYOUT, (byte) layout.ordinal());
+    return data;
+  }
+
+  private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    int length = buffer.remaining();
+    while (buffer.hasRemaining())
+      position += channel.write(buffer, position);
+    return length;
+  }
+
+  /**
+   * Get the number of files parsed by the last {@link #write(File, List)}.
+   *
+   * @return The number of parsed files.
+   */
+  public int getParsedCount() {
+    return parsedCount;
+  }
+
+  /**
+   * Get the number of entries copied from the previous snapshot by the last {@link #write(File, List)}.
+   *
+   * @return The number of reused entries.
+   */
+  public int getReusedCount() {
+    return reusedCount;
+  }
+
+  /**
+   * Get the files, which couldn't be parsed by the last {@link #write(File, List)}.
+   *
+   * @return The failed files and their errors.
+   */
+  public Map<File, IOException> getFailures() {
+    return Collections.unmodifiableMap(failures);
+  }
+}
@@ -0,0 +1,364 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.cia.CiaFile;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Verify the contents of a CIA against the content chunk records of it's TMD in a single sequential pass over the
+ * content section, without unpacking the CIA first:
+ * <pre>{@code
+ * try (CiaFile cia = new CiaFile(file);
+ *      CiaContentVerifier verifier = new CiaContentVerifier(4, 4 << 20, IoRateLimiter.UNLIMITED)) {
+ *   List<ContentVerificationResult> results = verifier.verify(cia, titleKey, listener);
+ * }
+ * }</pre>
+ * The calling thread reads the content section in large chunks into a fixed pool of direct buffers, a hash thread
+ * routes every chunk to the SHA-256 (or SHA-1) digest of the content(s) it belongs to, using the content offsets of
+ * the CIA. So reading and hashing overlap, the memory use is bounded by the pool and every byte is read from disk
+ * exactly once.
+ *
+ * Contents are usually encrypted (content type flag 0x1). The hashes in the TMD are calculated over the DECRYPTED
+ * contents, so these are decrypted on the fly with the decrypted title key (AES-128-CBC, the IV is the content index).
+ * Without a title key, encrypted contents are skipped with {@link ContentVerificationResult.Status#ENCRYPTED}.
+ *
+ * A verifier must not be used by several threads at once, use one verifier per thread instead.
+ */
+public class CiaContentVerifier implements Closeable {
+
+  // Marks the end of the content section in the queue of filled buffers
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+  private final ExecutorService executor;
+  private final BlockingQueue<ByteBuffer> buffers;
+  private final ByteBuffer decrypted;
+  private final IoRateLimiter rateLimiter;
+
+  /**
+   * Create a new CIA content verifier with it's own hash thread.
+   *
+   * @param bufferCount The number of read buffers, at least 2 to read and hash at the same time.
+   * @param bufferSize  The size of each read buffer, like 4 MiB.
+   * @param rateLimiter Limits the read bandwidth, see {@link IoRateLimiter#UNLIMITED}.
+   */
+  public CiaContentVerifier(int bufferCount, int bufferSize, IoRateLimiter rateLimiter) {
+    if (bufferCount <= 0 || bufferSize <= 0)
+      throw new IllegalArgumentException("bufferCount and bufferSize must be positive.");
+
+    this.executor    = Executors.newSingleThreadExecutor();
+    this.rateLimiter = rateLimiter;
+    this.buffers     = new ArrayBlockingQueue<>(bufferCount);
+    for (int i = 0; i < bufferCount; i++)
+      buffers.add(ByteBuffer.allocateDirect(bufferSize));
+    // Used by the hash thread only, a cipher may return one block more than it gets
+    this.decrypted = ByteBuffer.allocateDirect(bufferSize + 0x10);
+  }
+
+  /**
+   * Verify all contents of a CIA, without decrypting them. Blocks until all contents are verified.
+   *
+   * @param cia      The CIA.
+   * @param listener A listener receiving the progress and the results, may be {@code null}.
+   * @return The verification results, in the order of the content chunk records.
+   * @throws InterruptedException The calling thread was interrupted while waiting for a buffer or the rate limiter.
+   */
+  public List<ContentVerificationResult> verify(CiaFile cia, ContentVerificationListener listener)
+      throws InterruptedException {
+    return verify(cia, null, listener);
+  }
+
+  /**
+   * Verify all contents of a CIA. Blocks until all contents are verified.
+   *
+   * @param cia      The CIA.
+   * @param titleKey The decrypted title key (0x10 bytes) to decrypt encrypted contents or {@code null}.
+   * @param listener A listener receiving the progress and the results, may be {@code null}.
+   * @return The verification results, in the order of the content chunk records.
+   * @throws InterruptedException The calling thread was interrupted while waiting for a buffer or the rate limiter.
+   */
+  public List<ContentVerificationResult> verify(CiaFile cia, byte[] titleKey, ContentVerificationListener listener)
+      throws InterruptedException {
+    if (titleKey != null && titleKey.length != 0x10)
+      throw new IllegalArgumentException("A title key has 16 bytes, not " + titleKey.length + ".");
+
+    List<ContentChunkRecord> records = cia.getTmd().getContentChunkRecords();
+    ContentVerificationResult[] results = new ContentVerificationResult[records.size()];
+
+    // Only the contents in the CIA, which can be hashed, are read
+    List<Content> contents = new ArrayList<>();
+    for (int i = 0; i < results.length; i++) {
+      ContentChunkRecord record = records.get(i);
+      long offset = cia.getContentOffset(i);
+      if (offset < 0)
+        results[i] = result(record, ContentVerificationResult.Status.MISSING, null, null, listener);
+      else if ((record.getContentType() & 0x1) != 0 && titleKey == null)
+        results[i] = result(record, ContentVerificationResult.Status.ENCRYPTED, null, null, listener);
+      else
+        contents.add(new Content(i, record, offset, titleKey));
+    }
+    if (contents.isEmpty())
+      return Arrays.asList(results);
+
+    long position   = contents.get(0).offset;
+    final long end  = contents.get(contents.size() - 1).end;
+    BlockingQueue<ByteBuffer> filled = new LinkedBlockingQueue<>();
+    Hasher hasher = new Hasher(contents, position, filled, results, listener);
+    Future<Void> hashing = executor.submit(hasher);
+
+    // Read the content section sequentially, the hash thread returns every buffer to the pool when it's done
+    try {
+      while (position < end) {
+        ByteBuffer buffer = buffers.take();
+        ((Buffer) buffer).clear(); // Cast: Compatibility with Java 8 and below
+        ((Buffer) buffer).limit((int) Math.min(buffer.capacity(), end - position));
+        try {
+          rateLimiter.acquire(buffer.remaining());
+          while (buffer.hasRemaining()) {
+            if (cia.read(buffer, position + buffer.position()) < 0)
+              throw new EOFException("The CIA was truncated while reading it.");
+          }
+        } catch (InterruptedException | IOException | RuntimeException e) {
+          buffers.add(buffer);
+          throw e;
+        }
+        ((Buffer) buffer).flip();
+        position += buffer.remaining();
+        filled.add(buffer);
+      }
+    } catch (IOException e) {
+      hasher.readError = e;
+    } finally {
+      // Unfinished contents fail with the read error, if any
+      filled.add(END);
+    }
+
+    try {
+      hashing.get();
+    } catch (ExecutionException e) {
+      // The hasher catches all expected exceptions, so this is a bug in the listener
+      throw new IllegalStateException(e.getCause());
+    }
+    return Arrays.asList(results);
+  }
+
+  private static ContentVerificationResult result(ContentChunkRecord record, ContentVerificationResult.Status status,
+                                                  HexString actualHash, Exception error,
+                                                  ContentVerificationListener listener) {
+    ContentVerificationResult result = new ContentVerificationResult(record, null, status, actualHash, error);
+    if (listener != null)
+      listener.onVerified(result);
+    return result;
+  }
+
+  /**
+   * A content to be hashed, with it's position in the CIA and it's digest (and cipher) state.
+   */
+  private static final class Content {
+    final int index;
+    final ContentChunkRecord record;
+    final long offset;
+    final long end;
+    final MessageDigest digest;
+    final Cipher cipher;
+    Exception error;
+
+    Content(int index, ContentChunkRecord record, long offset, byte[] titleKey) {
+      this.index  = index;
+      this.record = record;
+      this.offset = offset;
+      this.end    = offset + record.getContentSize();
+      try {
+        this.digest = MessageDigest.getInstance(record.getSha256hash().length() == 0x14 ? "SHA-1" : "SHA-256");
+        if ((record.getContentType() & 0x1) != 0) {
+          // The IV is the content index, padded with zeros
+          byte[] iv = new byte[0x10];
+          iv[0] = (byte) (record.getContentIndex() >>> 8);
+          iv[1] = (byte) record.getContentIndex();
+          this.cipher = Cipher.getInstance("AES/CBC/NoPadding");
+          cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(titleKey, "AES"), new IvParameterSpec(iv));
+        } else {
+          this.cipher = null;
+        }
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform has to support SHA-1, SHA-256 and AES/CBC/NoPadding
+        throw new IllegalStateException(e);
+      } catch (GeneralSecurityException e) {
+        // The key has the right size and the IV as well
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Runs on the hash thread: Takes the filled buffers in order and feeds every byte to the content it belongs to.
+   */
+  private final class Hasher implements Callable<Void> {
+
+    private final List<Content> contents;
+    private final BlockingQueue<ByteBuffer> filled;
+    private final ContentVerificationResult[] results;
+    private final ContentVerificationListener listener;
+    private long position;
+    private int next;
+    // Set by the reading thread before END is queued
+    volatile IOException readError;
+
+    Hasher(List<Content> contents, long position, BlockingQueue<ByteBuffer> filled,
+           ContentVerificationResult[] results, ContentVerificationListener listener) {
+      this.contents = contents;
+      this.position = position;
+      this.filled   = filled;
+      this.results  = results;
+      this.listener = listener;
+    }
+
+    @Override
+    public Void call() throws InterruptedException {
+      RuntimeException failure = null;
+      ByteBuffer buffer;
+      while ((buffer = filled.take()) != END) {
+        try {
+          if (failure == null)
+            route(buffer);
+        } catch (RuntimeException e) {
+          // A failing listener: Keep returning the buffers until END, else the reading thread waits forever
+          failure = e;
+        } finally {
+          buffers.add(buffer);
+        }
+      }
+      if (failure != null)
+        throw failure;
+      // No buffer is routed to empty contents at the end, they're complete without one
+      finishEmptyContents();
+
+      // Everything which wasn't completed by now is missing in the content section
+      for (; next < contents.size(); next++) {
+        Content content = contents.get(next);
+        Exception error = readError != null ? readError
+            : new EOFException("The content section ended in the middle of the content.");
+        results[content.index] = result(content.record, ContentVerificationResult.Status.ERROR, null, error,
+            listener);
+      }
+      return null;
+    }
+
+    private void route(ByteBuffer buffer) {
+      final int limit = buffer.limit();
+      while (buffer.hasRemaining() && next < contents.size()) {
+        Content content = contents.get(next);
+        if (position < content.offset) {
+          // Bytes of a content, which isn't hashed
+          int skip = (int) Math.min(buffer.remaining(), content.offset - position);
+          ((Buffer) buffer).position(buffer.position() + skip); // Cast: Compatibility with Java 8 and below
+          position += skip;
+          continue;
+        }
+
+        int length = (int) Math.min(buffer.remaining(), content.end - position);
+        ((Buffer) buffer).limit(buffer.position() + length);
+        update(content, buffer);
+        ((Buffer) buffer).limit(limit);
+        position += length;
+
+        if (position == content.end) {
+          finish(content);
+          next++;
+        } else if (listener != null) {
+          listener.onProgress(content.record, position - content.offset, content.record.getContentSize());
+        }
+      }
+    }
+
+    /**
+     * Finish the contents of zero bytes at the current position, which the buffers can't reach.
+     */
+    private void finishEmptyContents() {
+      while (next < contents.size()) {
+        Content content = contents.get(next);
+        if (content.offset != position || content.end != position)
+          return;
+        finish(content);
+        next++;
+      }
+    }
+
+    private void update(Content content, ByteBuffer data) {
+      if (content.error != null) {
+        ((Buffer) data).position(data.limit());
+        return;
+      }
+      if (content.cipher == null) {
+        content.digest.update(data);
+        return;
+      }
+      try {
+        ((Buffer) decrypted).clear();
+        content.cipher.update(data, decrypted);
+        ((Buffer) decrypted).flip();
+        content.digest.update(decrypted);
+      } catch (GeneralSecurityException e) {
+        content.error = e;
+        ((Buffer) data).position(data.limit());
+      }
+    }
+
+    private void finish(Content content) {
+      if (content.error == null && content.cipher != null) {
+        try {
+          // Encrypted contents are a multiple of 16 bytes, so nothing is left
+          ((Buffer) decrypted).clear();
+          content.cipher.doFinal(ByteBuffer.allocate(0), decrypted);
+          ((Buffer) decrypted).flip();
+          content.digest.update(decrypted);
+        } catch (GeneralSecurityException e) {
+          content.error = e;
+        }
+      }
+      if (listener != null)
+        listener.onProgress(content.record, content.record.getContentSize(), content.record.getContentSize());
+
+      if (content.error != null) {
+        results[content.index] = result(content.record, ContentVerificationResult.Status.ERROR, null, content.error,
+            listener);
+        return;
+      }
+      HexString actualHash = HexString.fromBytes(content.digest.digest());
+      ContentVerificationResult.Status status = actualHash.equals(content.record.getSha256hash())
+          ? ContentVerificationResult.Status.OK
+          : ContentVerificationResult.Status.HASH_MISMATCH;
+      results[content.index] = result(content.record, status, actualHash, null, listener);
+    }
+  }
+
+  /**
+   * Shut down the hash thread.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
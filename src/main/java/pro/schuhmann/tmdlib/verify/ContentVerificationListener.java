@@ -0,0 +1,26 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+/**
+ * Receives the progress and the results of a content verification. The methods are called by the worker threads,
+ * possibly by several threads at once, so implementations have to be thread-safe.
+ */
+public interface ContentVerificationListener {
+
+  /**
+   * Called every time another part of a content has been hashed.
+   *
+   * @param record      The content chunk record of the content.
+   * @param bytesHashed The number of bytes of this content, which have been hashed so far.
+   * @param totalBytes  The total size of this content.
+   */
+  void onProgress(ContentChunkRecord record, long bytesHashed, long totalBytes);
+
+  /**
+   * Called as soon as a content has been verified (successfully or not).
+   *
+   * @param result The verification result.
+   */
+  void onVerified(ContentVerificationResult result);
+}
@@ -0,0 +1,113 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.nio.file.Path;
+
+/**
+ * The result of verifying a single content file against it's {@link ContentChunkRecord}.
+ */
+public class ContentVerificationResult {
+
+  /**
+   * The outcome of a content verification.
+   */
+  public enum Status {
+    /** The size and the hash of the content file match the content chunk record. */
+    OK,
+    /** There is no content file for the content chunk record. */
+    MISSING,
+    /** The size of the content file doesn't match the content size of the content chunk record. */
+    SIZE_MISMATCH,
+    /** The hash of the content file doesn't match the hash of the content chunk record. */
+    HASH_MISMATCH,
+    /** The content is encrypted and there is no title key to decrypt it, so it wasn't hashed. */
+    ENCRYPTED,
+    /** The content file couldn't be read. */
+    ERROR
+  }
+
+  private final ContentChunkRecord record;
+  private final Path file;
+  private final Status status;
+  private final HexString actualHash;
+  private final Exception error;
+
+  /**
+   * Create a new verification result. These objects are only created by the verifiers.
+   *
+   * @param record     The content chunk record.
+   * @param file       The content file or {@code null}, if it's missing or part of a CIA.
+   * @param status     The outcome.
+   * @param actualHash The hash of the content file or {@code null}, if it wasn't hashed completely.
+   * @param error      The exception or {@code null}, if there was no error.
+   */
+  ContentVerificationResult(ContentChunkRecord record, Path file, Status status, HexString actualHash,
+                            Exception error) {
+    this.record     = record;
+    this.file       = file;
+    this.status     = status;
+    this.actualHash = actualHash;
+    this.error      = error;
+  }
+
+  /**
+   * Get the content chunk record, which the content file was verified against.
+   *
+   * @return The content chunk record.
+   */
+  public ContentChunkRecord getRecord() {
+    return record;
+  }
+
+  /**
+   * Get the content file.
+   *
+   * @return The content file or {@code null}, if it's missing or the content was read from a CIA.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Get the outcome of the verification.
+   *
+   * @return The status.
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Check whether the content file is valid.
+   *
+   * @return {@code true} if the status is {@link Status#OK}.
+   */
+  public boolean isValid() {
+    return status == Status.OK;
+  }
+
+  /**
+   * Get the hash of the content file.
+   *
+   * @return The actual hash or {@code null}, if the file wasn't hashed completely.
+   */
+  public HexString getActualHash() {
+    return actualHash;
+  }
+
+  /**
+   * Get the error, which occurred while reading the content file.
+   *
+   * @return The exception or {@code null}.
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%08x: %s", record.getContentId(), status);
+  }
+}
@@ -0,0 +1,207 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verify content files against the content chunk records of a TMD: Every content file is streamed through SHA-256
+ * (SHA-1 for Wii and Wii U TMDs, by the length of the hash) and compared to {@link ContentChunkRecord#getSha256hash()}.
+ * <pre>{@code
+ * try (ContentVerifier verifier = new ContentVerifier(4, 1 << 20, IoRateLimiter.UNLIMITED)) {
+ *   List<ContentVerificationResult> results = verifier.verify(tmd, contentDirectory, listener);
+ * }
+ * }</pre>
+ * The content files have to be named by their content ID (8 hexadecimal characters, like on the CDN), optionally with
+ * the extension ".app". NOTE: The hashes in the TMD are calculated over the DECRYPTED contents, so encrypted content
+ * files (like the ones downloaded from the CDN) have to be decrypted first.
+ *
+ * Several contents are hashed in parallel, each worker uses it's own direct buffer.
+ */
+public class ContentVerifier implements Closeable {
+
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final BlockingQueue<ByteBuffer> buffers;
+  private final IoRateLimiter rateLimiter;
+
+  /**
+   * Create a new content verifier with it's own thread pool.
+   *
+   * @param parallelism The number of contents, which are hashed at the same time.
+   * @param bufferSize  The size of the read buffer of each worker, like 1 MiB.
+   * @param rateLimiter Limits the read bandwidth of all workers together, see {@link IoRateLimiter#UNLIMITED}.
+   */
+  public ContentVerifier(int parallelism, int bufferSize, IoRateLimiter rateLimiter) {
+    this(Executors.newFixedThreadPool(parallelism), true, parallelism, bufferSize, rateLimiter);
+  }
+
+  /**
+   * Create a new content verifier using the given executor. The executor is not shut down by {@link #close()}.
+   *
+   * @param executor    The executor, which runs the hash tasks.
+   * @param parallelism The number of contents, which are hashed at the same time.
+   * @param bufferSize  The size of the read buffer of each worker, like 1 MiB.
+   * @param rateLimiter Limits the read bandwidth of all workers together, see {@link IoRateLimiter#UNLIMITED}.
+   */
+  public ContentVerifier(ExecutorService executor, int parallelism, int bufferSize, IoRateLimiter rateLimiter) {
+    this(executor, false, parallelism, bufferSize, rateLimiter);
+  }
+
+  private ContentVerifier(ExecutorService executor, boolean ownExecutor, int parallelism, int bufferSize,
+                          IoRateLimiter rateLimiter) {
+    if (parallelism <= 0 || bufferSize <= 0)
+      throw new IllegalArgumentException("parallelism and bufferSize must be positive.");
+
+    this.executor    = executor;
+    this.ownExecutor = ownExecutor;
+    this.rateLimiter = rateLimiter;
+    // The buffer pool also limits the number of contents hashed at the same time
+    this.buffers     = new ArrayBlockingQueue<>(parallelism);
+    for (int i = 0; i < parallelism; i++)
+      buffers.add(ByteBuffer.allocateDirect(bufferSize));
+  }
+
+  /**
+   * Verify all contents of a TMD. Blocks until all contents are verified.
+   *
+   * @param tmd              The TMD.
+   * @param contentDirectory The directory containing the content files.
+   * @param listener         A listener receiving the progress and the results, may be {@code null}.
+   * @return The verification results, in the order of the content chunk records.
+   * @throws InterruptedException The calling thread was interrupted while waiting for the workers.
+   */
+  public List<ContentVerificationResult> verify(TMD tmd, final Path contentDirectory,
+                                                final ContentVerificationListener listener)
+      throws InterruptedException {
+    List<Future<ContentVerificationResult>> futures = new ArrayList<>();
+    for (final ContentChunkRecord record : tmd.getContentChunkRecords()) {
+      futures.add(executor.submit(new Callable<ContentVerificationResult>() {
+        @Override
+        public ContentVerificationResult call() throws InterruptedException {
+          ContentVerificationResult result = verify(record, contentDirectory, listener);
+          if (listener != null)
+            listener.onVerified(result);
+          return result;
+        }
+      }));
+    }
+
+    List<ContentVerificationResult> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<ContentVerificationResult> future : futures)
+        results.add(future.get());
+    } catch (ExecutionException e) {
+      // verify() catches all IOExceptions, so this is a bug in the listener
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      for (Future<ContentVerificationResult> future : futures)
+        future.cancel(true);
+    }
+    return results;
+  }
+
+  /**
+   * Verify a single content.
+   *
+   * @param record           The content chunk record of the content.
+   * @param contentDirectory The directory containing the content files.
+   * @param listener         A listener receiving the progress, may be {@code null}.
+   * @return The verification result.
+   * @throws InterruptedException The thread was interrupted while waiting for a buffer or for the rate limiter.
+   */
+  public ContentVerificationResult verify(ContentChunkRecord record, Path contentDirectory,
+                                          ContentVerificationListener listener) throws InterruptedException {
+    Path file = findContentFile(contentDirectory, record.getContentId());
+    if (file == null)
+      return new ContentVerificationResult(record, null, ContentVerificationResult.Status.MISSING, null, null);
+
+    ByteBuffer buffer = buffers.take();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size != record.getContentSize())
+        return new ContentVerificationResult(record, file, ContentVerificationResult.Status.SIZE_MISMATCH, null, null);
+
+      MessageDigest digest = digest(record.getSha256hash().length());
+      long hashed = 0;
+      while (hashed < size) {
+        ((Buffer) buffer).clear(); // Cast: Compatibility with Java 8 and below
+        rateLimiter.acquire(Math.min(buffer.capacity(), size - hashed));
+        int read = channel.read(buffer);
+        if (read < 0)
+          break;
+        ((Buffer) buffer).flip();
+        digest.update(buffer);
+        hashed += read;
+        if (listener != null)
+          listener.onProgress(record, hashed, size);
+      }
+
+      HexString actualHash = HexString.fromBytes(digest.digest());
+      ContentVerificationResult.Status status = actualHash.equals(record.getSha256hash())
+          ? ContentVerificationResult.Status.OK
+          : ContentVerificationResult.Status.HASH_MISMATCH;
+      return new ContentVerificationResult(record, file, status, actualHash, null);
+    } catch (IOException e) {
+      return new ContentVerificationResult(record, file, ContentVerificationResult.Status.ERROR, null, e);
+    } finally {
+      buffers.add(buffer);
+    }
+  }
+
+  /**
+   * Find the content file for a content ID: "0000000a", "0000000A", "0000000a.app" or "0000000A.app".
+   *
+   * @param contentDirectory The directory containing the content files.
+   * @param contentId        The content ID.
+   * @return The content file or {@code null}, if it doesn't exist.
+   */
+  static Path findContentFile(Path contentDirectory, int contentId) {
+    String lower = String.format("%08x", contentId);
+    String upper = lower.toUpperCase();
+    for (String name : new String[] {lower, upper, lower + ".app", upper + ".app"}) {
+      Path file = contentDirectory.resolve(name);
+      if (Files.isRegularFile(file))
+        return file;
+    }
+    return null;
+  }
+
+  private static MessageDigest digest(int hashLength) {
+    try {
+      return MessageDigest.getInstance(hashLength == 0x14 ? "SHA-1" : "SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-1 and SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Shut down the thread pool, if it was created by this verifier.
+   */
+  @Override
+  public void close() {
+    if (ownExecutor)
+      executor.shutdown();
+  }
+}
@@ -0,0 +1,71 @@
+package pro.schuhmann.tmdlib.verify;
+
+/**
+ * A simple token bucket limiting the number of bytes read per second. A single instance can be shared by several
+ * threads, which then share the bandwidth.
+ */
+public class IoRateLimiter {
+
+  /**
+   * A rate limiter which never blocks.
+   */
+  public static final IoRateLimiter UNLIMITED = new IoRateLimiter(Long.MAX_VALUE);
+
+  private final long bytesPerSecond;
+  private long available;
+  private long lastRefill;
+
+  /**
+   * Create a new rate limiter.
+   *
+   * @param bytesPerSecond The maximum number of bytes per second. The bucket holds at most one second worth of bytes.
+   */
+  public IoRateLimiter(long bytesPerSecond) {
+    if (bytesPerSecond <= 0)
+      throw new IllegalArgumentException("bytesPerSecond must be positive: " + bytesPerSecond);
+
+    this.bytesPerSecond = bytesPerSecond;
+    this.available      = bytesPerSecond;
+    this.lastRefill     = System.nanoTime();
+  }
+
+  /**
+   * Get the maximum number of bytes per second.
+   *
+   * @return The number of bytes per second.
+   */
+  public long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Take the given number of bytes from the bucket, waiting until enough bytes are available.
+   *
+   * @param bytes The number of bytes, which are going to be read.
+   * @throws InterruptedException The thread was interrupted while waiting.
+   */
+  public void acquire(long bytes) throws InterruptedException {
+    if (bytesPerSecond == Long.MAX_VALUE)
+      return;
+
+    long waitNanos;
+    synchronized (this) {
+      refill();
+      available -= bytes;
+      // Going into debt is fine, the caller just has to wait until the debt is paid
+      waitNanos = available >= 0 ? 0 : (long) (-available * 1e9 / bytesPerSecond);
+    }
+    if (waitNanos > 0)
+      Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+  }
+
+  private void refill() {
+    long now     = System.nanoTime();
+    long elapsed = now - lastRefill;
+    long refill  = (long) (elapsed / 1e9 * bytesPerSecond);
+    if (refill > 0) {
+      available  = Math.min(bytesPerSecond, available + refill);
+      lastRefill = now;
+    }
+  }
+}
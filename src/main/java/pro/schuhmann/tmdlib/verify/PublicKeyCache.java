@@ -0,0 +1,150 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.parts.Certificate;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.spec.ECField;
+import java.security.spec.ECFieldF2m;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EllipticCurve;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe cache of decoded {@link java.security.PublicKey}s, shared by all {@link SignatureVerifier}s using
+ * it. Across a whole catalog there are only a handful of distinct certificates, so every certificate is usually decoded
+ * and verified just once: Keys of certificates, which were verified up to a trusted root, are remembered by their full
+ * name (issuer and name, like "Root-CA00000003-CP0000000b") and used directly afterwards.
+ *
+ * The cache also holds the trusted root keys (like the key of "Root"), which have to be added with
+ * {@link #addTrustedKey(String, java.security.PublicKey)}. Without them, certificate chains can't be verified
+ * completely.
+ */
+public class PublicKeyCache {
+
+  private static final PublicKeyCache DEFAULT = new PublicKeyCache();
+
+  /**
+   * The parameters of the elliptic curve sect233r1, which is used by the ECC keys.
+   * @see <a href="https://www.secg.org/SEC2-Ver-1.0.pdf">SEC 2: Recommended Elliptic Curve Domain Parameters</a>
+   */
+  private static final ECParameterSpec SECT233R1;
+
+  static {
+    ECField field = new ECFieldF2m(233, new int[] {74});
+    EllipticCurve curve = new EllipticCurve(field, BigInteger.ONE,
+        new BigInteger("0066647EDE6C332C7F8C0923BB58213B333B20E9CE4281FE115F7D8F90AD", 16));
+    ECPoint generator = new ECPoint(
+        new BigInteger("00FAC9DFCBAC8313BB2139F1BB755FEF65BC391F8B36F8F8EB7371FD558B", 16),
+        new BigInteger("01006A08A41903350678E58528BEBF8A0BEFF867A7CA36716F7E01F81052", 16));
+    SECT233R1 = new ECParameterSpec(curve, generator,
+        new BigInteger("01000000000000000000000000000013E974E72F8A6922031D2603CFE0D7", 16), 2);
+  }
+
+  // Decoded keys, identified by the raw key data. Decoding keys is independent from trusting them.
+  private final ConcurrentMap<HexString, java.security.PublicKey> decodedKeys = new ConcurrentHashMap<>();
+  // Keys of trusted roots and of certificates, which were verified up to a trusted root. Identified by the full name.
+  private final ConcurrentMap<String, java.security.PublicKey> trustedKeys = new ConcurrentHashMap<>();
+
+  /**
+   * Get the default cache, which is shared by all verifiers not using their own cache.
+   *
+   * @return The default cache.
+   */
+  public static PublicKeyCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Add a trusted key, usually the key of the root certificate ("Root").
+   *
+   * @param name The full name of the key, like "Root" or "Root-CA00000003".
+   * @param key  The public key.
+   */
+  public void addTrustedKey(String name, java.security.PublicKey key) {
+    trustedKeys.put(name, key);
+  }
+
+  /**
+   * Get a trusted key by it's full name.
+   *
+   * @param name The full name of the key, like "Root-CA00000003-CP0000000b".
+   * @return The key or {@code null}, if no trusted key with this name is known.
+   */
+  public java.security.PublicKey getTrustedKey(String name) {
+    return trustedKeys.get(name);
+  }
+
+  /**
+   * Get the decoded key of a certificate. The key is only decoded once.
+   *
+   * @param certificate A certificate.
+   * @return The public key.
+   * @throws GeneralSecurityException The key couldn't be decoded or the key type isn't supported by the platform.
+   */
+  public java.security.PublicKey getKey(Certificate certificate) throws GeneralSecurityException {
+    pro.schuhmann.tmdlib.parts.PublicKey key = certificate.getPublicKey();
+    HexString keyData = getKeyData(key);
+
+    java.security.PublicKey decoded = decodedKeys.get(keyData);
+    if (decoded == null) {
+      decoded = decode(key);
+      java.security.PublicKey existing = decodedKeys.putIfAbsent(keyData, decoded);
+      if (existing != null)
+        decoded = existing;
+    }
+    return decoded;
+  }
+
+  /**
+   * Get the raw data of a public key, which identifies it: The point of ECC keys, the modulus followed by the public
+   * exponent of RSA keys.
+   *
+   * @param key The public key of the certificate.
+   * @return The key data.
+   */
+  private static HexString getKeyData(pro.schuhmann.tmdlib.parts.PublicKey key) {
+    if (key.getPublicKeyType() == PublicKeyType.ELLIPTIC_CURVE)
+      return key.getPublicKey();
+
+    byte[] modulus = key.getModulus().toBytes();
+    ByteBuffer data = ByteBuffer.allocate(modulus.length + 4);
+    data.put(modulus);
+    data.putInt(key.getPublicExponent());
+    return HexString.fromBytes(data.array());
+  }
+
+  /**
+   * Convert a public key of a certificate to a {@link java.security.PublicKey}.
+   *
+   * @param key The public key of the certificate.
+   * @return The converted key.
+   * @throws GeneralSecurityException The key type isn't supported by the platform.
+   */
+  private static java.security.PublicKey decode(pro.schuhmann.tmdlib.parts.PublicKey key)
+      throws GeneralSecurityException {
+    switch (key.getPublicKeyType()) {
+      case RSA_4096:
+      case RSA_2048:
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+            new BigInteger(1, key.getModulus().toBytes()), BigInteger.valueOf(key.getPublicExponent() & 0xFFFFFFFFL)));
+      case ELLIPTIC_CURVE:
+        // X and Y coordinate of the public point, 0x1E bytes each
+        byte[] point = key.getPublicKey().toBytes();
+        ECPoint w = new ECPoint(new BigInteger(1, Arrays.copyOfRange(point, 0, 0x1E)),
+            new BigInteger(1, Arrays.copyOfRange(point, 0x1E, 0x3C)));
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(w, SECT233R1));
+      default:
+        throw new GeneralSecurityException("Unknown public key type: " + key.getPublicKeyType());
+    }
+  }
+}
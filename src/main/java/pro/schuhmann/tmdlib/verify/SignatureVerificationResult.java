@@ -0,0 +1,65 @@
+package pro.schuhmann.tmdlib.verify;
+
+/**
+ * The result of the signature verification of a TMD, created by {@link SignatureVerifier}.
+ */
+public class SignatureVerificationResult {
+
+  /**
+   * The outcome of a signature verification.
+   */
+  public enum Status {
+    /** The signature and all certificates up to a trusted root are valid. */
+    VALID,
+    /** The signature of the TMD doesn't match the header. */
+    INVALID_SIGNATURE,
+    /** The signature of a certificate in the chain doesn't match. */
+    INVALID_CERTIFICATE,
+    /** A certificate of the chain isn't appended to the TMD. */
+    MISSING_CERTIFICATE,
+    /** The signature and the certificates are valid, but the root key isn't trusted (or unknown). */
+    UNTRUSTED_ROOT,
+    /** A key or signature algorithm isn't supported by the Java platform. */
+    UNSUPPORTED
+  }
+
+  private final Status status;
+  private final String message;
+
+  SignatureVerificationResult(Status status, String message) {
+    this.status  = status;
+    this.message = message;
+  }
+
+  /**
+   * Get the status of the verification.
+   *
+   * @return The status.
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Check whether the TMD is signed correctly, up to a trusted root.
+   *
+   * @return {@code true} if the status is {@link Status#VALID}.
+   */
+  public boolean isValid() {
+    return status == Status.VALID;
+  }
+
+  /**
+   * Get a human readable description of the result, like the name of a missing certificate.
+   *
+   * @return The message.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return status + ": " + message;
+  }
+}
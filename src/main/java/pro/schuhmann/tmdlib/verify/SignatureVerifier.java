@@ -0,0 +1,222 @@
+package pro.schuhmann.tmdlib.verify;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.parts.Certificate;
+import pro.schuhmann.tmdlib.parts.SignatureData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Arrays;
+
+/**
+ * Verify the signature of a TMD and the chain of the appended certificates.
+ * <pre>{@code
+ * PublicKeyCache.getDefault().addTrustedKey("Root", rootKey);
+ * SignatureVerifier verifier = new SignatureVerifier();
+ * SignatureVerificationResult result = verifier.verify(tmd);
+ * }</pre>
+ * The chain is taken from the signature issuer in the header: "Root-CA00000003-CP0000000b" means the TMD is signed by
+ * the certificate "CP0000000b", which is issued (signed) by "Root-CA00000003", which is issued by "Root". Every
+ * certificate of the chain has to be appended to the TMD, except for the trusted ones already known by the
+ * {@link PublicKeyCache}. The cache remembers every certificate verified up to a trusted root, so usually only the
+ * signature of the TMD itself has to be checked.
+ *
+ * If the root key isn't known, the signature and the certificates are verified as far as possible and the result is
+ * {@link SignatureVerificationResult.Status#UNTRUSTED_ROOT}.
+ *
+ * Verifiers are thread-safe.
+ */
+public class SignatureVerifier {
+
+  private final PublicKeyCache keyCache;
+
+  /**
+   * Create a new signature verifier using the default {@link PublicKeyCache}.
+   */
+  public SignatureVerifier() {
+    this(PublicKeyCache.getDefault());
+  }
+
+  /**
+   * Create a new signature verifier.
+   *
+   * @param keyCache The cache holding the trusted and decoded keys.
+   */
+  public SignatureVerifier(PublicKeyCache keyCache) {
+    this.keyCache = keyCache;
+  }
+
+  /**
+   * Verify the signature of a TMD, which covers the header, and the certificate chain of the signer.
+   *
+   * @param tmd The TMD.
+   * @return The verification result.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  public SignatureVerificationResult verify(TMD tmd) throws IOException {
+    String issuer = tmd.getHeader().getSignatureIssuer();
+    ChainKey signer = resolve(tmd, issuer);
+    if (signer.failure != null)
+      return signer.failure;
+    if (signer.key == null)
+      return result(SignatureVerificationResult.Status.UNTRUSTED_ROOT, "The root key of " + issuer + " is unknown.");
+
+    // The signature covers exactly the header (and the content chunk records of Wii TMDs)
+    TmdFileReader reader = tmd.getTmdFileReader();
+    int signedLength = tmd.getLayout().getSignedLength(tmd.getHeader().getContentCount() & 0xFFFF);
+    byte[] header = reader.getBytes(tmd.getHeaderOffset(), signedLength);
+    SignatureVerificationResult.Status status = check(tmd.getSignatureData(), signer.key, header);
+    if (status == SignatureVerificationResult.Status.UNSUPPORTED)
+      return result(status, "The signature of the TMD can't be verified on this platform.");
+    if (status != SignatureVerificationResult.Status.VALID)
+      return result(SignatureVerificationResult.Status.INVALID_SIGNATURE, "The signature of the TMD is invalid.");
+
+    return signer.trusted
+        ? result(SignatureVerificationResult.Status.VALID, "The TMD is signed by " + issuer + ".")
+        : result(SignatureVerificationResult.Status.UNTRUSTED_ROOT, "The root key of " + issuer + " is unknown.");
+  }
+
+  /**
+   * Find the key of a certificate by it's full name and verify the certificate, if it isn't trusted yet.
+   *
+   * @param tmd      The TMD containing the certificates.
+   * @param fullName The full name of the certificate, like "Root-CA00000003-CP0000000b".
+   * @return The key, a failure or no key at all, if the root of the chain is unknown.
+   * @throws IOException An error occurred while reading the TMD.
+   */
+  private ChainKey resolve(TMD tmd, String fullName) throws IOException {
+    PublicKey trustedKey = keyCache.getTrustedKey(fullName);
+    if (trustedKey != null)
+      return new ChainKey(trustedKey, true, null);
+
+    int separator = fullName.lastIndexOf('-');
+    if (separator < 0)
+      return new ChainKey(null, false, null); // An unknown root
+
+    String issuer = fullName.substring(0, separator);
+    String name   = fullName.substring(separator + 1);
+    int index     = findCertificate(tmd.getCertificates(), issuer, name);
+    if (index < 0)
+      return new ChainKey(null, false,
+          result(SignatureVerificationResult.Status.MISSING_CERTIFICATE, "The certificate " + fullName + " is missing."));
+
+    Certificate certificate = tmd.getCertificates()[index];
+    PublicKey key;
+    try {
+      key = keyCache.getKey(certificate);
+    } catch (GeneralSecurityException e) {
+      return new ChainKey(null, false, result(SignatureVerificationResult.Status.UNSUPPORTED,
+          "The key of " + fullName + " can't be decoded on this platform: " + e.getMessage()));
+    }
+
+    ChainKey issuerKey = resolve(tmd, issuer);
+    if (issuerKey.failure != null)
+      return issuerKey;
+    if (issuerKey.key == null)
+      return new ChainKey(key, false, null);
+
+    // The certificate is signed from the end of the signature data to the end of the certificate
+    int offset = tmd.getCertificateOffset(index);
+    int signedOffset = offset + certificate.getSignatureData().getSignatureType().getSignatureDataSize();
+    byte[] signed = tmd.getTmdFileReader().getBytes(signedOffset, offset + certificate.getSize() - signedOffset);
+    SignatureVerificationResult.Status status = check(certificate.getSignatureData(), issuerKey.key, signed);
+    if (status == SignatureVerificationResult.Status.UNSUPPORTED)
+      return new ChainKey(null, false, result(status, "The signature of " + fullName
+          + " can't be verified on this platform."));
+    if (status != SignatureVerificationResult.Status.VALID)
+      return new ChainKey(null, false, result(SignatureVerificationResult.Status.INVALID_CERTIFICATE,
+          "The signature of the certificate " + fullName + " is invalid."));
+
+    if (issuerKey.trusted)
+      keyCache.addTrustedKey(fullName, key);
+    return new ChainKey(key, issuerKey.trusted, null);
+  }
+
+  private static int findCertificate(Certificate[] certificates, String issuer, String name) {
+    if (certificates == null)
+      return -1;
+
+    for (int i = 0; i < certificates.length; i++) {
+      if (certificates[i].getIssuer().equals(issuer) && certificates[i].getName().equals(name))
+        return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Check a signature.
+   *
+   * @param signatureData The signature.
+   * @param key           The key of the signer.
+   * @param data          The signed data.
+   * @return {@link SignatureVerificationResult.Status#VALID}, {@link SignatureVerificationResult.Status#UNSUPPORTED}
+   * or {@link SignatureVerificationResult.Status#INVALID_SIGNATURE}.
+   */
+  private static SignatureVerificationResult.Status check(SignatureData signatureData, PublicKey key, byte[] data) {
+    SignatureType type = signatureData.getSignatureType();
+    byte[] signature   = signatureData.getSignature().toBytes();
+    try {
+      Signature verifier = Signature.getInstance(type.getAlgorithm());
+      verifier.initVerify(key);
+      verifier.update(data);
+      boolean valid = verifier.verify(type.isEcdsa() ? toDer(signature) : signature);
+      return valid ? SignatureVerificationResult.Status.VALID : SignatureVerificationResult.Status.INVALID_SIGNATURE;
+    } catch (InvalidKeyException | SignatureException e) {
+      // Wrong key type for the signature or a malformed signature
+      return SignatureVerificationResult.Status.INVALID_SIGNATURE;
+    } catch (GeneralSecurityException e) {
+      return SignatureVerificationResult.Status.UNSUPPORTED;
+    }
+  }
+
+  /**
+   * Convert a raw ECDSA signature (r and s, 0x1E bytes each) to the DER encoding expected by the Java platform.
+   *
+   * @param signature The raw signature.
+   * @return The DER encoded signature.
+   */
+  static byte[] toDer(byte[] signature) {
+    int half = signature.length / 2;
+    byte[] r = new BigInteger(1, Arrays.copyOfRange(signature, 0, half)).toByteArray();
+    byte[] s = new BigInteger(1, Arrays.copyOfRange(signature, half, signature.length)).toByteArray();
+
+    // Short lengths only, the integers are way below 128 bytes
+    ByteArrayOutputStream der = new ByteArrayOutputStream();
+    der.write(0x30);
+    der.write(2 + r.length + 2 + s.length);
+    der.write(0x02);
+    der.write(r.length);
+    der.write(r, 0, r.length);
+    der.write(0x02);
+    der.write(s.length);
+    der.write(s, 0, s.length);
+    return der.toByteArray();
+  }
+
+  private static SignatureVerificationResult result(SignatureVerificationResult.Status status, String message) {
+    return new SignatureVerificationResult(status, message);
+  }
+
+  /**
+   * The key of a certificate in the chain. No key and no failure means the root of the chain is unknown.
+   */
+  private static final class ChainKey {
+    final PublicKey key;
+    final boolean trusted;
+    final SignatureVerificationResult failure;
+
+    ChainKey(PublicKey key, boolean trusted, SignatureVerificationResult failure) {
+      this.key     = key;
+      this.trusted = trusted;
+      this.failure = failure;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package pro.schuhmann.tmdlib.watch;
+
+import pro.schuhmann.tmdlib.TMD;
+
+import java.nio.file.Path;
+
+/**
+ * A change of a TMD file, reported by a {@link TmdDirectoryWatcher}.
+ */
+public class TmdChangeEvent {
+
+  /**
+   * The kind of a change.
+   */
+  public enum Kind {
+    /** A new TMD file was parsed. */
+    ADDED,
+    /** A known TMD file was changed and parsed again. */
+    MODIFIED,
+    /** A TMD file was deleted. */
+    REMOVED,
+    /** A new or changed TMD file couldn't be parsed. A previous version is removed from the index. */
+    FAILED
+  }
+
+  private final Kind kind;
+  private final Path path;
+  private final TMD tmd;
+  private final TMD previousTmd;
+  private final Exception error;
+
+  TmdChangeEvent(Kind kind, Path path, TMD tmd, TMD previousTmd, Exception error) {
+    this.kind        = kind;
+    this.path        = path;
+    this.tmd         = tmd;
+    this.previousTmd = previousTmd;
+    this.error       = error;
+  }
+
+  /**
+   * Get the kind of the change.
+   *
+   * @return The kind.
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Get the path of the TMD file.
+   *
+   * @return The path.
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Get the new TMD.
+   *
+   * @return The parsed TMD or {@code null}, if the file was removed or couldn't be parsed.
+   */
+  public TMD getTmd() {
+    return tmd;
+  }
+
+  /**
+   * Get the TMD, which was in the index before the change.
+   *
+   * @return The previous TMD or {@code null}, if the file was new.
+   */
+  public TMD getPreviousTmd() {
+    return previousTmd;
+  }
+
+  /**
+   * Get the reason why the file couldn't be parsed.
+   *
+   * @return The error or {@code null}, unless the kind is {@link Kind#FAILED}.
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + path;
+  }
+}
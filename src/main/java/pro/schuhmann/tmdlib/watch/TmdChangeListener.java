@@ -0,0 +1,15 @@
+package pro.schuhmann.tmdlib.watch;
+
+/**
+ * Receives the changes found by a {@link TmdDirectoryWatcher}. The listener is called by the watcher thread (for the
+ * initial files by {@link TmdDirectoryWatcher#start()}), one event after another, after the index was updated.
+ */
+public interface TmdChangeListener {
+
+  /**
+   * Called for every change of a TMD file.
+   *
+   * @param event The change.
+   */
+  void onChange(TmdChangeEvent event);
+}
@@ -0,0 +1,390 @@
+package pro.schuhmann.tmdlib.watch;
+
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TitleVersion;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.batch.TmdBatchParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep an index of all TMD files in a directory tree (like a CDN mirror) up to date. The tree is parsed once by
+ * {@link #start()}, afterwards only created, modified and deleted files are handled:
+ * <pre>{@code
+ * TmdDirectoryWatcher watcher = new TmdDirectoryWatcher(mirrorRoot, listener);
+ * watcher.start();
+ * TMD tmd = watcher.get(new TitleVersion(titleId, 1040));
+ * }</pre>
+ * The changes are collected by a {@link WatchService} and handled by a single background thread. The thread blocks
+ * while nothing changes, so an idle watcher needs no CPU at all. Bursts of changes (like a file written in several
+ * steps) are debounced: Changes are handled once no further change happened for the debounce time, but at the latest
+ * after ten times the debounce time. A file is only parsed again, if it's size or modification time changed.
+ *
+ * The index can be queried from any thread. Exceptions thrown by the {@link TmdChangeListener} are ignored.
+ */
+public class TmdDirectoryWatcher implements Closeable {
+
+  private final Path root;
+  private final DirectoryStream.Filter<Path> filter;
+  private final long debounceMillis;
+  private final TmdOptions options;
+  private final TmdChangeListener listener;
+  private final WatchService watchService;
+
+  // Only used by the watcher thread (and by start(), before the thread is running)
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+
+  private final ConcurrentMap<Path, IndexedTmd> byPath = new ConcurrentHashMap<>();
+  private final ConcurrentNavigableMap<TitleVersion, TMD> byTitleVersion = new ConcurrentSkipListMap<>();
+  private Thread thread;
+
+  /**
+   * Create a new watcher for all TMD files (see {@link TmdBatchParser#TMD_FILES}) with a debounce time of 500 ms.
+   *
+   * @param root     The root of the directory tree.
+   * @param listener A listener receiving the changes, may be {@code null}.
+   * @throws IOException The watch service couldn't be created.
+   */
+  public TmdDirectoryWatcher(Path root, TmdChangeListener listener) throws IOException {
+    this(root, TmdBatchParser.TMD_FILES, 500, TmdOptions.DEFAULT, listener);
+  }
+
+  /**
+   * Create a new watcher.
+   *
+   * @param root           The root of the directory tree.
+   * @param filter         Selects the TMD files.
+   * @param debounceMillis The time without further changes, before changes are handled.
+   * @param options        The options for parsing the TMDs.
+   * @param listener       A listener receiving the changes, may be {@code null}.
+   * @throws IOException The watch service couldn't be created.
+   */
+  public TmdDirectoryWatcher(Path root, DirectoryStream.Filter<Path> filter, long debounceMillis, TmdOptions options,
+                             TmdChangeListener listener) throws IOException {
+    if (debounceMillis < 0)
+      throw new IllegalArgumentException("debounceMillis must not be negative: " + debounceMillis);
+
+    this.root           = root;
+    this.filter         = filter;
+    this.debounceMillis = debounceMillis;
+    this.options        = options;
+    this.listener       = listener;
+    this.watchService   = root.getFileSystem().newWatchService();
+  }
+
+  /**
+   * Parse all TMD files in the directory tree and start watching it. The listener receives an {@link
+   * TmdChangeEvent.Kind#ADDED} event for every file found. Returns once the initial index is complete.
+   *
+   * @throws IOException The directory tree couldn't be read.
+   * @throws IllegalStateException The watcher was already started.
+   */
+  public synchronized void start() throws IOException {
+    if (thread != null)
+      throw new IllegalStateException("The watcher was already started.");
+
+    register(root);
+    rescan(root);
+
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    }, "TMD directory watcher " + root);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Get a TMD by it's title ID and version.
+   *
+   * @param titleVersion The title ID and the version.
+   * @return The TMD or {@code null}, if there is no such TMD in the directory tree.
+   */
+  public TMD get(TitleVersion titleVersion) {
+    return byTitleVersion.get(titleVersion);
+  }
+
+  /**
+   * Get a TMD by it's file.
+   *
+   * @param path The TMD file.
+   * @return The TMD or {@code null}, if the file isn't indexed.
+   */
+  public TMD get(Path path) {
+    IndexedTmd indexed = byPath.get(path);
+    return indexed != null ? indexed.tmd : null;
+  }
+
+  /**
+   * Get all versions of a title.
+   *
+   * @param titleId The title ID.
+   * @return The TMDs of all known versions, ordered by version.
+   */
+  public List<TMD> getVersions(TitleId titleId) {
+    return new ArrayList<>(byTitleVersion.subMap(new TitleVersion(titleId, 0), true,
+        new TitleVersion(titleId, 0xFFFF), true).values());
+  }
+
+  /**
+   * Get the number of indexed TMD files.
+   *
+   * @return The number of TMD files.
+   */
+  public int size() {
+    return byPath.size();
+  }
+
+  /**
+   * The loop of the watcher thread.
+   */
+  private void watch() {
+    Set<Path> pending  = new LinkedHashSet<>();
+    Set<Path> rescans  = new LinkedHashSet<>();
+    long firstChange   = 0;
+    final long maxWait = TimeUnit.MILLISECONDS.toNanos(debounceMillis * 10);
+
+    try {
+      while (true) {
+        WatchKey key;
+        if (pending.isEmpty() && rescans.isEmpty()) {
+          // Nothing to do, block until something changes
+          key = watchService.take();
+          firstChange = System.nanoTime();
+        } else {
+          long waited = System.nanoTime() - firstChange;
+          key = waited < maxWait ? watchService.poll(debounceMillis, TimeUnit.MILLISECONDS) : null;
+        }
+
+        if (key == null) {
+          // Quiet for the debounce time (or waited too long already)
+          for (Path directory : rescans)
+            rescan(directory);
+          for (Path path : pending)
+            update(path);
+          rescans.clear();
+          pending.clear();
+          continue;
+        }
+
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // Events were lost
+            rescans.add(root);
+            continue;
+          }
+          if (directory == null)
+            continue;
+
+          Path path = directory.resolve((Path) event.context());
+          if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+              && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            // Files may have been created before the directory is watched, so scan it
+            try {
+              register(path);
+            } catch (IOException e) {
+              // Deleted again already, the rescan removes it's files
+            }
+            rescans.add(path);
+          } else {
+            pending.add(path);
+          }
+        }
+        if (!key.reset())
+          directories.remove(key);
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // Closed
+    }
+  }
+
+  /**
+   * Watch a directory and all of it's subdirectories.
+   *
+   * @param directory The directory.
+   * @throws IOException The directories couldn't be registered.
+   */
+  private void register(Path directory) throws IOException {
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        directories.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Update all TMD files in a directory tree and remove the deleted ones from the index.
+   *
+   * @param directory The directory.
+   */
+  private void rescan(Path directory) {
+    final Set<Path> found = new LinkedHashSet<>();
+    try {
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+          found.add(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      // The directory is gone, the loop below removes it's files
+    }
+
+    for (Path path : found)
+      update(path);
+    for (Path path : new ArrayList<>(byPath.keySet())) {
+      if (path.startsWith(directory) && !found.contains(path))
+        update(path);
+    }
+  }
+
+  /**
+   * Update the index for a single changed path.
+   *
+   * @param path A created, modified or deleted file or directory.
+   */
+  private void update(Path path) {
+    IndexedTmd previous = byPath.get(path);
+
+    BasicFileAttributes attributes = null;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException e) {
+      // Deleted
+    }
+
+    if (attributes == null || !attributes.isRegularFile()) {
+      if (previous != null) {
+        remove(path, previous);
+        notify(new TmdChangeEvent(TmdChangeEvent.Kind.REMOVED, path, null, previous.tmd, null));
+      } else if (attributes == null) {
+        // A deleted directory: remove everything below it
+        for (Map.Entry<Path, IndexedTmd> entry : byPath.entrySet()) {
+          if (entry.getKey().startsWith(path)) {
+            remove(entry.getKey(), entry.getValue());
+            notify(new TmdChangeEvent(TmdChangeEvent.Kind.REMOVED, entry.getKey(), null, entry.getValue().tmd, null));
+          }
+        }
+      }
+      return;
+    }
+
+    try {
+      if (!filter.accept(path))
+        return;
+    } catch (IOException e) {
+      return;
+    }
+
+    long size         = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    if (previous != null && previous.size == size && previous.lastModified == lastModified)
+      return; // Unchanged, just another event of the same burst
+
+    try {
+      TMD tmd = new TMD(path.toFile(), options);
+      IndexedTmd indexed = new IndexedTmd(tmd, TitleVersion.of(tmd), size, lastModified);
+      if (previous != null)
+        byTitleVersion.remove(previous.titleVersion, previous.tmd);
+      byPath.put(path, indexed);
+      byTitleVersion.put(indexed.titleVersion, tmd);
+      notify(new TmdChangeEvent(previous == null ? TmdChangeEvent.Kind.ADDED : TmdChangeEvent.Kind.MODIFIED, path, tmd,
+          previous != null ? previous.tmd : null, null));
+    } catch (IOException | RuntimeException e) {
+      if (previous != null)
+        remove(path, previous);
+      notify(new TmdChangeEvent(TmdChangeEvent.Kind.FAILED, path, null, previous != null ? previous.tmd : null, e));
+    }
+  }
+
+  private void remove(Path path, IndexedTmd indexed) {
+    byPath.remove(path, indexed);
+    byTitleVersion.remove(indexed.titleVersion, indexed.tmd);
+  }
+
+  private void notify(TmdChangeEvent event) {
+    if (listener == null)
+      return;
+    try {
+      listener.onChange(event);
+    } catch (RuntimeException e) {
+      // Ignored, a broken listener must not stop the watcher
+    }
+  }
+
+  /**
+   * Stop watching. The index stays available, but isn't updated any more.
+   *
+   * @throws IOException An error occurred while closing the watch service.
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    Thread watcherThread;
+    synchronized (this) {
+      watcherThread = thread;
+    }
+    if (watcherThread != null && watcherThread != Thread.currentThread()) {
+      try {
+        watcherThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * A TMD in the index, together with the fingerprint of it's file.
+   */
+  private static final class IndexedTmd {
+    final TMD tmd;
+    final TitleVersion titleVersion;
+    final long size;
+    final long lastModified;
+
+    IndexedTmd(TMD tmd, TitleVersion titleVersion, long size, long lastModified) {
+      this.tmd          = tmd;
+      this.titleVersion = titleVersion;
+      this.size         = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HexStringTest {
+
+  @Test
+  public void bytesTest() {
+    HexString hs = HexString.fromBytes(new byte[] {0x00, 0x04, (byte) 0xAB, (byte) 0xFF});
+    assertEquals("0004ABFF", hs.toString());
+    assertEquals(4, hs.length());
+    assertArrayEquals(new byte[] {0x00, 0x04, (byte) 0xAB, (byte) 0xFF}, HexString.fromString("0004abff").toBytes());
+    assertTrue(hs.contentEquals(new byte[] {0x01, 0x00, 0x04, (byte) 0xAB, (byte) 0xFF}, 1));
+    assertFalse(hs.contentEquals(new byte[] {0x00, 0x04, (byte) 0xAB}, 0));
+  }
+
+  @Test
+  public void equalsAndHashCodeTest() {
+    HexString upper = HexString.fromString("00040000000EE000");
+    HexString lower = HexString.fromString("00040000000ee000");
+    assertTrue(upper.equals(lower));
+    assertTrue(upper.equals((Object) lower));
+    assertEquals(upper.hashCode(), lower.hashCode());
+    // Equal HexStrings look the same
+    assertEquals("00040000000EE000", lower.toString());
+
+    Map<HexString, String> map = new HashMap<>();
+    map.put(upper, "Super Smash Bros.");
+    assertEquals("Super Smash Bros.", map.get(lower));
+  }
+
+  @Test
+  public void compareToTest() {
+    assertTrue(HexString.fromString("7F").compareTo(HexString.fromString("80")) < 0);
+    assertTrue(HexString.fromString("FF00").compareTo(HexString.fromString("FF")) > 0);
+    assertEquals(0, HexString.fromString("ab").compareTo(HexString.fromString("AB")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidStringTest() {
+    HexString.fromString("0x12");
+  }
+}
@@ -0,0 +1,58 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class MappedTmdArchiveTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void packFileTest() throws IOException {
+    byte[] first  = TestTmds.build(0x0004000000030000L, 16, 3, true);
+    byte[] second = TestTmds.build(0x00040000000EE000L, 2080, 2, false);
+    byte[] third  = TestTmds.build(0x0004000E000EE000L, 48, 1, true);
+
+    File pack = folder.newFile("tmds.pack");
+    try (FileOutputStream out = new FileOutputStream(pack)) {
+      out.write(first);
+      out.write(second);
+      out.write(third);
+    }
+
+    try (MappedTmdArchive archive = new MappedTmdArchive(pack)) {
+      assertEquals(first.length + second.length + third.length, archive.getSize());
+      assertEquals(second.length, archive.getTmdLength(first.length));
+
+      TMD tmd = archive.getTmd(0);
+      assertEquals(16, tmd.getHeader().getTitleVersion());
+      assertEquals(3, tmd.getContentChunkRecords().size());
+      assertNotNull(tmd.getCertificates());
+
+      // The certificate chain has to be searched relative to the TMD, not to the pack file
+      tmd = archive.getTmd(first.length, second.length);
+      assertEquals("00040000000EE000", tmd.getHeader().getTitleId().toString());
+      assertEquals(0x101, tmd.getContentChunkRecords().get(1).getContentId());
+      assertNull(tmd.getCertificates());
+
+      tmd = archive.getTmd(first.length + second.length);
+      assertEquals(48, tmd.getHeader().getTitleVersion());
+      assertEquals("CA00000003", tmd.getCertificates()[1].getName());
+
+      // Eager TMDs copy their bytes out of the mapping
+      tmd = archive.getTmd(0, first.length, TmdOptions.DEFAULT.verifyIntegrity(true));
+      assertArrayEquals(first, tmd.getTmdFileReader().getBytes(0, first.length));
+    }
+  }
+}
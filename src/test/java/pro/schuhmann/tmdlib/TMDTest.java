@@ -19,6 +19,7 @@ import static org.junit.Assert.assertTrue;
 public class TMDTest {
 
   private static TMD tmd;
+  private static File tmdFileName;
 
   @BeforeClass
   public static void setUp() {
@@ -39,6 +40,7 @@ public class TMDTest {
       }
 
       tmd = new TMD(tmdFile);
+      tmdFileName = tmdFile;
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -143,4 +145,10 @@ public class TMDTest {
     assertEquals(publicExponent, ctk.getPublicKey().getPublicExponent());
     assertEquals(null, ctk.getPublicKey().getPublicKey());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void tmdIntegrityTest() throws IOException {
+    TMD verified = new TMD(tmdFileName, TmdOptions.DEFAULT.verifyIntegrity(true));
+    assertEquals(2, verified.getContentChunkRecords().size());
+  }
+}
@@ -0,0 +1,311 @@
+package pro.schuhmann.tmdlib;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Build synthetic 3DS and Wii TMDs, tickets and CIAs for tests, so no TMD has to be downloaded. All hashes inside the
+ * TMD are valid, the signatures are just garbage.
+ */
+public final class TestTmds {
+
+  private TestTmds() {
+  }
+
+  /**
+   * Build a TMD with RSA_2048_SHA256 signature and one content info record covering all contents.
+   * Content n has the content ID {@code 0x100 + n}, the content index n and the size {@code 0x8000 * (n + 1)}.
+   *
+   * @param titleId      The title ID.
+   * @param titleVersion The title version.
+   * @param contentCount The number of contents.
+   * @param certificates Append the two CDN certificates.
+   * @return The bytes of the TMD.
+   */
+  public static byte[] build(long titleId, int titleVersion, int contentCount, boolean certificates) {
+    ByteBuffer tmd = ByteBuffer.allocate(0x140 + 0x9C4 + contentCount * 0x30 + (certificates ? 0x700 : 0));
+
+    // Signature data
+    tmd.putInt(0x010004);
+    fill(tmd, 0x100, 0x5A);
+    tmd.position(0x140);
+
+    // Header
+    tmd.put(padded("Root-CA00000003-CP0000000b", 0x40));
+    tmd.put((byte) 1);
+    tmd.position(0x140 + 0x4C);
+    tmd.putLong(titleId);
+    tmd.putInt(0x40);
+    tmd.position(0x140 + 0x5A);
+    tmd.putInt(0x80000);
+    tmd.position(0x140 + 0x9C);
+    tmd.putShort((short) titleVersion);
+    tmd.putShort((short) contentCount);
+
+    // Content chunk records
+    int chunkOffset = 0x140 + 0x9C4;
+    tmd.position(chunkOffset);
+    for (int i = 0; i < contentCount; i++) {
+      tmd.putInt(0x100 + i);
+      tmd.putShort((short) i);
+      tmd.putShort((short) 1);
+      byte[] content = content(i);
+      tmd.putLong(content.length);
+      tmd.put(sha256(content, 0, content.length));
+    }
+
+    // Content info records
+    int infoOffset = 0x140 + 0xC4;
+    tmd.position(infoOffset);
+    tmd.putShort((short) 0);
+    tmd.putShort((short) contentCount);
+    tmd.put(sha256(tmd.array(), chunkOffset, contentCount * 0x30));
+    tmd.position(0x140 + 0xA4);
+    tmd.put(sha256(tmd.array(), infoOffset, 64 * 0x24));
+
+    // Certificates
+    if (certificates) {
+      tmd.position(chunkOffset + contentCount * 0x30);
+      putCertificate(tmd, 0x010004, 0x100, "Root-CA00000003", "CP0000000b");
+      putCertificate(tmd, 0x010003, 0x200, "Root", "CA00000003");
+    }
+
+    return tmd.array();
+  }
+
+  /**
+   * Build a Wii TMD (TMD version 0) with RSA_2048_SHA1 signature, the contents are the same as in
+   * {@link #build(long, int, int, boolean)}, but with SHA-1 hashes.
+   *
+   * @param titleId      The title ID.
+   * @param titleVersion The title version.
+   * @param contentCount The number of contents.
+   * @param certificates Append the two CDN certificates.
+   * @return The bytes of the TMD.
+   */
+  public static byte[] buildWii(long titleId, int titleVersion, int contentCount, boolean certificates) {
+    ByteBuffer tmd = ByteBuffer.allocate(0x140 + 0xA4 + contentCount * 0x24 + (certificates ? 0x700 : 0));
+
+    // Signature data
+    tmd.putInt(0x010001);
+    fill(tmd, 0x100, 0x5A);
+    tmd.position(0x140);
+
+    // Header, the TMD version is 0
+    tmd.put(padded("Root-CA00000001-CP00000004", 0x40));
+    tmd.position(0x140 + 0x4C);
+    tmd.putLong(titleId);
+    tmd.putInt(0x1);
+    tmd.position(0x140 + 0x9C);
+    tmd.putShort((short) titleVersion);
+    tmd.putShort((short) contentCount);
+
+    // Content chunk records, directly after the header
+    tmd.position(0x140 + 0xA4);
+    for (int i = 0; i < contentCount; i++) {
+      tmd.putInt(0x100 + i);
+      tmd.putShort((short) i);
+      tmd.putShort((short) 1);
+      byte[] content = content(i);
+      tmd.putLong(content.length);
+      tmd.put(digest("SHA-1", content, 0, content.length));
+    }
+
+    // Certificates
+    if (certificates) {
+      putCertificate(tmd, 0x010001, 0x100, "Root-CA00000001", "CP00000004");
+      putCertificate(tmd, 0x010000, 0x200, "Root", "CA00000001");
+    }
+
+    return tmd.array();
+  }
+
+  /**
+   * Build a 3DS ticket (ticket version 1) with RSA_2048_SHA256 signature and the title key 00 01 02 ... 0F.
+   *
+   * @param titleId      The title ID.
+   * @param certificates Append the two CDN certificates.
+   * @return The bytes of the ticket.
+   */
+  public static byte[] buildTicket(long titleId, boolean certificates) {
+    ByteBuffer ticket = ByteBuffer.allocate(0x140 + 0x164 + 0xAC + (certificates ? 0x700 : 0));
+
+    // Signature data
+    ticket.putInt(0x010004);
+    fill(ticket, 0x100, 0x5A);
+    ticket.position(0x140);
+
+    // Ticket data
+    ticket.put(padded("Root-CA00000003-XS0000000c", 0x40));
+    ticket.position(0x140 + 0x7C);
+    ticket.put((byte) 1);
+    ticket.position(0x140 + 0x7F);
+    for (int i = 0; i < 0x10; i++)
+      ticket.put((byte) i);
+    ticket.position(0x140 + 0x90);
+    ticket.putLong(0x0004000012345678L);
+    ticket.putInt(0);
+    ticket.putLong(titleId);
+    ticket.position(0x140 + 0xA6);
+    ticket.putShort((short) 1);
+
+    // Content index header, the rest of the content index is unused here
+    ticket.position(0x140 + 0x164);
+    ticket.putInt(0x00010014);
+    ticket.putInt(0xAC);
+
+    if (certificates) {
+      ticket.position(0x140 + 0x164 + 0xAC);
+      putCertificate(ticket, 0x010004, 0x100, "Root-CA00000003", "XS0000000c");
+      putCertificate(ticket, 0x010003, 0x200, "Root", "CA00000003");
+    }
+
+    return ticket.array();
+  }
+
+  /**
+   * Build a CIA containing a ticket, a TMD and it's (unencrypted) contents {@link #content(int)}. The certificate
+   * chain consists of the CA, XS and CP certificates.
+   *
+   * @param ticket   The ticket, see {@link #buildTicket(long, boolean)}.
+   * @param tmd      The TMD, see {@link #build(long, int, int, boolean)}.
+   * @param included Whether the content with the content index n is included in the CIA.
+   * @return The bytes of the CIA.
+   */
+  public static byte[] buildCia(byte[] ticket, byte[] tmd, boolean[] included) {
+    long contentSize = 0;
+    for (int i = 0; i < included.length; i++)
+      contentSize += included[i] ? content(i).length : 0;
+
+    int chainOffset   = align(0x2020);
+    int ticketOffset  = align(chainOffset + 0xA00);
+    int tmdOffset     = align(ticketOffset + ticket.length);
+    int contentOffset = align(tmdOffset + tmd.length);
+    ByteBuffer cia = ByteBuffer.allocate((int) (contentOffset + contentSize));
+
+    // Header, little endian
+    cia.order(ByteOrder.LITTLE_ENDIAN);
+    cia.putInt(0x2020);
+    cia.putShort((short) 0);
+    cia.putShort((short) 0);
+    cia.putInt(0xA00);
+    cia.putInt(ticket.length);
+    cia.putInt(tmd.length);
+    cia.putInt(0);
+    cia.putLong(contentSize);
+    for (int i = 0; i < included.length; i++) {
+      if (included[i])
+        cia.put(0x20 + i / 8, (byte) (cia.get(0x20 + i / 8) | (0x80 >>> (i % 8))));
+    }
+    cia.order(ByteOrder.BIG_ENDIAN);
+
+    cia.position(chainOffset);
+    putCertificate(cia, 0x010003, 0x200, "Root", "CA00000003");
+    putCertificate(cia, 0x010004, 0x100, "Root-CA00000003", "XS0000000c");
+    putCertificate(cia, 0x010004, 0x100, "Root-CA00000003", "CP0000000b");
+    cia.position(ticketOffset);
+    cia.put(ticket);
+    cia.position(tmdOffset);
+    cia.put(tmd);
+    cia.position(contentOffset);
+    for (int i = 0; i < included.length; i++) {
+      if (included[i])
+        cia.put(content(i));
+    }
+
+    return cia.array();
+  }
+
+  /**
+   * Encrypt the contents of a CIA created by {@link #buildCia(byte[], byte[], boolean[])} in place, like the contents
+   * of a real CIA: AES-128-CBC with the title key, the IV is the content index.
+   *
+   * @param cia      The bytes of the CIA.
+   * @param titleKey The decrypted title key.
+   * @param included Whether the content with the content index n is included in the CIA.
+   */
+  public static void encryptCia(byte[] cia, byte[] titleKey, boolean[] included) {
+    int offset = cia.length;
+    for (int i = 0; i < included.length; i++)
+      offset -= included[i] ? content(i).length : 0;
+    try {
+      for (int i = 0; i < included.length; i++) {
+        if (!included[i])
+          continue;
+        byte[] iv = new byte[0x10];
+        iv[1] = (byte) i;
+        Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(titleKey, "AES"), new IvParameterSpec(iv));
+        int length = content(i).length;
+        cipher.doFinal(cia, offset, length, cia, offset);
+        offset += length;
+      }
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static int align(int offset) {
+    return (offset + 0x3F) & ~0x3F;
+  }
+
+  /**
+   * Get the (decrypted) content n of a TMD created by {@link #build(long, int, int, boolean)}.
+   *
+   * @param n The content index.
+   * @return The content, {@code 0x8000 * (n + 1)} bytes.
+   */
+  public static byte[] content(int n) {
+    byte[] content = new byte[0x8000 * (n + 1)];
+    for (int i = 0; i < content.length; i++)
+      content[i] = (byte) (i * 31 + n);
+    return content;
+  }
+
+  private static void putCertificate(ByteBuffer tmd, int signatureType, int signatureSize, String issuer, String name) {
+    int start = tmd.position();
+    tmd.putInt(signatureType);
+    fill(tmd, signatureSize, 0x33);
+    tmd.position(start + 0x4 + signatureSize + 0x3C);
+    tmd.put(padded(issuer, 0x40));
+    tmd.putInt(1); // RSA_2048
+    tmd.put(padded(name, 0x40));
+    tmd.putInt(0);
+    fill(tmd, 0x100, 0xA5);
+    tmd.putInt(65537);
+    tmd.position(tmd.position() + 0x34);
+  }
+
+  private static void fill(ByteBuffer buffer, int length, int value) {
+    for (int i = 0; i < length; i++)
+      buffer.put((byte) value);
+  }
+
+  private static byte[] padded(String s, int length) {
+    byte[] bytes = new byte[length];
+    byte[] string = s.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(string, 0, bytes, 0, string.length);
+    return bytes;
+  }
+
+  public static byte[] sha256(byte[] data, int offset, int length) {
+    return digest("SHA-256", data, offset, length);
+  }
+
+  public static byte[] digest(String algorithm, byte[] data, int offset, int length) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(algorithm);
+      digest.update(data, offset, length);
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TitleIdTest {
+
+  @Test
+  public void halvesTest() {
+    TitleId titleId = TitleId.parse("0004000e000ee000");
+    assertEquals(0x0004000E000EE000L, titleId.toLong());
+    assertEquals(0x0004000E, titleId.getHigh());
+    assertEquals(0x000EE000, titleId.getLow());
+    assertEquals(0x0004, titleId.getPlatform());
+    assertEquals(0x000E, titleId.getCategory());
+    assertEquals("0004000E000EE000", titleId.toString());
+    assertEquals(titleId, TitleId.of(0x0004000E, 0x000EE000));
+  }
+
+  @Test
+  public void rangeTest() {
+    NavigableSet<TitleId> titles = new TreeSet<>();
+    titles.add(TitleId.parse("0004000000030000"));
+    titles.add(TitleId.parse("00040000000EE000"));
+    titles.add(TitleId.parse("0004000E000EE000"));
+    titles.add(TitleId.parse("000400000FFFFFFF"));
+    titles.add(TitleId.parse("F004000000000000"));
+
+    NavigableSet<TitleId> applications = titles.subSet(TitleId.rangeStart(0x00040000), true,
+        TitleId.rangeEnd(0x00040000), true);
+    assertEquals(3, applications.size());
+    assertEquals(TitleId.parse("F004000000000000"), titles.last());
+  }
+
+  @Test
+  public void headerTest() throws IOException {
+    TMD tmd = TMD.fromByteArray(TestTmds.build(0x00040000000EE000L, 2080, 1, false));
+    assertEquals(TitleId.parse("00040000000EE000"), tmd.getHeader().getTitleIdValue());
+    assertTrue(tmd.getHeader().getTitleIdValue().hasHigh(0x00040000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTitleIdTest() {
+    TitleId.parse("00040000000EE00G");
+  }
+}
@@ -0,0 +1,137 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TmdFileReaderTest {
+
+  // Some garbage around the actual "TMD" bytes, to make sure slices are handled correctly
+  private static final byte[] DATA = {
+      (byte) 0xEE, (byte) 0xEE,
+      0x00, 0x01, 0x00, 0x04, (byte) 0xCA, (byte) 0xFE, 0x12, 0x34,
+      0x00, 0x04, 0x00, 0x00, 0x00, 0x0E, (byte) 0xE0, 0x00,
+      'R', 'o', 'o', 't', 0x00, 0x00,
+      (byte) 0xEE
+  };
+  private static final int OFFSET = 2;
+  private static final int LENGTH = DATA.length - 3;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void byteArrayTest() throws IOException {
+    checkReader(TmdFileReader.forByteArray(DATA, OFFSET, LENGTH));
+  }
+
+  @Test
+  public void heapByteBufferTest() throws IOException {
+    checkReader(TmdFileReader.forByteBuffer(ByteBuffer.wrap(DATA), OFFSET, LENGTH));
+  }
+
+  @Test
+  public void directByteBufferTest() throws IOException {
+    ByteBuffer direct = ByteBuffer.allocateDirect(DATA.length);
+    direct.put(DATA);
+    direct.flip();
+    checkReader(TmdFileReader.forByteBuffer(direct, OFFSET, LENGTH));
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  public void inputStreamTest() throws IOException {
+    byte[] tmd = new byte[LENGTH];
+    System.arraycopy(DATA, OFFSET, tmd, 0, LENGTH);
+    checkReader(TmdFileReader.forInputStream(new ByteArrayInputStream(tmd)));
+  }
+
+  @Test
+  public void openFileTest() throws Exception {
+    File file = folder.newFile("tmd");
+    byte[] tmd = TestTmds.build(0x00040000000EE000L, 16, 64, true);
+    Files.write(file.toPath(), tmd);
+
+    final TmdFileReader reader = TmdFileReader.openFile(file);
+    final TMD expected = TMD.fromByteArray(tmd);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<TMD>> results = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(new Callable<TMD>() {
+          @Override
+          public TMD call() throws IOException {
+            return new TMD(reader);
+          }
+        }));
+      }
+      for (Future<TMD> result : results) {
+        TMD parsed = result.get();
+        assertEquals(expected.getHeader().getTitleIdValue(), parsed.getHeader().getTitleIdValue());
+        assertEquals(64, parsed.getContentChunkRecords().size());
+        assertEquals(expected.getContentChunkRecords().get(63).getSha256hash(),
+            parsed.getContentChunkRecords().get(63).getSha256hash());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    reader.close();
+    try {
+      reader.getInt(0);
+      fail();
+    } catch (ClosedChannelException expectedException) {
+      // The file was released
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void outOfBoundsTest() throws IOException {
+    TmdFileReader.forByteArray(DATA, OFFSET, LENGTH).getLong(LENGTH - 4);
+  }
+
+  @Test
+  public void overflowingSliceTest() {
+    // offset + length overflows to a negative number, which would pass a naive bounds check
+    try {
+      TmdFileReader.forByteArray(DATA, OFFSET, Integer.MAX_VALUE);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+      // The slice exceeds the array
+    }
+    try {
+      TmdFileReader.forByteBuffer(ByteBuffer.wrap(DATA), OFFSET, Integer.MAX_VALUE);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+      // The slice exceeds the buffer
+    }
+  }
+
+  private static void checkReader(TmdFileReader reader) throws IOException {
+    assertEquals(LENGTH, reader.getFileLength());
+    assertEquals(0x010004, reader.getInt(0));
+    assertEquals((short) 0xCAFE, reader.getShort(4));
+    assertEquals((byte) 0x34, reader.getByte(7));
+    assertEquals(0x00040000000EE000L, reader.getLong(8));
+    assertTrue(new HexString("00040000000EE000").equals(reader.getHexString(8, 8)));
+    assertEquals("Root", reader.getString(16, 6));
+  }
+}
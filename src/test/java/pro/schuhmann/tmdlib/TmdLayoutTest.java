@@ -0,0 +1,142 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.TmdFormatException.Problem;
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecordList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TmdLayoutTest {
+
+  private static final TmdOptions CHECKED = TmdOptions.DEFAULT.verifyIntegrity(true).validateStructure(true);
+
+  @Test
+  public void detectTest() {
+    assertEquals(TmdLayout.CTR, TmdLayout.detect((byte) 1, 0x00040000000EE000L));
+    assertEquals(TmdLayout.WII_U, TmdLayout.detect((byte) 1, 0x0005000E10144F00L));
+    assertEquals(TmdLayout.WII, TmdLayout.detect((byte) 0, 0x0001000152414241L));
+    // vWii titles have a Wii TMD
+    assertEquals(TmdLayout.WII, TmdLayout.detect((byte) 0, 0x0007000000000002L));
+
+    assertEquals(0x9C4, TmdLayout.CTR.getContentChunkRecordsOffset());
+    assertEquals(0xA4, TmdLayout.WII.getContentChunkRecordsOffset());
+    assertEquals(0xA4 + 3 * 0x24, TmdLayout.WII.getSignedLength(3));
+    assertEquals(0xC4, TmdLayout.WII_U.getSignedLength(3));
+  }
+
+  @Test
+  public void wiiTest() throws IOException {
+    byte[] data = TestTmds.buildWii(0x0001000152414241L, 513, 3, true);
+    TMD tmd = new TMD(TmdFileReader.forByteArray(data), CHECKED);
+
+    assertEquals(TmdLayout.WII, tmd.getLayout());
+    assertEquals(SignatureType.RSA_2048_SHA1, tmd.getSignatureData().getSignatureType());
+    assertEquals(0x0001000152414241L, tmd.getHeader().getTitleIdValue().toLong());
+    assertEquals(513, tmd.getHeader().getTitleVersion());
+    assertEquals(3, tmd.getHeader().getContentCount());
+    assertNull(tmd.getHeader().getContentInfoRecordsHash());
+    assertTrue(tmd.getContentInfoRecords().isEmpty());
+
+    List<ContentChunkRecord> records = tmd.getContentChunkRecords();
+    assertEquals(3, records.size());
+    byte[] hash = new byte[0x20];
+    for (int i = 0; i < 3; i++) {
+      byte[] content = TestTmds.content(i);
+      byte[] sha1 = TestTmds.digest("SHA-1", content, 0, content.length);
+      assertEquals(0x100 + i, records.get(i).getContentId());
+      assertEquals(content.length, records.get(i).getContentSize());
+      assertArrayEquals(sha1, records.get(i).getSha256hash().toBytes());
+      ((ContentChunkRecordList) records).getSha256hash(i, hash, 0);
+      assertArrayEquals(sha1, Arrays.copyOf(hash, 0x14));
+    }
+
+    assertEquals(2, tmd.getCertificates().length);
+    assertEquals(data.length - 0x400, tmd.getCertificateOffset(1));
+    assertNull(new TmdValidator(true).getProblem(TmdFileReader.forByteArray(data)));
+  }
+
+  @Test
+  public void wiiWithoutCertificatesTest() throws IOException {
+    byte[] data = TestTmds.buildWii(0x0001000152414241L, 513, 3, false);
+    assertNull(TMD.fromByteArray(data).getCertificates());
+
+    // Truncated in the middle of the last content chunk record
+    byte[] truncated = Arrays.copyOf(data, data.length - 0x10);
+    assertEquals(Problem.TRUNCATED_CONTENT_CHUNK_RECORDS,
+        new TmdValidator().getProblem(TmdFileReader.forByteArray(truncated)));
+  }
+
+  @Test
+  public void certificatesInsideChunkRecordsTest() throws IOException {
+    // 64 contents without certificates: EOF - 0x700 is inside the content chunk records
+    byte[] data = TestTmds.build(0x00040000000EE000L, 0, 64, false);
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.putInt(data.length - 0x700, 0x010004);
+    buffer.putInt(data.length - 0x400, 0x010003);
+    assertNull(TMD.fromByteArray(data).getCertificates());
+  }
+
+  @Test
+  public void wiiUTest() throws IOException {
+    byte[] data = TestTmds.build(0x0005000E10144F00L, 208, 5, true);
+    TMD tmd = new TMD(TmdFileReader.forByteArray(data), CHECKED);
+
+    assertEquals(TmdLayout.WII_U, tmd.getLayout());
+    assertEquals(1, tmd.getContentInfoRecords().size());
+    assertNotNull(tmd.getHeader().getContentInfoRecordsHash());
+    assertEquals(5, tmd.getContentChunkRecords().size());
+    // Wii U content hashes are SHA-1, the rest of the hash field is padding
+    assertEquals(0x14, tmd.getContentChunkRecords().get(4).getSha256hash().length());
+    assertEquals(2, tmd.getCertificates().length);
+  }
+
+  @Test
+  public void streamParserTest() throws IOException {
+    byte[] data = TestTmds.buildWii(0x0001000152414241L, 513, 3, true);
+
+    final List<String> events = new ArrayList<>();
+    new TmdStreamParser().parse(data, 0, data.length, new AbstractTmdVisitor() {
+      @Override
+      public boolean onHeader(long titleId, short titleVersion, int titleType, long systemVersion, int contentCount,
+                              short bootContent, byte[] buffer, int headerOffset) {
+        events.add("header " + TmdLayout.detect(buffer[headerOffset + 0x40], titleId) + " " + contentCount);
+        return true;
+      }
+
+      @Override
+      public void onContentInfo(int index, short contentIndexOffset, short commandCount, byte[] hashBuffer,
+                                int hashOffset) {
+        events.add("info " + index);
+      }
+
+      @Override
+      public void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize,
+                                 byte[] hashBuffer, int hashOffset) {
+        events.add("chunk " + Integer.toHexString(contentId) + " " + contentSize);
+      }
+
+      @Override
+      public void onCertificate(int index, SignatureType signatureType, PublicKeyType publicKeyType, byte[] buffer,
+                                int certificateOffset, int certificateSize) {
+        events.add("certificate " + signatureType + " " + Integer.toHexString(certificateSize));
+      }
+    });
+
+    assertEquals(Arrays.asList("header WII 3", "chunk 100 32768", "chunk 101 65536", "chunk 102 98304",
+        "certificate RSA_2048_SHA1 300", "certificate RSA_4096_SHA1 400"), events);
+  }
+}
@@ -0,0 +1,105 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TmdOptionsTest {
+
+  @Test
+  public void lazyTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 4, true);
+    TMD tmd = new TMD(TmdFileReader.forByteArray(data), TmdOptions.DEFAULT.lazy(true));
+    assertEquals(2080, tmd.getHeader().getTitleVersion());
+    assertSame(tmd.getHeader(), tmd.getHeader());
+    assertEquals(4, tmd.getContentChunkRecords().size());
+    assertEquals(1, tmd.getContentInfoRecords().size());
+    assertNotNull(tmd.getSignatureData());
+    assertEquals("CP0000000b", tmd.getCertificates()[0].getName());
+    assertEquals(data.length, tmd.getTmdFileReader().getFileLength());
+  }
+
+  @Test
+  public void eagerTest() throws IOException {
+    byte[] tmdData = TestTmds.build(0x00040000000EE000L, 2080, 4, true);
+    byte[] data    = new byte[tmdData.length + 0x1000];
+    System.arraycopy(tmdData, 0, data, 0x800, tmdData.length);
+    TMD tmd = TMD.fromByteArray(data, 0x800, tmdData.length);
+    // An eager TMD only keeps a copy of it's own bytes, not the surrounding array
+    Arrays.fill(data, (byte) 0);
+    assertEquals(2080, tmd.getHeader().getTitleVersion());
+    assertEquals(0x8000 * 4, tmd.getContentChunkRecords().get(3).getContentSize());
+    assertEquals(tmdData.length - 0x400, tmd.getCertificateOffset(1));
+    assertArrayEquals(tmdData, tmd.getTmdFileReader().getBytes(0, tmdData.length));
+
+    // A TMD file (or array) containing nothing else is kept as it is
+    TmdFileReader reader = TmdFileReader.forByteArray(tmdData);
+    assertSame(reader, new TMD(reader).getTmdFileReader());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void lazyDecodingFailedTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 4, false);
+    // The content count is way too big now, the content chunk records are truncated
+    data[0x140 + 0x9E] = 0x10;
+
+    TMD tmd = new TMD(TmdFileReader.forByteArray(data), TmdOptions.DEFAULT.lazy(true));
+    assertEquals(2080, tmd.getHeader().getTitleVersion());
+    tmd.getContentChunkRecords();
+  }
+
+  @Test
+  public void verifyIntegrityTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 100, true);
+    TMD tmd = new TMD(TmdFileReader.forByteArray(data), TmdOptions.DEFAULT.verifyIntegrity(true));
+    assertEquals(100, tmd.getContentChunkRecords().size());
+  }
+
+  @Test(expected = TmdIntegrityException.class)
+  public void contentChunkRecordTamperedTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 100, true);
+    // Change the content size of the 51th content
+    data[0x140 + 0x9C4 + 50 * 0x30 + 0xF] ^= 0x10;
+    new TMD(TmdFileReader.forByteArray(data), TmdOptions.DEFAULT.lazy(true).verifyIntegrity(true));
+  }
+
+  @Test(expected = TmdIntegrityException.class)
+  public void contentInfoRecordTamperedTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 100, true);
+    // Change the hash of the content info record
+    data[0x140 + 0xC4 + 0x10] ^= 0x10;
+    new TMD(TmdFileReader.forByteArray(data), TmdOptions.DEFAULT.verifyIntegrity(true));
+  }
+
+  @Test
+  public void certificateStoreTest() throws IOException {
+    CertificateStore store = new CertificateStore(16);
+    TmdOptions options = TmdOptions.DEFAULT.certificateStore(store);
+    TMD first  = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x00040000000EE000L, 2080, 4, true)), options);
+    TMD second = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x0004000000055D00L, 1040, 2, true)),
+        options.lazy(true));
+
+    assertSame(first.getCertificates()[0], second.getCertificates()[0]);
+    assertSame(first.getCertificates()[1], second.getCertificates()[1]);
+    assertEquals(2, store.size());
+
+    TMD unshared = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x00040000000EE000L, 2080, 4, true)));
+    assertNotSame(first.getCertificates()[0], unshared.getCertificates()[0]);
+  }
+
+  @Test
+  public void certificateStoreFullTest() throws IOException {
+    TmdOptions options = TmdOptions.DEFAULT.certificateStore(new CertificateStore(0));
+    TMD first  = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x00040000000EE000L, 2080, 4, true)), options);
+    TMD second = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x00040000000EE000L, 2080, 4, true)), options);
+    assertNotSame(first.getCertificates()[0], second.getCertificates()[0]);
+    assertEquals(0, options.getCertificateStore().size());
+  }
+}
@@ -0,0 +1,114 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.enums.PublicKeyType;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TmdStreamParserTest {
+
+  @Test
+  public void parseTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 300, true);
+    TMD tmd = TMD.fromByteArray(data);
+
+    final List<String> events = new ArrayList<>();
+    final List<byte[]> hashes = new ArrayList<>();
+    TmdStreamParser parser = new TmdStreamParser();
+    // A stream larger than the initial buffer
+    parser.parse(new ByteArrayInputStream(data), new AbstractTmdVisitor() {
+      @Override
+      public void onSignature(SignatureType signatureType, byte[] buffer, int signatureOffset) {
+        events.add("signature " + signatureType);
+      }
+
+      @Override
+      public boolean onHeader(long titleId, short titleVersion, int titleType, long systemVersion, int contentCount,
+                              short bootContent, byte[] buffer, int headerOffset) {
+        events.add("header " + new TitleId(titleId) + " v" + titleVersion + " " + contentCount);
+        return true;
+      }
+
+      @Override
+      public void onContentInfo(int index, short contentIndexOffset, short commandCount, byte[] hashBuffer,
+                                int hashOffset) {
+        events.add("info " + index + " " + contentIndexOffset + " " + commandCount);
+      }
+
+      @Override
+      public void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize,
+                                 byte[] hashBuffer, int hashOffset) {
+        byte[] hash = new byte[0x20];
+        System.arraycopy(hashBuffer, hashOffset, hash, 0, hash.length);
+        hashes.add(hash);
+      }
+
+      @Override
+      public void onCertificate(int index, SignatureType signatureType, PublicKeyType publicKeyType, byte[] buffer,
+                                int certificateOffset, int certificateSize) {
+        events.add("certificate " + index + " " + signatureType + " " + publicKeyType + " " + certificateSize);
+      }
+
+      @Override
+      public void onEnd() {
+        events.add("end");
+      }
+    });
+
+    assertEquals("signature RSA_2048_SHA256", events.get(0));
+    assertEquals("header 00040000000EE000 v2080 300", events.get(1));
+    assertEquals("info 0 0 300", events.get(2));
+    assertEquals("certificate 0 RSA_2048_SHA256 RSA_2048 768", events.get(3));
+    assertEquals("certificate 1 RSA_4096_SHA256 RSA_2048 1024", events.get(4));
+    assertEquals("end", events.get(5));
+
+    List<ContentChunkRecord> records = tmd.getContentChunkRecords();
+    assertEquals(records.size(), hashes.size());
+    for (int i = 0; i < records.size(); i++)
+      assertArrayEquals(records.get(i).getSha256hash().toBytes(), hashes.get(i));
+  }
+
+  @Test
+  public void stopAfterHeaderTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 3, false);
+    final int[] chunks = new int[1];
+    final boolean[] ended = new boolean[1];
+    new TmdStreamParser().parse(data, 0, data.length, new AbstractTmdVisitor() {
+      @Override
+      public boolean onHeader(long titleId, short titleVersion, int titleType, long systemVersion, int contentCount,
+                              short bootContent, byte[] buffer, int headerOffset) {
+        return false;
+      }
+
+      @Override
+      public void onContentChunk(int contentId, short contentIndex, short contentType, long contentSize,
+                                 byte[] hashBuffer, int hashOffset) {
+        chunks[0]++;
+      }
+
+      @Override
+      public void onEnd() {
+        ended[0] = true;
+      }
+    });
+    assertEquals(0, chunks[0]);
+    assertFalse(ended[0]);
+  }
+
+  @Test(expected = EOFException.class)
+  public void truncatedTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 3, false);
+    new TmdStreamParser().parse(data, 0, data.length - 1, new AbstractTmdVisitor() {
+    });
+  }
+}
@@ -0,0 +1,132 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.TmdFormatException.Problem;
+import pro.schuhmann.tmdlib.metrics.SimpleTmdMetrics;
+import pro.schuhmann.tmdlib.metrics.TmdSection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TmdValidatorTest {
+
+  private static final long TITLE_ID = 0x00040000000EE000L;
+
+  private final TmdValidator validator             = new TmdValidator();
+  private final TmdValidator certificatesValidator = new TmdValidator(true);
+
+  @Test
+  public void validTest() throws IOException {
+    byte[] tmd = TestTmds.build(TITLE_ID, 16, 3, true);
+    assertNull(validator.getProblem(TmdFileReader.forByteArray(tmd)));
+    assertNull(certificatesValidator.getProblem(TmdFileReader.forByteArray(tmd)));
+    assertNull(validator.getProblem(TmdFileReader.forByteArray(TestTmds.build(TITLE_ID, 16, 3, false))));
+  }
+
+  @Test
+  public void problemTest() throws IOException {
+    byte[] tmd = TestTmds.build(TITLE_ID, 16, 3, true);
+    final int chunksEnd = 0x140 + 0x9C4 + 3 * 0x30;
+
+    assertProblem(Problem.TRUNCATED_SIGNATURE_DATA, Arrays.copyOf(tmd, 2));
+    assertProblem(Problem.TRUNCATED_SIGNATURE_DATA, Arrays.copyOf(tmd, 0x100));
+    assertProblem(Problem.TRUNCATED_HEADER, Arrays.copyOf(tmd, 0x200));
+    assertProblem(Problem.TRUNCATED_CONTENT_INFO_RECORDS, Arrays.copyOf(tmd, 0x900));
+    assertProblem(Problem.TRUNCATED_CONTENT_CHUNK_RECORDS, Arrays.copyOf(tmd, chunksEnd - 1));
+    assertProblem(Problem.TRUNCATED_CERTIFICATE, Arrays.copyOf(tmd, tmd.length - 1));
+
+    byte[] broken = tmd.clone();
+    broken[3] = 0x42;
+    assertProblem(Problem.UNKNOWN_SIGNATURE_TYPE, broken);
+
+    // The content info record covers 3 contents, but the header says 2
+    broken = tmd.clone();
+    ByteBuffer.wrap(broken).putShort(0x140 + 0x9E, (short) 2);
+    assertProblem(Problem.COUNT_MISMATCH, broken);
+
+    // Public key type of the CP certificate
+    broken = tmd.clone();
+    ByteBuffer.wrap(broken).putInt(chunksEnd + 0x140 + 0x40, 7);
+    assertProblem(Problem.UNKNOWN_PUBLIC_KEY_TYPE, broken);
+
+    // The CA certificate is missing, so the chain doesn't reach "Root"
+    byte[] withoutCa = Arrays.copyOf(tmd, tmd.length - 0x400);
+    assertNull(validator.getProblem(TmdFileReader.forByteArray(withoutCa)));
+    assertEquals(Problem.MISSING_CERTIFICATE_CHAIN, certificatesValidator.getProblem(
+        TmdFileReader.forByteArray(withoutCa)));
+    assertEquals(Problem.MISSING_CERTIFICATE_CHAIN, certificatesValidator.getProblem(
+        TmdFileReader.forByteArray(TestTmds.build(TITLE_ID, 16, 3, false))));
+  }
+
+  @Test
+  public void paddingTest() throws IOException {
+    // TMDs extracted from CIAs are padded with zeros
+    byte[] padded = Arrays.copyOf(TestTmds.build(TITLE_ID, 16, 3, true), 0x1400);
+    assertNull(validator.getProblem(TmdFileReader.forByteArray(padded)));
+    assertNull(certificatesValidator.getProblem(TmdFileReader.forByteArray(padded)));
+    new TMD(TmdFileReader.forByteArray(padded), TmdOptions.DEFAULT.validateStructure(true));
+
+    padded = Arrays.copyOf(TestTmds.build(TITLE_ID, 16, 3, false), 0xC00);
+    assertNull(validator.getProblem(TmdFileReader.forByteArray(padded)));
+    assertEquals(Problem.MISSING_CERTIFICATE_CHAIN, certificatesValidator.getProblem(
+        TmdFileReader.forByteArray(padded)));
+
+    // Only zeros are padding
+    padded[padded.length - 1] = 1;
+    assertProblem(Problem.UNKNOWN_SIGNATURE_TYPE, padded);
+  }
+
+  @Test
+  public void metricsTest() throws IOException {
+    byte[] tmd = TestTmds.build(TITLE_ID, 16, 3, true);
+    SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+    new TMD(TmdFileReader.forByteArray(tmd), TmdOptions.DEFAULT.validateStructure(true).metrics(metrics));
+    assertEquals(1, metrics.getSectionTime(TmdSection.STRUCTURE).getCount());
+    assertEquals(tmd.length, metrics.getSectionBytes(TmdSection.STRUCTURE));
+
+    // A broken TMD is reported as a failure while validating the structure
+    ByteBuffer.wrap(tmd).putShort(0x140 + 0x9E, (short) 2);
+    try {
+      new TMD(TmdFileReader.forByteArray(tmd), TmdOptions.DEFAULT.validateStructure(true).metrics(metrics));
+      fail();
+    } catch (TmdFormatException e) {
+      assertEquals(Long.valueOf(1), metrics.getFailures().get("STRUCTURE/UNKNOWN/UNKNOWN/TmdFormatException"));
+    }
+  }
+
+  @Test
+  public void validateStructureTest() throws IOException {
+    byte[] tmd = TestTmds.build(TITLE_ID, 16, 3, false);
+    ByteBuffer.wrap(tmd).putShort(0x140 + 0x9E, (short) 4);
+    try {
+      new TMD(TmdFileReader.forByteArray(tmd), TmdOptions.DEFAULT.validateStructure(true));
+      fail();
+    } catch (TmdFormatException e) {
+      assertEquals(Problem.TRUNCATED_CONTENT_CHUNK_RECORDS, e.getProblem());
+    }
+
+    // No more NullPointerExceptions
+    tmd[3] = 0x42;
+    try {
+      TMD.fromByteArray(tmd);
+      fail();
+    } catch (TmdFormatException e) {
+      assertEquals(Problem.UNKNOWN_SIGNATURE_TYPE, e.getProblem());
+    }
+  }
+
+  private void assertProblem(Problem expected, byte[] tmd) throws IOException {
+    assertEquals(expected, validator.getProblem(TmdFileReader.forByteArray(tmd)));
+    try {
+      validator.validate(TmdFileReader.forByteArray(tmd));
+      fail();
+    } catch (TmdFormatException e) {
+      assertEquals(expected, e.getProblem());
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package pro.schuhmann.tmdlib;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TmdWriterTest {
+
+  @Test
+  public void roundTripTest() throws IOException {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 2080, 5, true);
+    TmdBuilder builder = TmdBuilder.from(TMD.fromByteArray(data));
+    assertArrayEquals(data, new TmdWriter().toByteArray(builder));
+
+    // Written into the middle of a buffer
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 32);
+    buffer.position(16);
+    assertEquals(data.length, new TmdWriter().write(builder, buffer));
+    assertEquals(16 + data.length, buffer.position());
+  }
+
+  @Test
+  public void rewriteTest() throws IOException, GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    TMD original = TMD.fromByteArray(TestTmds.build(0x00040000000EE000L, 2080, 5, true));
+    TmdBuilder builder = TmdBuilder.from(original).titleVersion(3088);
+    builder.setContentChunk(2, 0x1234, 2, 1, 0x10, new byte[0x20]);
+    builder.addContentChunk(0x200, 5, 0x4001, 0x20, new byte[0x20]);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int length = new TmdWriter(new RsaTmdSigner(keyPair.getPrivate())).write(builder, Channels.newChannel(out));
+    byte[] written = out.toByteArray();
+    assertEquals(written.length, length);
+
+    TMD tmd = new TMD(TmdFileReader.forByteArray(written), TmdOptions.DEFAULT.verifyIntegrity(true));
+    assertEquals(3088, tmd.getHeader().getTitleVersion());
+    assertEquals(6, tmd.getHeader().getContentCount());
+    assertEquals(6, tmd.getContentInfoRecords().get(0).getContentCommandCount());
+    assertEquals(0x1234, tmd.getContentChunkRecords().get(2).getContentId());
+    assertEquals(0x200, tmd.getContentChunkRecords().get(5).getContentId());
+    assertNotNull(tmd.getCertificates());
+    assertEquals(original.getHeader().getTitleId(), tmd.getHeader().getTitleId());
+
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initVerify(keyPair.getPublic());
+    signature.update(written, 0x140, 0xC4);
+    assertTrue(signature.verify(tmd.getSignatureData().getSignature().toBytes()));
+  }
+
+  @Test
+  public void explicitContentInfoRecordsTest() throws IOException {
+    TmdBuilder builder = new TmdBuilder().titleId(TitleId.parse("000400000F700000")).titleVersion(1)
+        .contentInfoRecord(0, 0, 2).contentInfoRecord(1, 2, 1);
+    for (int i = 0; i < 3; i++)
+      builder.addContentChunk(i, i, 1, 0x100, new byte[0x20]);
+
+    TMD tmd = new TMD(TmdFileReader.forByteArray(new TmdWriter().toByteArray(builder)),
+        TmdOptions.DEFAULT.verifyIntegrity(true));
+    assertEquals(2, tmd.getContentInfoRecords().size());
+    assertEquals("Root-CA00000003-CP0000000b", tmd.getHeader().getSignatureIssuer());
+    assertEquals(0x000400000F700000L, tmd.getHeader().getTitleIdValue().toLong());
+  }
+
+  @Test
+  public void wiiUTest() throws IOException {
+    byte[] data = TestTmds.build(0x0005000E10101D00L, 48, 3, true);
+    TMD original = TMD.fromByteArray(data);
+    assertEquals(TmdLayout.WII_U, original.getLayout());
+    assertArrayEquals(data, new TmdWriter().toByteArray(TmdBuilder.from(original)));
+
+    // SHA-1 hashes, padded to 32 bytes
+    byte[] hash = TestTmds.digest("SHA-1", TestTmds.content(7), 0, TestTmds.content(7).length);
+    TmdBuilder builder = TmdBuilder.from(original).addContentChunk(0x107, 3, 1, 0x8000 * 8, hash);
+    try {
+      builder.addContentChunk(0x108, 4, 1, 0x10, new byte[0x20]);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals(4, builder.getContentChunkCount());
+    }
+
+    byte[] written = new TmdWriter().toByteArray(builder);
+    TMD tmd = new TMD(TmdFileReader.forByteArray(written), TmdOptions.DEFAULT.verifyIntegrity(true));
+    assertEquals(4, tmd.getHeader().getContentCount());
+    assertArrayEquals(hash, tmd.getContentChunkRecords().get(3).getSha256hash().toBytes());
+    assertNotNull(tmd.getCertificates());
+  }
+
+  @Test
+  public void wiiTest() throws IOException, GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    byte[] data = TestTmds.buildWii(0x0001000157414C45L, 1, 2, true);
+    TMD original = TMD.fromByteArray(data);
+    assertArrayEquals(data, new TmdWriter().toByteArray(TmdBuilder.from(original)));
+
+    TmdBuilder builder = TmdBuilder.from(original).titleVersion(2);
+    builder.setContentChunk(1, 0x101, 1, 1, 0x10, new byte[0x14]);
+    byte[] written = new TmdWriter(new RsaTmdSigner(keyPair.getPrivate())).toByteArray(builder);
+    assertEquals(data.length, written.length);
+
+    TMD tmd = TMD.fromByteArray(written);
+    assertEquals(TmdLayout.WII, tmd.getLayout());
+    assertEquals(2, tmd.getHeader().getTitleVersion());
+    assertEquals(0x10, tmd.getContentChunkRecords().get(1).getContentSize());
+
+    // Wii TMDs sign the header and the content chunk records
+    Signature signature = Signature.getInstance("SHA1withRSA");
+    signature.initVerify(keyPair.getPublic());
+    signature.update(written, 0x140, 0xA4 + 2 * 0x24);
+    assertTrue(signature.verify(tmd.getSignatureData().getSignature().toBytes()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wiiContentInfoRecordTest() {
+    new TmdBuilder(TmdLayout.WII).contentInfoRecord(0, 0, 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void contentInfoRecordOutOfRangeTest() throws IOException {
+    TmdBuilder builder = new TmdBuilder().contentInfoRecord(0, 0, 2);
+    builder.addContentChunk(0, 0, 1, 0x100, new byte[0x20]);
+    new TmdWriter().toByteArray(builder);
+  }
+}
@@ -0,0 +1,103 @@
+package pro.schuhmann.tmdlib.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TmdOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TmdBatchParserTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void parseDirectoryTest() throws IOException, InterruptedException {
+    Path root = folder.getRoot().toPath();
+    for (int title = 0; title < 20; title++) {
+      Path titleDirectory = Files.createDirectories(root.resolve(String.format("00040000%08X", title)));
+      for (int version = 0; version < 3; version++)
+        Files.write(titleDirectory.resolve("tmd." + version * 16),
+            TestTmds.build(0x0004000000000000L | title, version * 16, 1 + title, true));
+      Files.write(titleDirectory.resolve("00000000.app"), new byte[16]);
+    }
+    Path broken = root.resolve("broken.tmd");
+    Files.write(broken, Arrays.copyOf(TestTmds.build(0x0004000000000000L, 0, 8, false), 0x300));
+
+    final Set<Long> titleIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    final AtomicInteger parsed = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    BatchResult result;
+    try (TmdBatchParser parser = new TmdBatchParser(pool, 8, TmdOptions.DEFAULT)) {
+      result = parser.parseAll(root, new TmdBatchListener() {
+        @Override
+        public void onParsed(Path path, TMD tmd) {
+          titleIds.add(tmd.getHeader().getTitleIdValue().toLong());
+          parsed.incrementAndGet();
+        }
+
+        @Override
+        public void onFailure(Path path, Exception error) {
+          failed.incrementAndGet();
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(60, result.getParsedCount());
+    assertEquals(60, parsed.get());
+    assertEquals(20, titleIds.size());
+    assertEquals(1, result.getFailedCount());
+    assertEquals(1, failed.get());
+    assertTrue(result.getFailures().containsKey(broken));
+  }
+
+  @Test
+  public void failingListenerTest() throws IOException, InterruptedException {
+    Path root = folder.getRoot().toPath();
+    final Path[] files = new Path[3];
+    for (int i = 0; i < files.length; i++) {
+      files[i] = root.resolve("tmd." + i);
+      Files.write(files[i], TestTmds.build(0x0004000000000000L, i, 1, false));
+    }
+
+    final AtomicInteger failed = new AtomicInteger();
+    BatchResult result;
+    try (TmdBatchParser parser = new TmdBatchParser()) {
+      result = parser.parseAll(Arrays.asList(files), new TmdBatchListener() {
+        @Override
+        public void onParsed(Path path, TMD tmd) {
+          if (path.equals(files[1]))
+            throw new IllegalStateException("Listener bug");
+        }
+
+        @Override
+        public void onFailure(Path path, Exception error) {
+          failed.incrementAndGet();
+        }
+      });
+    }
+
+    // The listener hears about the failure, just like the result
+    assertEquals(2, result.getParsedCount());
+    assertEquals(1, result.getFailedCount());
+    assertEquals(1, failed.get());
+    assertTrue(result.getFailures().get(files[1]) instanceof IllegalStateException);
+  }
+}
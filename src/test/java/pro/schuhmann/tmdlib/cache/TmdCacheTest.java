@@ -0,0 +1,130 @@
+package pro.schuhmann.tmdlib.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TitleVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TmdCacheTest {
+
+  private static final long TITLE_ID = 0x00040000000EE000L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void evictionTest() throws IOException {
+    File a = write("a.tmd", 0, 1);
+    File b = write("b.tmd", 1, 1);
+    File c = write("c.tmd", 2, 1);
+    TmdCache cache = new TmdCache(a.length() * 2 + 16);
+
+    TMD tmdA = cache.get(a);
+    cache.get(b);
+    assertSame(tmdA, cache.get(a));
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+
+    // b is the least recently used TMD
+    cache.get(c);
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.size());
+    assertEquals(a.length() * 2, cache.getBytes());
+    assertNull(cache.get(new TitleVersion(TITLE_ID, 1)));
+    assertSame(tmdA, cache.get(new TitleVersion(TITLE_ID, 0)));
+  }
+
+  @Test
+  public void modifiedTest() throws IOException {
+    File a = write("a.tmd", 0, 1);
+    TmdCache cache = new TmdCache(1024 * 1024);
+    TMD first = cache.get(a);
+
+    Files.write(a.toPath(), TestTmds.build(TITLE_ID, 0, 2, false));
+    TMD second = cache.get(a);
+    assertNotSame(first, second);
+    assertEquals(2, second.getContentChunkRecords().size());
+    assertEquals(1, cache.size());
+    assertEquals(a.length(), cache.getBytes());
+
+    cache.invalidate(a);
+    assertEquals(0, cache.size());
+    assertNotSame(second, cache.get(a));
+
+    // A deleted file is removed from the cache
+    Files.delete(a.toPath());
+    try {
+      cache.get(a);
+      fail();
+    } catch (NoSuchFileException expected) {
+      // Good
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void tooLargeTest() throws IOException {
+    File a = write("a.tmd", 0, 1);
+    TmdCache cache = new TmdCache(16);
+    assertNotSame(cache.get(a), cache.get(a));
+    assertEquals(0, cache.size());
+  }
+
+  @Test(expected = NoSuchFileException.class)
+  public void failedLoadTest() throws IOException {
+    new TmdCache(1024).get(new File(folder.getRoot(), "missing.tmd"));
+  }
+
+  @Test
+  public void coalesceTest() throws Exception {
+    final File a = write("a.tmd", 0, 64);
+    final TmdCache cache = new TmdCache(1024 * 1024);
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<TMD>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<TMD>() {
+          @Override
+          public TMD call() throws Exception {
+            start.await();
+            return cache.get(a);
+          }
+        }));
+      }
+      start.countDown();
+      TMD tmd = results.get(0).get();
+      for (Future<TMD> result : results)
+        assertSame(tmd, result.get());
+      assertEquals(8, cache.getHitCount() + cache.getMissCount());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private File write(String name, int version, int contentCount) throws IOException {
+    File file = folder.newFile(name);
+    Files.write(file.toPath(), TestTmds.build(TITLE_ID, version, contentCount, false));
+    return file;
+  }
+}
@@ -0,0 +1,143 @@
+package pro.schuhmann.tmdlib.cia;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.HexString;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.Ticket;
+import pro.schuhmann.tmdlib.TmdBuilder;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.TmdWriter;
+import pro.schuhmann.tmdlib.parts.Certificate;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CiaFileTest {
+
+  private static final long TITLE_ID = 0x00040000000EE000L;
+  private static final boolean[] INCLUDED = {true, false, true, true};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void fileTest() throws IOException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 1040, 4, false),
+        INCLUDED);
+    File file = folder.newFile("title.cia");
+    Files.write(file.toPath(), data);
+
+    TMD tmd;
+    try (CiaFile cia = new CiaFile(file, TmdOptions.DEFAULT.verifyIntegrity(true))) {
+      check(cia, data);
+      tmd = cia.getTmd();
+    }
+    // Still usable after closing the CIA
+    assertEquals(4, tmd.getContentChunkRecords().size());
+  }
+
+  @Test
+  public void byteBufferTest() throws IOException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 1040, 4, false),
+        INCLUDED);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 0x10);
+    buffer.position(0x10);
+    buffer.put(data);
+    buffer.position(0x10);
+
+    try (CiaFile cia = CiaFile.fromByteBuffer(buffer)) {
+      check(cia, data);
+    }
+    assertEquals(0x10, buffer.position());
+  }
+
+  private static void check(CiaFile cia, byte[] data) throws IOException {
+    assertEquals(data.length, cia.getSize());
+    assertEquals(0x2040, cia.getCertificateChainOffset());
+    assertEquals(0x2040 + 0xA00, cia.getTicketOffset());
+    assertEquals(0x350, cia.getTicketSize());
+    assertEquals(0x2DC0, cia.getTmdOffset());
+    assertEquals(0, cia.getTmdOffset() % 0x40);
+    assertEquals(0, cia.getContentSectionOffset() % 0x40);
+    assertEquals(0, cia.getMetaSize());
+
+    Certificate[] certificates = cia.getCertificates();
+    assertEquals(3, certificates.length);
+    assertEquals("CA00000003", certificates[0].getName());
+    assertEquals("XS0000000c", certificates[1].getName());
+    assertEquals("CP0000000b", certificates[2].getName());
+
+    Ticket ticket = cia.getTicket();
+    assertEquals(TITLE_ID, ticket.getTitleId().toLong());
+    assertEquals(HexString.fromString("000102030405060708090A0B0C0D0E0F"), ticket.getTitleKey());
+    assertEquals(1, ticket.getVersion());
+    assertEquals(0x350, ticket.getLength());
+    assertNull(ticket.getCertificates());
+
+    TMD tmd = cia.getTmd();
+    assertEquals(TITLE_ID, tmd.getHeader().getTitleIdValue().toLong());
+    assertEquals(1040, tmd.getHeader().getTitleVersion());
+    // The raw TMD is available in lazy and eager mode
+    int tmdOffset = (int) cia.getTmdOffset();
+    assertArrayEquals(Arrays.copyOfRange(data, tmdOffset, tmdOffset + cia.getTmdSize()),
+        new TmdWriter().toByteArray(TmdBuilder.from(tmd)));
+
+    assertTrue(cia.isContentIncluded(0));
+    assertFalse(cia.isContentIncluded(1));
+    assertEquals(-1, cia.getContentOffset(1));
+    long offset = cia.getContentSectionOffset();
+    for (int i = 0; i < INCLUDED.length; i++) {
+      if (!INCLUDED[i])
+        continue;
+      assertEquals(offset, cia.getContentOffset(i));
+      byte[] content = TestTmds.content(i);
+      assertArrayEquals(content, Arrays.copyOfRange(data, (int) offset, (int) offset + content.length));
+      offset += content.length;
+    }
+    assertEquals(cia.getSize(), offset);
+  }
+
+  @Test
+  public void ticketTest() throws IOException {
+    Ticket ticket = Ticket.fromByteArray(TestTmds.buildTicket(TITLE_ID, true));
+    assertEquals(0x350, ticket.getLength());
+    assertEquals("Root-CA00000003-XS0000000c", ticket.getSignatureIssuer());
+    assertEquals(0x0004000012345678L, ticket.getTicketId());
+    assertEquals(2, ticket.getCertificates().length);
+    assertEquals("XS0000000c", ticket.getCertificates()[0].getName());
+  }
+
+  @Test
+  public void invalidTest() throws IOException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 1040, 4, false),
+        INCLUDED);
+    try {
+      CiaFile.fromByteBuffer(ByteBuffer.wrap(data, 0, data.length - 1));
+      fail();
+    } catch (EOFException e) {
+      // The content section is truncated
+    }
+
+    // A TMD isn't a CIA
+    try {
+      CiaFile.fromByteBuffer(ByteBuffer.wrap(TestTmds.build(TITLE_ID, 1040, 200, false)));
+      fail();
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Not a CIA file"));
+    }
+  }
+}
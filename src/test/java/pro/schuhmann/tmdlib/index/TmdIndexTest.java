@@ -0,0 +1,136 @@
+package pro.schuhmann.tmdlib.index;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TitleVersion;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TmdIndexTest {
+
+  private static final long TITLE_ID = 0x00040000000EE000L;
+
+  @Test
+  public void lookupTest() throws IOException {
+    TmdIndex index = new TmdIndex();
+    TMD v0  = TMD.fromByteArray(TestTmds.build(TITLE_ID, 0, 1, false));
+    TMD v16 = TMD.fromByteArray(TestTmds.build(TITLE_ID, 16, 3, false));
+    TMD other = TMD.fromByteArray(TestTmds.build(0x0004000000055D00L, 1, 2, false));
+    assertNull(index.add(v16));
+    assertNull(index.add(v0));
+    assertNull(index.add(other));
+    assertEquals(3, index.size());
+
+    assertSame(v16, index.get(TITLE_ID, 16));
+    assertSame(other, index.get(new TitleVersion(0x0004000000055D00L, 1)));
+    assertNull(index.get(TITLE_ID, 1));
+
+    List<TMD> versions = index.getVersions(new TitleId(TITLE_ID));
+    assertEquals(2, versions.size());
+    assertSame(v0, versions.get(0));
+    assertSame(v16, versions.get(1));
+
+    // Content 0x101 is part of the second version and the other title
+    Collector collector = new Collector();
+    assertEquals(2, index.findByContentId(0x101, collector));
+    assertEquals(1, collector.position);
+    assertEquals(0, index.findByContentId(0x200, collector));
+
+    // Content 2 is only part of the second version
+    byte[] content = TestTmds.content(2);
+    byte[] hash = new byte[0x24];
+    System.arraycopy(TestTmds.sha256(content, 0, content.length), 0, hash, 4, 0x20);
+    collector = new Collector();
+    assertEquals(1, index.findByContentHash(hash, 4, collector));
+    assertSame(v16, collector.tmd);
+    assertEquals(2, collector.position);
+
+    // Same first 8 bytes, different hash
+    hash[0x23] ^= 1;
+    assertEquals(0, index.findByContentHash(hash, 4, collector));
+  }
+
+  @Test
+  public void replaceAndRemoveTest() throws IOException {
+    TmdIndex index = new TmdIndex();
+    TMD first  = TMD.fromByteArray(TestTmds.build(TITLE_ID, 16, 3, false));
+    TMD second = TMD.fromByteArray(TestTmds.build(TITLE_ID, 16, 1, false));
+    index.add(first);
+    assertSame(first, index.add(second));
+    assertEquals(1, index.size());
+    assertSame(second, index.get(TITLE_ID, 16));
+    assertEquals(0, index.findByContentId(0x102, new Collector()));
+
+    assertSame(second, index.remove(new TitleVersion(TITLE_ID, 16)));
+    assertNull(index.remove(new TitleVersion(TITLE_ID, 16)));
+    assertEquals(0, index.size());
+    assertEquals(0, index.findByTitleId(TITLE_ID, new Collector()));
+
+    // Enough removals to compact the index
+    for (int i = 0; i < 200; i++) {
+      index.add(TMD.fromByteArray(TestTmds.build(TITLE_ID + i, 1, 1, false)));
+      if (i % 4 != 0)
+        index.remove(new TitleVersion(TITLE_ID + i, 1));
+    }
+    assertEquals(50, index.size());
+    assertEquals(50, index.findByContentId(0x100, new Collector()));
+    assertNotNull(index.get(TITLE_ID + 196, 1));
+    assertNull(index.get(TITLE_ID + 197, 1));
+  }
+
+  @Test
+  public void concurrentTest() throws Exception {
+    final TmdIndex index = new TmdIndex();
+    final TMD[] tmds = new TMD[500];
+    for (int i = 0; i < tmds.length; i++)
+      tmds[i] = TMD.fromByteArray(TestTmds.build(TITLE_ID + i, 0, 2, false));
+
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread reader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Collector collector = new Collector();
+          int previous = 0;
+          while (previous < tmds.length) {
+            int found = index.findByContentId(0x101, collector);
+            assertTrue(found >= previous);
+            previous = found;
+          }
+        } catch (Throwable t) {
+          error.set(t);
+        }
+      }
+    };
+    reader.start();
+    for (TMD tmd : tmds)
+      index.add(tmd);
+    reader.join(30000);
+
+    if (error.get() != null)
+      throw new AssertionError(error.get());
+    assertEquals(tmds.length, index.size());
+  }
+
+  private static class Collector implements IndexMatchHandler {
+
+    private TMD tmd;
+    private int position;
+
+    @Override
+    public void onMatch(TMD tmd, int chunkPosition) {
+      this.tmd = tmd;
+      this.position = chunkPosition;
+    }
+  }
+}
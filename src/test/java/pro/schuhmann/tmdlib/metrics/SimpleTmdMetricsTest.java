@@ -0,0 +1,154 @@
+package pro.schuhmann.tmdlib.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TmdFileReader;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.enums.SignatureType;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SimpleTmdMetricsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void parseTest() throws IOException {
+    byte[] tmd = TestTmds.build(0x00040000000EE000L, 16, 3, true);
+    File file = folder.newFile("tmd");
+    Files.write(file.toPath(), tmd);
+
+    SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+    new TMD(file, TmdOptions.DEFAULT.verifyIntegrity(true).metrics(metrics));
+
+    assertEquals(1, metrics.getParsedCount());
+    assertEquals(1, metrics.getParsedCount(SignatureType.RSA_2048_SHA256));
+    assertEquals(tmd.length, metrics.getBytesRead());
+    assertTrue(metrics.getReadCount() >= 1);
+    assertEquals(3 * 0x30, metrics.getSectionBytes(TmdSection.CONTENT_CHUNK_RECORDS));
+    assertEquals(0x700, metrics.getSectionBytes(TmdSection.CERTIFICATES));
+    // The structure isn't validated by default, see TmdValidatorTest
+    for (TmdSection section : TmdSection.values())
+      assertEquals(section.name(), section == TmdSection.STRUCTURE ? 0 : 1, metrics.getSectionTime(section).getCount());
+
+    Map<String, Long> map = metrics.toMap();
+    assertEquals(Long.valueOf(1), map.get("tmd.parse.count"));
+    assertEquals(Long.valueOf(1), map.get("tmd.header.count"));
+    assertEquals(Long.valueOf(tmd.length), map.get("tmd.file.bytes"));
+  }
+
+  @Test
+  public void lazyTest() throws IOException {
+    SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+    TMD tmd = new TMD(TmdFileReader.forByteArray(TestTmds.build(0x00040000000EE000L, 16, 3, false)),
+        TmdOptions.DEFAULT.lazy(true).metrics(metrics));
+    assertEquals(0, metrics.getSectionTime(TmdSection.HEADER).getCount());
+
+    tmd.getHeader();
+    tmd.getHeader();
+    assertEquals(1, metrics.getSectionTime(TmdSection.HEADER).getCount());
+    assertEquals(0, metrics.getSectionTime(TmdSection.CONTENT_CHUNK_RECORDS).getCount());
+    assertEquals(0, metrics.getBytesRead());
+  }
+
+  @Test
+  public void failureTest() throws IOException {
+    SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+    byte[] tmd = TestTmds.build(0x00040000000EE000L, 16, 3, false);
+    try {
+      new TMD(TmdFileReader.forByteArray(Arrays.copyOf(tmd, 0x200)), TmdOptions.DEFAULT.metrics(metrics));
+      fail();
+    } catch (EOFException expected) {
+      // Truncated in the header
+    }
+    assertEquals(0, metrics.getParsedCount());
+    assertEquals(Long.valueOf(1), metrics.getFailures().get("HEADER/RSA_2048_SHA256/UNKNOWN/EOFException"));
+
+    try {
+      new TMD(new File(folder.getRoot(), "missing"), TmdOptions.DEFAULT.metrics(metrics));
+      fail();
+    } catch (IOException expected) {
+      // No file
+    }
+    assertEquals(Long.valueOf(1), metrics.getFailures().get("FILE/UNKNOWN/UNKNOWN/FileNotFoundException"));
+  }
+
+  @Test
+  public void certificateFailureTest() throws IOException {
+    SimpleTmdMetrics metrics = new SimpleTmdMetrics();
+    final byte[] tmd = TestTmds.build(0x00040000000EE000L, 16, 3, true);
+    final TmdFileReader data = TmdFileReader.forByteArray(tmd);
+    // The public key of the CA certificate (the last 0x400 bytes) can't be read
+    TmdFileReader reader = new TmdFileReader() {
+      @Override
+      public byte getByte(int index) throws IOException {
+        return data.getByte(index);
+      }
+
+      @Override
+      public short getShort(int index) throws IOException {
+        return data.getShort(index);
+      }
+
+      @Override
+      public int getInt(int index) throws IOException {
+        return data.getInt(index);
+      }
+
+      @Override
+      public long getLong(int index) throws IOException {
+        return data.getLong(index);
+      }
+
+      @Override
+      public void getBytes(long index, byte[] destination, int offset, int length) throws IOException {
+        if (index >= tmd.length - 0x400 + 0x280)
+          throw new IOException("Bad sector");
+        data.getBytes(index, destination, offset, length);
+      }
+
+      @Override
+      public int getFileLength() {
+        return tmd.length;
+      }
+    };
+
+    try {
+      new TMD(reader, TmdOptions.DEFAULT.metrics(metrics));
+      fail();
+    } catch (IOException expected) {
+      // Failed in the second certificate
+    }
+    // The CA certificate is signed with RSA_4096_SHA256, but contains a RSA_2048 key
+    assertEquals(Long.valueOf(1), metrics.getFailures().get("CERTIFICATES/RSA_2048_SHA256/RSA_2048/IOException"));
+    assertEquals(1, metrics.getFailures().size());
+  }
+
+  @Test
+  public void histogramTest() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentileNanos(99));
+    for (int i = 1; i <= 100; i++)
+      histogram.record(i * 1000);
+    assertEquals(100, histogram.getCount());
+    assertEquals(100000, histogram.getMaxNanos());
+    assertEquals(5050000, histogram.getTotalNanos());
+
+    // 50000 ns is in the bucket 32768 to 65535
+    assertEquals(65535, histogram.getPercentileNanos(50));
+    assertEquals(100000, histogram.getPercentileNanos(100));
+  }
+}
@@ -0,0 +1,52 @@
+package pro.schuhmann.tmdlib.parts;
+
+import org.junit.Test;
+import pro.schuhmann.tmdlib.TmdFileReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContentChunkRecordListTest {
+
+  @Test
+  public void contentChunkRecordListTest() throws IOException {
+    final int count = 1000;
+    ByteBuffer data = ByteBuffer.allocate(0x10 + count * 0x30);
+    data.position(0x10);
+    for (int i = 0; i < count; i++) {
+      data.putInt(0x1000 + i);
+      data.putShort((short) i);
+      data.putShort((short) 0x4001);
+      data.putLong(0x100000000L + i);
+      for (int j = 0; j < 0x20; j++)
+        data.put((byte) (i + j));
+    }
+
+    ContentChunkRecordList records = new ContentChunkRecordList(TmdFileReader.forByteBuffer(data, 0, data.capacity()),
+        0x10, count);
+    assertEquals(count, records.size());
+
+    byte[] hash = new byte[0x20];
+    for (int i = 0; i < count; i += 111) {
+      ContentChunkRecord ccr = records.get(i);
+      assertEquals(0x1000 + i, ccr.getContentId());
+      assertEquals(0x1000 + i, records.getContentId(i));
+      assertEquals((short) i, records.getContentIndex(i));
+      assertEquals((short) 0x4001, records.getContentType(i));
+      assertEquals(0x100000000L + i, records.getContentSize(i));
+      assertEquals(ccr.getContentSize(), records.getContentSize(i));
+
+      records.getSha256hash(i, hash, 0);
+      assertEquals((byte) i, hash[0]);
+      assertEquals((byte) (i + 0x1F), hash[0x1F]);
+      assertEquals(ccr.getSha256hash().toString().substring(0, 2), String.format("%02X", i & 0xFF));
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void indexOutOfBoundsTest() throws IOException {
+    new ContentChunkRecordList(TmdFileReader.forByteArray(new byte[0x60]), 0, 2).getContentId(2);
+  }
+}
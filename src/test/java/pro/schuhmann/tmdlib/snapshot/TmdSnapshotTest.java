@@ -0,0 +1,143 @@
+package pro.schuhmann.tmdlib.snapshot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.enums.TmdLayout;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecordList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TmdSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void writeAndUpdateTest() throws IOException {
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      File file = folder.newFile("title" + i + ".tmd");
+      Files.write(file.toPath(), TestTmds.build(0x00040000000EE000L + (i << 8), 16 * i, i + 1, i == 0));
+      files.add(file);
+    }
+    File broken = folder.newFile("broken.tmd");
+    Files.write(broken.toPath(), new byte[16]);
+    files.add(broken);
+
+    File snapshotFile = new File(folder.getRoot(), "catalog.snapshot");
+    TmdSnapshotWriter writer = new TmdSnapshotWriter();
+    writer.write(snapshotFile, files);
+    assertEquals(3, writer.getParsedCount());
+    assertEquals(1, writer.getFailures().size());
+    assertTrue(writer.getFailures().containsKey(broken));
+
+    try (TmdSnapshot snapshot = new TmdSnapshot(snapshotFile)) {
+      assertEquals(3, snapshot.size());
+      for (int i = 0; i < 3; i++) {
+        File file = files.get(i);
+        TMD tmd = new TMD(file);
+        int entry = snapshot.indexOf(file);
+        assertEquals(i, entry);
+        assertTrue(snapshot.isCurrent(entry, file));
+        assertEquals(file.getAbsolutePath(), snapshot.getPath(entry));
+        assertEquals(tmd.getHeader().getTitleIdValue(), snapshot.getTitleId(entry));
+        assertEquals(tmd.getHeader().getTitleVersion(), snapshot.getTitleVersion(entry));
+        assertEquals(i + 1, snapshot.getContentCount(entry));
+        assertEquals(0x010004, snapshot.getSignatureType(entry));
+        assertEquals(tmd.getHeader().getContentInfoRecordsHash(), snapshot.getHeader(entry).getContentInfoRecordsHash());
+        assertEquals(1, snapshot.getContentInfoRecords(entry).size());
+
+        ContentChunkRecordList records = snapshot.getContentChunkRecords(entry);
+        assertEquals(tmd.getContentChunkRecords().size(), records.size());
+        for (int c = 0; c < records.size(); c++)
+          assertEquals(tmd.getContentChunkRecords().get(c).getSha256hash(), records.get(c).getSha256hash());
+      }
+      assertEquals(-1, snapshot.indexOf(broken));
+
+      // Change one file, only this one is parsed again
+      File changed = files.get(1);
+      Files.write(changed.toPath(), TestTmds.build(0x00040000000EE100L, 4096, 7, false));
+      assertTrue(changed.setLastModified(changed.lastModified() + 2000));
+      assertFalse(snapshot.isCurrent(1, changed));
+
+      writer = new TmdSnapshotWriter(snapshot);
+      writer.write(snapshotFile, files.subList(0, 3));
+      assertEquals(1, writer.getParsedCount());
+      assertEquals(2, writer.getReusedCount());
+    }
+
+    try (TmdSnapshot snapshot = new TmdSnapshot(snapshotFile)) {
+      assertEquals(3, snapshot.size());
+      assertEquals(4096, snapshot.getTitleVersion(1));
+      assertEquals(7, snapshot.getContentChunkRecords(1).size());
+      assertEquals(3, snapshot.getContentChunkRecords(2).size());
+      assertTrue(snapshot.isCurrent(1, files.get(1)));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void notASnapshotTest() throws IOException {
+    File file = folder.newFile("random");
+    Files.write(file.toPath(), new byte[64]);
+    new TmdSnapshot(file).close();
+  }
+
+  @Test
+  public void wiiUTest() throws IOException {
+    File file = folder.newFile("wiiu.tmd");
+    Files.write(file.toPath(), TestTmds.build(0x0005000E10144F00L, 208, 5, true));
+    File snapshotFile = new File(folder.getRoot(), "wiiu.snapshot");
+    new TmdSnapshotWriter().write(snapshotFile, Collections.singletonList(file));
+
+    TMD tmd = new TMD(file);
+    try (TmdSnapshot snapshot = new TmdSnapshot(snapshotFile)) {
+      ContentChunkRecordList records = snapshot.getContentChunkRecords(0);
+      assertEquals(0x14, records.getHashSize());
+      for (int c = 0; c < records.size(); c++) {
+        assertEquals(0x14, records.get(c).getSha256hash().length());
+        assertEquals(tmd.getContentChunkRecords().get(c).getSha256hash(), records.get(c).getSha256hash());
+      }
+    }
+  }
+
+  @Test
+  public void wiiTest() throws IOException {
+    File wii = folder.newFile("wii.tmd");
+    Files.write(wii.toPath(), TestTmds.buildWii(0x0001000157414C45L, 3, 2, true));
+    File ctr = folder.newFile("ctr.tmd");
+    Files.write(ctr.toPath(), TestTmds.build(0x00040000000EE000L, 2080, 3, false));
+    File snapshotFile = new File(folder.getRoot(), "wii.snapshot");
+    new TmdSnapshotWriter().write(snapshotFile, Arrays.asList(wii, ctr));
+
+    TMD tmd = new TMD(wii);
+    try (TmdSnapshot snapshot = new TmdSnapshot(snapshotFile)) {
+      assertEquals(TmdLayout.WII, snapshot.getLayout(0));
+      assertEquals(3, snapshot.getHeader(0).getTitleVersion());
+      assertEquals(0, snapshot.getContentInfoRecords(0).size());
+      ContentChunkRecordList records = snapshot.getContentChunkRecords(0);
+      assertEquals(2, records.size());
+      for (int c = 0; c < records.size(); c++)
+        assertEquals(tmd.getContentChunkRecords().get(c).getSha256hash(), records.get(c).getSha256hash());
+      assertEquals(wii.getAbsolutePath(), snapshot.getPath(0));
+
+      // The entry behind the Wii entry starts at the right offset
+      assertEquals(TmdLayout.CTR, snapshot.getLayout(1));
+      assertEquals(2080, snapshot.getHeader(1).getTitleVersion());
+      assertEquals(0x102, snapshot.getContentChunkRecords(1).getContentId(2));
+      assertEquals(ctr.getAbsolutePath(), snapshot.getPath(1));
+    }
+  }
+}
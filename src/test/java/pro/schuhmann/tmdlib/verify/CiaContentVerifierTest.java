@@ -0,0 +1,161 @@
+package pro.schuhmann.tmdlib.verify;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TmdBuilder;
+import pro.schuhmann.tmdlib.TmdWriter;
+import pro.schuhmann.tmdlib.cia.CiaFile;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CiaContentVerifierTest {
+
+  private static final long TITLE_ID = 0x00040000000EE000L;
+  private static final boolean[] INCLUDED = {true, false, true, true, true};
+  private static final byte[] TITLE_KEY = {
+      0x10, 0x21, 0x32, 0x43, 0x54, 0x65, 0x76, (byte) 0x87, (byte) 0x98, (byte) 0xA9, (byte) 0xBA, (byte) 0xCB,
+      (byte) 0xDC, (byte) 0xED, (byte) 0xFE, 0x0F};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void verifyTest() throws IOException, InterruptedException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 0, 5, false),
+        INCLUDED);
+    TestTmds.encryptCia(data, TITLE_KEY, INCLUDED);
+    // Corrupt content 3, the last 0x8000 * 5 bytes are content 4
+    data[data.length - 0x28000 - 1234] ^= 1;
+    File file = folder.newFile("title.cia");
+    Files.write(file.toPath(), data);
+
+    final AtomicLong hashed = new AtomicLong();
+    List<ContentVerificationResult> results;
+    // Buffers which don't end at content boundaries
+    try (CiaFile cia = new CiaFile(file);
+         CiaContentVerifier verifier = new CiaContentVerifier(3, 0x3000, new IoRateLimiter(64L << 20))) {
+      results = verifier.verify(cia, TITLE_KEY, new ContentVerificationListener() {
+        @Override
+        public void onProgress(ContentChunkRecord record, long bytesHashed, long totalBytes) {
+          if (bytesHashed == totalBytes)
+            hashed.addAndGet(totalBytes);
+        }
+
+        @Override
+        public void onVerified(ContentVerificationResult result) {
+        }
+      });
+    }
+
+    assertEquals(5, results.size());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(0).getStatus());
+    assertEquals(ContentVerificationResult.Status.MISSING, results.get(1).getStatus());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(2).getStatus());
+    assertEquals(ContentVerificationResult.Status.HASH_MISMATCH, results.get(3).getStatus());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(4).getStatus());
+    assertEquals(0x8000 * (1 + 3 + 4 + 5), hashed.get());
+  }
+
+  @Test
+  public void unencryptedTest() throws IOException, InterruptedException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 0, 5, false),
+        INCLUDED);
+    List<ContentVerificationResult> results;
+    try (CiaFile cia = CiaFile.fromByteBuffer(ByteBuffer.wrap(data));
+         CiaContentVerifier verifier = new CiaContentVerifier(2, 0x10000, IoRateLimiter.UNLIMITED)) {
+      // The test contents aren't encrypted, but flagged as encrypted
+      results = verifier.verify(cia, null);
+    }
+
+    assertEquals(ContentVerificationResult.Status.ENCRYPTED, results.get(0).getStatus());
+    assertEquals(ContentVerificationResult.Status.MISSING, results.get(1).getStatus());
+    assertEquals(ContentVerificationResult.Status.ENCRYPTED, results.get(4).getStatus());
+  }
+
+  @Test(timeout = 10000)
+  public void failingListenerTest() throws IOException, InterruptedException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 0, 5, false),
+        INCLUDED);
+    TestTmds.encryptCia(data, TITLE_KEY, INCLUDED);
+
+    // The contents are much larger than all buffers together
+    try (CiaFile cia = CiaFile.fromByteBuffer(ByteBuffer.wrap(data));
+         CiaContentVerifier verifier = new CiaContentVerifier(2, 0x1000, IoRateLimiter.UNLIMITED)) {
+      verifier.verify(cia, TITLE_KEY, new ContentVerificationListener() {
+        @Override
+        public void onProgress(ContentChunkRecord record, long bytesHashed, long totalBytes) {
+          throw new UnsupportedOperationException("Listener bug");
+        }
+
+        @Override
+        public void onVerified(ContentVerificationResult result) {
+        }
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof UnsupportedOperationException);
+    }
+  }
+
+  @Test
+  public void truncatedTest() throws IOException, InterruptedException {
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), TestTmds.build(TITLE_ID, 0, 5, false),
+        INCLUDED);
+    TestTmds.encryptCia(data, TITLE_KEY, INCLUDED);
+    File file = folder.newFile("title.cia");
+    Files.write(file.toPath(), data);
+
+    List<ContentVerificationResult> results;
+    try (CiaFile cia = new CiaFile(file);
+         CiaContentVerifier verifier = new CiaContentVerifier(2, 0x8000, IoRateLimiter.UNLIMITED)) {
+      // Truncate the file after opening the CIA, in the middle of content 3
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(data.length - 0x28000 - 0x1000);
+      }
+      results = verifier.verify(cia, TITLE_KEY, null);
+    }
+
+    assertEquals(ContentVerificationResult.Status.OK, results.get(0).getStatus());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(2).getStatus());
+    assertEquals(ContentVerificationResult.Status.ERROR, results.get(3).getStatus());
+    assertEquals(ContentVerificationResult.Status.ERROR, results.get(4).getStatus());
+  }
+
+  @Test
+  public void emptyContentTest() throws IOException, InterruptedException {
+    // Content 1 is empty and unencrypted, so it's the last content in the CIA
+    TmdBuilder builder = TmdBuilder.from(TMD.fromByteArray(TestTmds.build(TITLE_ID, 0, 2, false)));
+    builder.setContentChunk(1, 0x101, 1, 0, 0, TestTmds.sha256(new byte[0], 0, 0));
+    boolean[] included = {true, false};
+    byte[] data = TestTmds.buildCia(TestTmds.buildTicket(TITLE_ID, false), new TmdWriter().toByteArray(builder),
+        included);
+    TestTmds.encryptCia(data, TITLE_KEY, included);
+    data[0x20] |= 0x40; // Included, but without any bytes
+
+    try (CiaFile cia = CiaFile.fromByteBuffer(ByteBuffer.wrap(data));
+         CiaContentVerifier verifier = new CiaContentVerifier(2, 0x8000, IoRateLimiter.UNLIMITED)) {
+      List<ContentVerificationResult> results = verifier.verify(cia, TITLE_KEY, null);
+      assertEquals(ContentVerificationResult.Status.OK, results.get(0).getStatus());
+      assertEquals(ContentVerificationResult.Status.OK, results.get(1).getStatus());
+
+      // Without the title key, nothing is read at all
+      results = verifier.verify(cia, null);
+      assertEquals(ContentVerificationResult.Status.ENCRYPTED, results.get(0).getStatus());
+      assertEquals(ContentVerificationResult.Status.OK, results.get(1).getStatus());
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package pro.schuhmann.tmdlib.verify;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.parts.ContentChunkRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContentVerifierTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void verifyTest() throws IOException, InterruptedException {
+    TMD tmd = TMD.fromByteArray(TestTmds.build(0x00040000000EE000L, 0, 5, false));
+    Path directory = folder.getRoot().toPath();
+    Files.write(directory.resolve("00000100"), TestTmds.content(0));
+    Files.write(directory.resolve("00000101.app"), TestTmds.content(1));
+    byte[] corrupt = TestTmds.content(2);
+    corrupt[1234] ^= 1;
+    Files.write(directory.resolve("00000102"), corrupt);
+    Files.write(directory.resolve("00000103"), new byte[16]);
+
+    final AtomicLong progress = new AtomicLong();
+    List<ContentVerificationResult> results;
+    try (ContentVerifier verifier = new ContentVerifier(3, 0x3000, new IoRateLimiter(64L << 20))) {
+      results = verifier.verify(tmd, directory, new ContentVerificationListener() {
+        @Override
+        public void onProgress(ContentChunkRecord record, long bytesHashed, long totalBytes) {
+          progress.incrementAndGet();
+        }
+
+        @Override
+        public void onVerified(ContentVerificationResult result) {
+        }
+      });
+    }
+
+    assertEquals(5, results.size());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(0).getStatus());
+    assertEquals(ContentVerificationResult.Status.OK, results.get(1).getStatus());
+    assertEquals(ContentVerificationResult.Status.HASH_MISMATCH, results.get(2).getStatus());
+    assertEquals(ContentVerificationResult.Status.SIZE_MISMATCH, results.get(3).getStatus());
+    assertEquals(ContentVerificationResult.Status.MISSING, results.get(4).getStatus());
+    // 0x8000 / 0x3000 = 3 reads for content 0, 6 for content 1 and 8 for content 2
+    assertEquals(17, progress.get());
+  }
+}
@@ -0,0 +1,153 @@
+package pro.schuhmann.tmdlib.verify;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pro.schuhmann.tmdlib.TMD;
+import pro.schuhmann.tmdlib.TestTmds;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureVerifierTest {
+
+  private static KeyPair root;
+  private static KeyPair ca;
+  private static KeyPair cp;
+
+  @BeforeClass
+  public static void generateKeys() throws GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(4096);
+    root = generator.generateKeyPair();
+    generator.initialize(2048);
+    ca = generator.generateKeyPair();
+    cp = generator.generateKeyPair();
+  }
+
+  @Test
+  public void validChainTest() throws Exception {
+    PublicKeyCache cache = new PublicKeyCache();
+    cache.addTrustedKey("Root", root.getPublic());
+    SignatureVerifier verifier = new SignatureVerifier(cache);
+
+    SignatureVerificationResult result = verifier.verify(TMD.fromByteArray(signedTmd()));
+    assertEquals(result.toString(), SignatureVerificationResult.Status.VALID, result.getStatus());
+    assertTrue(result.isValid());
+    assertNotNull(cache.getTrustedKey("Root-CA00000003"));
+    assertNotNull(cache.getTrustedKey("Root-CA00000003-CP0000000b"));
+
+    // The verified keys are trusted now, the certificates aren't needed anymore
+    byte[] tmd = signedTmd();
+    byte[] withoutCertificates = new byte[tmd.length - 0x700];
+    System.arraycopy(tmd, 0, withoutCertificates, 0, withoutCertificates.length);
+    assertEquals(SignatureVerificationResult.Status.VALID,
+        verifier.verify(TMD.fromByteArray(withoutCertificates)).getStatus());
+  }
+
+  @Test
+  public void untrustedRootTest() throws Exception {
+    SignatureVerifier verifier = new SignatureVerifier(new PublicKeyCache());
+    assertEquals(SignatureVerificationResult.Status.UNTRUSTED_ROOT,
+        verifier.verify(TMD.fromByteArray(signedTmd())).getStatus());
+  }
+
+  @Test
+  public void invalidSignatureTest() throws Exception {
+    PublicKeyCache cache = new PublicKeyCache();
+    cache.addTrustedKey("Root", root.getPublic());
+    SignatureVerifier verifier = new SignatureVerifier(cache);
+
+    byte[] tmd = signedTmd();
+    tmd[0x140 + 0x9D] ^= 1; // Title version
+    assertEquals(SignatureVerificationResult.Status.INVALID_SIGNATURE,
+        verifier.verify(TMD.fromByteArray(tmd)).getStatus());
+
+    // The chain was verified above, so use a fresh cache
+    cache = new PublicKeyCache();
+    cache.addTrustedKey("Root", root.getPublic());
+    verifier = new SignatureVerifier(cache);
+    tmd = signedTmd();
+    tmd[tmd.length - 0x10] ^= 1; // Padding of the CA certificate
+    assertEquals(SignatureVerificationResult.Status.INVALID_CERTIFICATE,
+        verifier.verify(TMD.fromByteArray(tmd)).getStatus());
+  }
+
+  @Test
+  public void missingCertificateTest() throws IOException {
+    SignatureVerifier verifier = new SignatureVerifier(new PublicKeyCache());
+    TMD tmd = TMD.fromByteArray(TestTmds.build(0x00040000000EE000L, 0, 1, false));
+    assertEquals(SignatureVerificationResult.Status.MISSING_CERTIFICATE, verifier.verify(tmd).getStatus());
+  }
+
+
+  @Test
+  public void keyCacheTest() throws Exception {
+    byte[] data = TestTmds.build(0x00040000000EE000L, 0, 1, true);
+    byte[] otherExponent = data.clone();
+    // Same modulus, but the exponent 3 instead of 65537
+    ByteBuffer.wrap(otherExponent).putInt(data.length - 0x700 + 0x140 + 0x88 + 0x100, 3);
+
+    PublicKeyCache cache = new PublicKeyCache();
+    RSAPublicKey key = (RSAPublicKey) cache.getKey(TMD.fromByteArray(data).getCertificates()[0]);
+    RSAPublicKey other = (RSAPublicKey) cache.getKey(TMD.fromByteArray(otherExponent).getCertificates()[0]);
+    assertEquals(key.getModulus(), other.getModulus());
+    assertEquals(BigInteger.valueOf(65537), key.getPublicExponent());
+    assertEquals(BigInteger.valueOf(3), other.getPublicExponent());
+  }
+
+  @Test
+  public void toDerTest() {
+    byte[] signature = new byte[0x3C];
+    signature[0]    = (byte) 0x80; // r needs a leading zero
+    signature[0x3B] = 0x01;        // s is a single byte
+    byte[] der = SignatureVerifier.toDer(signature);
+    assertEquals(2 + 2 + 0x1F + 2 + 1, der.length);
+    assertEquals(0x30, der[0]);
+    assertEquals(der.length - 2, der[1]);
+    assertEquals(0x1F, der[3]);
+    assertEquals(0x00, der[4]);
+  }
+
+  /**
+   * Build a TMD with certificates and sign it with the generated keys: Root signs CA00000003, CA00000003 signs
+   * CP0000000b and CP0000000b signs the TMD.
+   */
+  private static byte[] signedTmd() throws GeneralSecurityException {
+    byte[] tmd = TestTmds.build(0x00040000000EE000L, 3, 2, true);
+    int cpOffset = tmd.length - 0x700;
+    int caOffset = tmd.length - 0x400;
+
+    putModulus(tmd, cpOffset + 0x140 + 0x88, (RSAPublicKey) cp.getPublic());
+    putModulus(tmd, caOffset + 0x240 + 0x88, (RSAPublicKey) ca.getPublic());
+    sign(tmd, caOffset + 0x4, root.getPrivate(), caOffset + 0x240, 0x400 - 0x240);
+    sign(tmd, cpOffset + 0x4, ca.getPrivate(), cpOffset + 0x140, 0x300 - 0x140);
+    sign(tmd, 0x4, cp.getPrivate(), 0x140, 0xC4);
+    return tmd;
+  }
+
+  private static void putModulus(byte[] tmd, int offset, RSAPublicKey key) {
+    byte[] modulus = key.getModulus().toByteArray();
+    // Strip the sign byte
+    System.arraycopy(modulus, modulus.length - 0x100, tmd, offset, 0x100);
+  }
+
+  private static void sign(byte[] tmd, int signatureOffset, PrivateKey key, int offset, int length)
+      throws GeneralSecurityException {
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(key);
+    signature.update(tmd, offset, length);
+    byte[] bytes = signature.sign();
+    System.arraycopy(bytes, 0, tmd, signatureOffset, bytes.length);
+  }
+}
@@ -0,0 +1,91 @@
+package pro.schuhmann.tmdlib.watch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pro.schuhmann.tmdlib.TestTmds;
+import pro.schuhmann.tmdlib.TitleId;
+import pro.schuhmann.tmdlib.TitleVersion;
+import pro.schuhmann.tmdlib.TmdOptions;
+import pro.schuhmann.tmdlib.batch.TmdBatchParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TmdDirectoryWatcherTest {
+
+  private static final TitleId TITLE_ID = TitleId.parse("00040000000EE000");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void watchTest() throws IOException, InterruptedException {
+    Path root = folder.getRoot().toPath();
+    Path titleDirectory = Files.createDirectory(root.resolve("00040000000EE000"));
+    Files.write(titleDirectory.resolve("tmd.0"), TestTmds.build(TITLE_ID.toLong(), 0, 1, false));
+
+    final BlockingQueue<TmdChangeEvent> events = new LinkedBlockingQueue<>();
+    try (TmdDirectoryWatcher watcher = new TmdDirectoryWatcher(root, TmdBatchParser.TMD_FILES, 50,
+        TmdOptions.DEFAULT, new TmdChangeListener() {
+      @Override
+      public void onChange(TmdChangeEvent event) {
+        events.add(event);
+      }
+    })) {
+      watcher.start();
+      assertEquals(TmdChangeEvent.Kind.ADDED, next(events).getKind());
+      assertNotNull(watcher.get(new TitleVersion(TITLE_ID, 0)));
+
+      // A new version
+      Path newVersion = titleDirectory.resolve("tmd.16");
+      Files.write(newVersion, TestTmds.build(TITLE_ID.toLong(), 16, 2, false));
+      TmdChangeEvent event = next(events);
+      assertEquals(TmdChangeEvent.Kind.ADDED, event.getKind());
+      assertEquals(newVersion, event.getPath());
+      assertEquals(2, watcher.getVersions(TITLE_ID).size());
+
+      // Not a TMD file
+      Files.write(titleDirectory.resolve("cetk"), new byte[16]);
+
+      // A changed file
+      Files.write(newVersion, TestTmds.build(TITLE_ID.toLong(), 16, 3, false));
+      event = next(events);
+      assertEquals(TmdChangeEvent.Kind.MODIFIED, event.getKind());
+      assertEquals(3, event.getTmd().getContentChunkRecords().size());
+      assertEquals(2, event.getPreviousTmd().getContentChunkRecords().size());
+
+      // A broken file
+      Files.write(titleDirectory.resolve("tmd.32"), new byte[16]);
+      assertEquals(TmdChangeEvent.Kind.FAILED, next(events).getKind());
+
+      // A new directory
+      Path otherTitle = Files.createDirectory(root.resolve("0004000000055D00"));
+      Files.write(otherTitle.resolve("tmd.1"), TestTmds.build(0x0004000000055D00L, 1, 1, false));
+      event = next(events);
+      assertEquals(TmdChangeEvent.Kind.ADDED, event.getKind());
+      assertEquals(otherTitle.resolve("tmd.1"), event.getPath());
+
+      Files.delete(newVersion);
+      event = next(events);
+      assertEquals(TmdChangeEvent.Kind.REMOVED, event.getKind());
+      assertNull(watcher.get(new TitleVersion(TITLE_ID, 16)));
+      assertEquals(2, watcher.size());
+    }
+    assertNull(events.poll());
+  }
+
+  private static TmdChangeEvent next(BlockingQueue<TmdChangeEvent> events) throws InterruptedException {
+    TmdChangeEvent event = events.poll(30, TimeUnit.SECONDS);
+    assertNotNull("No change reported", event);
+    return event;
+  }
+}